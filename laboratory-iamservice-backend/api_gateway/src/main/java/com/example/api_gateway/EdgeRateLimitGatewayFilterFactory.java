@@ -0,0 +1,146 @@
+package com.example.api_gateway;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Route filter rejecting requests over a named policy of app.edge-rate-limit.policies with 429,
+// before they are load balanced to a service. Usage: - EdgeRateLimit=login
+// Every request is counted in the local sliding window first, so floods are shed without I/O.
+// When RedisSlidingWindow is enabled the limit is also enforced across gateway instances,
+// a Redis failure falls back to the local decision.
+@Slf4j
+@Component
+public class EdgeRateLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<EdgeRateLimitGatewayFilterFactory.Config> {
+
+    @Data
+    public static class Config {
+        private String policy;
+    }
+
+    private final EdgeRateLimitProperties properties;
+    private final SlidingWindowRateLimiter localLimiter;
+    private final ObjectProvider<RedisSlidingWindow> redisWindow;
+    private final MeterRegistry meterRegistry;
+
+    public EdgeRateLimitGatewayFilterFactory(
+            EdgeRateLimitProperties properties,
+            SlidingWindowRateLimiter localLimiter,
+            ObjectProvider<RedisSlidingWindow> redisWindow,
+            MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.properties = properties;
+        this.localLimiter = localLimiter;
+        this.redisWindow = redisWindow;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("policy");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String name = config.getPolicy();
+        EdgeRateLimitProperties.Policy policy = properties.getPolicies().get(name);
+        if (policy == null || policy.getLimit() <= 0) {
+            throw new IllegalArgumentException("Unknown rate limit policy: " + name);
+        }
+
+        long windowMillis = policy.getWindowSeconds() * 1000;
+        Counter allowed = counter(name, "allowed");
+        Counter rejected = counter(name, "rejected");
+
+        return (exchange, chain) -> {
+            String key = name + ":" + resolveKey(exchange, policy);
+
+            SlidingWindowRateLimiter.Decision local = localLimiter.tryAcquire(key, policy.getLimit(), windowMillis);
+            if (!local.allowed()) {
+                rejected.increment();
+                return reject(exchange, local.retryAfterMillis());
+            }
+
+            RedisSlidingWindow shared = redisWindow.getIfAvailable();
+            if (shared == null) {
+                allowed.increment();
+                return chain.filter(exchange);
+            }
+
+            return shared.tryAcquire(key, policy.getLimit(), windowMillis)
+                    .onErrorResume(e -> {
+                        log.warn("Shared rate limit unavailable, using local window: {}", e.getMessage());
+                        return Mono.just(true);
+                    })
+                    .defaultIfEmpty(true)
+                    .flatMap(ok -> {
+                        if (!ok) {
+                            rejected.increment();
+                            return reject(exchange, windowMillis);
+                        }
+                        allowed.increment();
+                        return chain.filter(exchange);
+                    });
+        };
+    }
+
+    private String resolveKey(ServerWebExchange exchange, EdgeRateLimitProperties.Policy policy) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+
+        // X-User-Id is only trusted next to a bearer token, JwtAuthentication has replaced it then
+        String auth = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        String userId = headers.getFirst("X-User-Id");
+        if (policy.getKey() == EdgeRateLimitProperties.KeyType.USER
+                && userId != null && auth != null && auth.startsWith("Bearer ")) {
+            return "user:" + userId;
+        }
+
+        if (properties.isTrustForwardedFor()) {
+            String forwarded = headers.getFirst("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                return "ip:" + forwarded.split(",")[0].trim();
+            }
+        }
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        return "ip:" + (remote != null && remote.getAddress() != null
+                ? remote.getAddress().getHostAddress()
+                : "unknown");
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, long retryAfterMillis) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfterMillis + 999) / 1000)));
+        response.getHeaders().set(HttpHeaders.CONTENT_TYPE, "application/json");
+
+        String body = "{\"error\": \"" + "Too many requests" + "\"}";
+        DataBuffer buffer = response
+                .bufferFactory()
+                .wrap(body.getBytes(StandardCharsets.UTF_8));
+
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    private Counter counter(String policy, String result) {
+        return Counter.builder("gateway.rate.limit.requests")
+                .tag("policy", policy)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.api_gateway;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Rate limit policies applied at the gateway by EdgeRateLimit route filters.
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.edge-rate-limit")
+public class EdgeRateLimitProperties {
+
+    public enum KeyType { IP, USER }
+
+    @Data
+    public static class Policy {
+        private int limit;
+        private long windowSeconds = 60;
+        // USER falls back to the client ip for requests without a bearer token
+        private KeyType key = KeyType.IP;
+    }
+
+    // hard cap on locally tracked keys
+    private int maxKeys = 100_000;
+    // take the client ip from X-Forwarded-For, only behind a trusted proxy
+    private boolean trustForwardedFor = false;
+    private Map<String, Policy> policies = new HashMap<>();
+}
@@ -0,0 +1,109 @@
+package com.example.api_gateway;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Local copy of the iam_service JWKS (ES256 public keys by kid).
+// Verification only reads the in-memory map, the set is refreshed in the background
+// ahead of its expiry and kept as is when a refresh fails.
+@Slf4j
+@Component
+public class JwksKeyLocator {
+
+    private final String jwksUri;
+    private final Duration refreshInterval;
+    private final WebClient webClient;
+
+    private volatile Map<String, Key> keys = Map.of();
+    // unknown kids trigger at most one refresh per interval
+    private final AtomicLong lastOnDemandRefresh = new AtomicLong();
+    private static final long ON_DEMAND_REFRESH_INTERVAL_MS = 30_000;
+
+    public JwksKeyLocator(
+            @Value("${app.jwt.jwks-uri:}") String jwksUri,
+            @Value("${app.jwt.jwks-ttl-seconds:300}") long ttlSeconds,
+            WebClient.Builder webClientBuilder,
+            ObjectProvider<ReactorLoadBalancerExchangeFilterFunction> loadBalancer) {
+        this.jwksUri = jwksUri;
+        // refresh at 80% of the cache lifetime, before the keys go stale
+        this.refreshInterval = Duration.ofMillis(ttlSeconds * 800);
+
+        if (jwksUri.startsWith("lb://")) {
+            loadBalancer.ifAvailable(webClientBuilder::filter);
+        }
+        this.webClient = webClientBuilder.build();
+    }
+
+    // disabled when no JWKS uri is configured, only HMAC tokens are accepted then
+    public boolean isEnabled() {
+        return !jwksUri.isBlank();
+    }
+
+    public Key getKey(String kid) {
+        Key key = keys.get(kid);
+        if (key == null && isEnabled()) {
+            long now = System.currentTimeMillis();
+            long last = lastOnDemandRefresh.get();
+            if (now - last > ON_DEMAND_REFRESH_INTERVAL_MS && lastOnDemandRefresh.compareAndSet(last, now)) {
+                // new key not seen yet, fetch in the background, this request is rejected
+                refresh().subscribe();
+            }
+        }
+        return key;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!isEnabled()) return;
+
+        Flux.interval(Duration.ZERO, refreshInterval)
+                .concatMap(tick -> refresh())
+                .subscribe();
+    }
+
+    Mono<Void> refresh() {
+        return webClient.get()
+                .uri(jwksUri.replaceFirst("^lb://", "http://"))
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofSeconds(5))
+                .doOnNext(this::update)
+                .doOnError(e -> log.warn("JWKS refresh from {} failed, keeping {} cached keys: {}",
+                        jwksUri, keys.size(), e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    void update(String json) {
+        JwkSet jwkSet = Jwks.setParser().build().parse(json);
+
+        Map<String, Key> loaded = new HashMap<>();
+        for (Jwk<?> jwk : jwkSet.getKeys()) {
+            if (jwk.getId() != null) {
+                loaded.put(jwk.getId(), jwk.toKey());
+            }
+        }
+
+        if (!loaded.keySet().equals(keys.keySet())) {
+            log.info("JWKS updated, kids={}", loaded.keySet());
+        }
+        keys = Map.copyOf(loaded);
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.api_gateway;
 
-import io.jsonwebtoken.Claims;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.apache.http.HttpHeaders;
@@ -25,11 +24,21 @@ import java.util.List;
 @RequiredArgsConstructor
 public class JwtAuthentication implements WebFilter {
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache tokenCache;
+    private final RevokedTokens revokedTokens;
+    private final IdentityAssertion identityAssertion;
 
     public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
         String path =  exchange.getRequest().getPath().value();
         String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
+        // never forward an identity assertion sent by the client
+        if (exchange.getRequest().getHeaders().containsKey(IdentityAssertion.HEADER)) {
+            exchange = exchange.mutate()
+                    .request(r -> r.headers(h -> h.remove(IdentityAssertion.HEADER)))
+                    .build();
+        }
+
         System.out.println("request path " + path);
         if(path.startsWith("/iam/api/auth") || authHeader == null || !authHeader.startsWith("Bearer ")) {
             return chain.filter(exchange);
@@ -37,10 +46,16 @@ public class JwtAuthentication implements WebFilter {
 
         try {
             String token = authHeader.substring(7);
-            Claims claim = jwtUtil.validate(token);
+            // repeat tokens are served from cache without verifying the signature again
+            JwtVerifier.TokenClaims claim = tokenCache.get(token, jwtUtil::validate);
+            // revocation is checked on every request, cached or not
+            if (revokedTokens.isRevoked(claim.jti())) {
+                tokenCache.invalidate(token);
+                throw new JwtException("JWT validation failed: token revoked");
+            }
 
-            String userId = claim.getSubject();
-            String role = claim.get("role", String.class);
+            String userId = claim.subject();
+            String role = claim.role();
 
             List<GrantedAuthority> authorities = new ArrayList<>();
             authorities.add(new SimpleGrantedAuthority(role));
@@ -48,12 +63,17 @@ public class JwtAuthentication implements WebFilter {
             UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(userId, null , authorities);
 
-            // modify request headers
+            String assertion = identityAssertion.isEnabled() ? identityAssertion.mint(claim) : null;
+
+            // modify request headers, replacing any value sent by the client
             ServerWebExchange mutatedExchange = exchange.mutate()
                     .request(r -> r.headers(h -> {
-                        h.add("X-User-Id", userId);
-                        h.add("X-User-Role", role);
-                        h.add("X-Auth-Token", token);
+                        h.set("X-User-Id", userId);
+                        h.set("X-User-Role", role);
+                        h.set("X-Auth-Token", token);
+                        if (assertion != null) {
+                            h.set(IdentityAssertion.HEADER, assertion);
+                        }
                     }))
                     .build();
             System.out.println("JWT valid");
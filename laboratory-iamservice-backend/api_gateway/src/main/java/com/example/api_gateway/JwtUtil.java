@@ -1,42 +1,52 @@
 package com.example.api_gateway;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 
 
 @Component
 public class JwtUtil {
     private final SecretKey key;
+    private final JwtVerifier verifier;
     private final long expiration = 15 * 60 * 1000;
 
-    public JwtUtil(@Value("${jwt.secret}") String secret) {
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   JwksKeyLocator jwksKeyLocator,
+                   @Value("${app.jwt.algorithm:HS256}") String algorithm,
+                   @Value("${app.jwt.hmac-transition:false}") boolean hmacTransition) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+
+        // ES256 tokens carry a kid resolved from the cached JWKS, tokens without one use the shared secret,
+        // accepted only while iam_service signs with HMAC or during the transition to ES256
+        boolean acceptHmac = !"ES256".equalsIgnoreCase(algorithm) || hmacTransition;
+        this.verifier = new JwtVerifier(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                if (header.getKeyId() != null) return jwksKeyLocator.getKey(header.getKeyId());
+                if (!acceptHmac) throw new UnsupportedJwtException("Token without kid is not accepted");
+                return key;
+            }
+        });
     }
 
     public String getSubject(String token) {
-        return parseClaim(token).getSubject();
+        return validate(token).subject();
     }
 
 
-    public Claims validate(String token) {
+    public JwtVerifier.TokenClaims validate(String token) {
         try {
-            return parseClaim(token); // return user id from payload
+            return verifier.verify(token); // user id, role and expiry from payload
         } catch (Exception e) {
             throw new JwtException("JWT validation failed: " + e.getMessage());
         }
     }
-
-    private Claims parseClaim(String token) {
-        return Jwts.parser()
-                .verifyWith(key)  // verify signature of the given token
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
 }
@@ -0,0 +1,44 @@
+package com.example.api_gateway;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Sliding window counter shared by all gateway instances, one Lua script per request.
+// Enabled with app.edge-rate-limit.redis.enabled, the local window still sheds floods first.
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.edge-rate-limit.redis.enabled", havingValue = "true")
+public class RedisSlidingWindow {
+    private static final String KEY_PREFIX = "gateway:ratelimit:";
+
+    // KEYS: current window, previous window   ARGV: limit, previous window weight, ttl
+    // returns 1 when the request is counted, 0 when over the limit
+    static final RedisScript<Long> ACQUIRE = RedisScript.of("""
+            local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+            if previous * tonumber(ARGV[2]) + current + 1 > tonumber(ARGV[1]) then return 0 end
+            redis.call('INCR', KEYS[1])
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    public Mono<Boolean> tryAcquire(String key, int limit, long windowMillis) {
+        long now = System.currentTimeMillis();
+        long index = now / windowMillis;
+        double weight = 1.0 - (double) (now % windowMillis) / windowMillis;
+
+        return redisTemplate.execute(ACQUIRE,
+                        List.of(KEY_PREFIX + key + ":" + index, KEY_PREFIX + key + ":" + (index - 1)),
+                        List.of(String.valueOf(limit), String.valueOf(weight), String.valueOf(2 * windowMillis)))
+                .next()
+                .map(result -> result == 1L);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.api_gateway;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+// Local copy of the access tokens revoked by iam_service (TokenRevocationService), by jti.
+// Filled from the iam:token-revocations channel and from the revoked:jti:* keys each time the
+// subscription (re)starts, so cached tokens are rejected as soon as iam_service publishes.
+// Requests only read the in-memory set, a jti is kept as long as an access token can live.
+@Slf4j
+@Component
+public class RevokedTokens {
+    static final String CHANNEL = "iam:token-revocations";
+    static final String KEY_PREFIX = "revoked:jti:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Cache<String, Boolean> revoked;
+    private final Counter rejected;
+
+    public RevokedTokens(
+            ReactiveStringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.token-revocation.retain-seconds:7200}") long retainSeconds,
+            @Value("${app.token-revocation.max-size:100000}") int maxSize) {
+        this.redisTemplate = redisTemplate;
+        this.revoked = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(retainSeconds))
+                .executor(Runnable::run)
+                .build();
+
+        this.rejected = Counter.builder("gateway.token.revoked.rejections")
+                .register(meterRegistry);
+        Gauge.builder("gateway.token.revoked.size", revoked, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || revoked.getIfPresent(jti) == null) return false;
+        rejected.increment();
+        return true;
+    }
+
+    void revoke(String jti) {
+        if (jti != null && !jti.isEmpty()) {
+            revoked.put(jti, Boolean.TRUE);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription()
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Token revocation subscription lost, retrying: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    // revocations published from now on, plus those already in Redis
+    Flux<String> subscription() {
+        Flux<String> published = redisTemplate.listenToChannel(CHANNEL)
+                .map(message -> message.getMessage());
+        Flux<String> stored = redisTemplate.scan(ScanOptions.scanOptions()
+                        .match(KEY_PREFIX + "*")
+                        .count(1000)
+                        .build())
+                .map(key -> key.substring(KEY_PREFIX.length()));
+        return Flux.merge(published, stored)
+                .doOnNext(this::revoke);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.api_gateway;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In memory sliding window counter per key: the count of the previous fixed window,
+// weighted by how much of it still overlaps the sliding window, plus the current count.
+// Windows are immutable and replaced atomically through compute, the number of keys is
+// capped so spoofed clients cannot grow the heap. Only idle windows are ever dropped, a client
+// being limited keeps its window however many new keys arrive; while the map is full of live
+// windows new keys are decided on an empty window without being tracked.
+@Component
+public class SlidingWindowRateLimiter {
+
+    public record Decision(boolean allowed, long retryAfterMillis) {
+    }
+
+    private static final Decision ALLOWED = new Decision(true, 0);
+
+    private record Window(long start, long length, int current, int previous) {
+        double estimate(long now) {
+            double overlap = 1.0 - (double) (now - start) / length;
+            return previous * overlap + current;
+        }
+
+        boolean isIdle(long now) {
+            return now - start >= 2 * length;
+        }
+    }
+
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    // the idle sweep runs at most once per interval, not on every new key while full
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final int maxKeys;
+
+    public SlidingWindowRateLimiter(EdgeRateLimitProperties properties) {
+        this.maxKeys = properties.getMaxKeys();
+    }
+
+    public Decision tryAcquire(String key, int limit, long windowMillis) {
+        return tryAcquire(key, limit, windowMillis, System.currentTimeMillis());
+    }
+
+    Decision tryAcquire(String key, int limit, long windowMillis, long now) {
+        if (windows.size() >= maxKeys && !windows.containsKey(key)) {
+            sweepIdle(now);
+            if (windows.size() >= maxKeys) {
+                return limit >= 1 ? ALLOWED : new Decision(false, windowMillis - now % windowMillis);
+            }
+        }
+
+        boolean[] allowed = new boolean[1];
+        Window window = windows.compute(key, (k, current) -> {
+            Window rolled = roll(current, windowMillis, now);
+            allowed[0] = rolled.estimate(now) + 1 <= limit;
+            return allowed[0]
+                    ? new Window(rolled.start(), windowMillis, rolled.current() + 1, rolled.previous())
+                    : rolled;
+        });
+
+        // the estimate only drops once the current window ends
+        return allowed[0] ? ALLOWED : new Decision(false, window.start() + windowMillis - now);
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    private static Window roll(Window current, long length, long now) {
+        long start = now - now % length;
+        if (current == null || current.length() != length || current.start() < start - length) {
+            return new Window(start, length, 0, 0);
+        }
+        if (current.start() < start) {
+            return new Window(start, length, 0, current.current());
+        }
+        return current;
+    }
+
+    // one thread sweeps at a time, the others go on without waiting
+    private void sweepIdle(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_MILLIS || !lastSweep.compareAndSet(last, now)) return;
+        windows.values().removeIf(w -> w.isIdle(now));
+    }
+}
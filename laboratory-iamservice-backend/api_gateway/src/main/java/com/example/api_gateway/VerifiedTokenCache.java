@@ -0,0 +1,125 @@
+package com.example.api_gateway;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Bounded cache of already verified access tokens, keyed by the SHA-256 of the token.
+// An entry never outlives the token's exp, so repeat requests skip the signature check.
+// Caffeine evicts in O(1) when full, nothing scans the map on the event loop.
+@Component
+public class VerifiedTokenCache {
+
+    private record Entry(JwtVerifier.TokenClaims claims, long expiresAt) {
+    }
+
+    private final Cache<String, Entry> entries;
+    private final long maxTtlMillis;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public VerifiedTokenCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.token-cache.max-ttl-seconds:300}") long maxTtlSeconds,
+            @Value("${app.token-cache.max-size:50000}") int maxSize) {
+        this.maxTtlMillis = maxTtlSeconds * 1000;
+
+        this.hits = Counter.builder("gateway.token.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("gateway.token.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Counter expired = Counter.builder("gateway.token.cache.evictions")
+                .tag("cause", "expired")
+                .register(meterRegistry);
+        Counter evicted = Counter.builder("gateway.token.cache.evictions")
+                .tag("cause", "size")
+                .register(meterRegistry);
+
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return remaining(entry);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return remaining(entry);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .executor(Runnable::run)
+                .<String, Entry>evictionListener((key, entry, cause) -> {
+                    if (cause == RemovalCause.EXPIRED) expired.increment();
+                    else if (cause == RemovalCause.SIZE) evicted.increment();
+                })
+                .build();
+        Gauge.builder("gateway.token.cache.size", entries, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    // cached claims of the token, otherwise verify it and remember the result
+    // verification failures are never cached
+    public JwtVerifier.TokenClaims get(String token, Function<String, JwtVerifier.TokenClaims> verifier) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+
+        Entry entry = entries.getIfPresent(key);
+        if (entry != null && now < entry.expiresAt()) {
+            hits.increment();
+            return entry.claims();
+        }
+
+        misses.increment();
+        JwtVerifier.TokenClaims claims = verifier.apply(token);
+        long expiresAt = Math.min(claims.expiresAt(), now + maxTtlMillis);
+        if (expiresAt > now) {
+            entries.put(key, new Entry(claims, expiresAt));
+        }
+        return claims;
+    }
+
+    public void invalidate(String token) {
+        entries.invalidate(hash(token));
+    }
+
+    public int size() {
+        entries.cleanUp();
+        return (int) entries.estimatedSize();
+    }
+
+    private static long remaining(Entry entry) {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt() - System.currentTimeMillis()));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.api_gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EdgeRateLimitGatewayFilterFactoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ObjectProvider<RedisSlidingWindow> redisProvider;
+    private RedisSlidingWindow redisWindow;
+    private GatewayFilterChain chain;
+    private EdgeRateLimitGatewayFilterFactory factory;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        redisProvider = mock(ObjectProvider.class);
+        redisWindow = mock(RedisSlidingWindow.class);
+        chain = mock(GatewayFilterChain.class);
+        when(chain.filter(any())).thenReturn(Mono.empty());
+
+        EdgeRateLimitProperties properties = new EdgeRateLimitProperties();
+        EdgeRateLimitProperties.Policy login = new EdgeRateLimitProperties.Policy();
+        login.setLimit(2);
+        login.setWindowSeconds(60);
+        properties.getPolicies().put("login", login);
+        EdgeRateLimitProperties.Policy adminWrite = new EdgeRateLimitProperties.Policy();
+        adminWrite.setLimit(1);
+        adminWrite.setKey(EdgeRateLimitProperties.KeyType.USER);
+        properties.getPolicies().put("admin-write", adminWrite);
+
+        factory = new EdgeRateLimitGatewayFilterFactory(properties, new SlidingWindowRateLimiter(properties),
+                redisProvider, meterRegistry);
+    }
+
+    private GatewayFilter filter(String policy) {
+        EdgeRateLimitGatewayFilterFactory.Config config = new EdgeRateLimitGatewayFilterFactory.Config();
+        config.setPolicy(policy);
+        return factory.apply(config);
+    }
+
+    private MockServerWebExchange exchange(String ip, HttpHeaders headers) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/iam/api/auth/login")
+                .headers(headers)
+                .remoteAddress(new InetSocketAddress(ip, 40000))
+                .build());
+    }
+
+    private MockServerWebExchange exchange(String ip) {
+        return exchange(ip, new HttpHeaders());
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("gateway.rate.limit.requests").tag("policy", "login").tag("result", result)
+                .counter().count();
+    }
+
+    @Test
+    @DisplayName("Should pass requests within the limit and answer 429 with Retry-After beyond it")
+    void filter_ShouldRejectOverLimit() {
+        // Arrange
+        GatewayFilter filter = filter("login");
+        MockServerWebExchange rejected = exchange("10.0.0.1");
+
+        // Act
+        filter.filter(exchange("10.0.0.1"), chain).block();
+        filter.filter(exchange("10.0.0.1"), chain).block();
+        filter.filter(rejected, chain).block();
+
+        // Assert
+        verify(chain, times(2)).filter(any());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertNotNull(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(2.0, requests("allowed"));
+        assertEquals(1.0, requests("rejected"));
+    }
+
+    @Test
+    @DisplayName("Should reject when the shared Redis window is over the limit")
+    void filter_ShouldReject_WhenSharedWindowFull() {
+        // Arrange
+        when(redisProvider.getIfAvailable()).thenReturn(redisWindow);
+        when(redisWindow.tryAcquire(anyString(), anyInt(), anyLong())).thenReturn(Mono.just(false));
+        MockServerWebExchange exchange = exchange("10.0.0.1");
+
+        // Act
+        filter("login").filter(exchange, chain).block();
+
+        // Assert
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exchange.getResponse().getStatusCode());
+        verify(chain, never()).filter(any());
+        verify(redisWindow).tryAcquire("login:ip:10.0.0.1", 2, 60_000);
+    }
+
+    @Test
+    @DisplayName("Should fall back to the local decision when Redis fails")
+    void filter_ShouldUseLocalWindow_WhenRedisFails() {
+        // Arrange
+        when(redisProvider.getIfAvailable()).thenReturn(redisWindow);
+        when(redisWindow.tryAcquire(anyString(), anyInt(), anyLong()))
+                .thenReturn(Mono.error(new IllegalStateException("connection refused")));
+
+        // Act
+        filter("login").filter(exchange("10.0.0.1"), chain).block();
+
+        // Assert
+        verify(chain).filter(any());
+        assertEquals(1.0, requests("allowed"));
+    }
+
+    @Test
+    @DisplayName("Should key by user only next to a bearer token")
+    void filter_ShouldIgnoreUserId_WithoutBearer() {
+        // Arrange
+        GatewayFilter filter = filter("admin-write");
+        HttpHeaders spoofed = new HttpHeaders();
+        spoofed.set("X-User-Id", "other-user");
+        HttpHeaders authenticated = new HttpHeaders();
+        authenticated.set("X-User-Id", "user-1");
+        authenticated.set(HttpHeaders.AUTHORIZATION, "Bearer token");
+        MockServerWebExchange second = exchange("10.0.0.1", spoofed);
+
+        // Act
+        filter.filter(exchange("10.0.0.1"), chain).block();
+        filter.filter(second, chain).block();
+        filter.filter(exchange("10.0.0.1", authenticated), chain).block();
+
+        // Assert - the spoofed X-User-Id shares the ip window, the bearer request has its own
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, second.getResponse().getStatusCode());
+        verify(chain, times(2)).filter(any());
+    }
+
+    @Test
+    @DisplayName("Should refuse a route naming an unknown policy")
+    void apply_ShouldThrow_WhenPolicyUnknown() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> filter("unknown"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.api_gateway;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisSlidingWindowTest {
+
+    private ReactiveStringRedisTemplate redisTemplate;
+    private RedisSlidingWindow window;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        window = new RedisSlidingWindow(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should run the script on the current and previous window keys")
+    @SuppressWarnings("unchecked")
+    void tryAcquire_ShouldPassWindowKeys() {
+        // Arrange
+        when(redisTemplate.execute(eq(RedisSlidingWindow.ACQUIRE), anyList(), anyList())).thenReturn(Flux.just(1L));
+
+        // Act
+        Boolean allowed = window.tryAcquire("login:ip:10.0.0.1", 10, 60_000).block();
+
+        // Assert
+        assertEquals(Boolean.TRUE, allowed);
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<String>> args = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate).execute(eq(RedisSlidingWindow.ACQUIRE), keys.capture(), args.capture());
+
+        String current = keys.getValue().get(0);
+        String previous = keys.getValue().get(1);
+        long index = Long.parseLong(current.substring(current.lastIndexOf(':') + 1));
+        assertTrue(current.startsWith("gateway:ratelimit:login:ip:10.0.0.1:"));
+        assertEquals("gateway:ratelimit:login:ip:10.0.0.1:" + (index - 1), previous);
+
+        assertEquals("10", args.getValue().get(0));
+        double weight = Double.parseDouble(args.getValue().get(1));
+        assertTrue(weight > 0 && weight <= 1);
+        assertEquals("120000", args.getValue().get(2));
+    }
+
+    @Test
+    @DisplayName("Should reject when the script did not count the request")
+    void tryAcquire_ShouldReject_WhenOverLimit() {
+        // Arrange
+        when(redisTemplate.execute(eq(RedisSlidingWindow.ACQUIRE), anyList(), anyList())).thenReturn(Flux.just(0L));
+
+        // Act & Assert
+        assertEquals(Boolean.FALSE, window.tryAcquire("login:ip:10.0.0.1", 10, 60_000).block());
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.api_gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RevokedTokensTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        redisTemplate = mock(ReactiveStringRedisTemplate.class);
+    }
+
+    @Test
+    @DisplayName("Should reject jtis published on the channel and already stored in Redis")
+    void subscription_ShouldCollectPublishedAndStoredJtis() {
+        // Arrange
+        doReturn(Flux.just(new ReactiveSubscription.ChannelMessage<>(RevokedTokens.CHANNEL, "jti-1")))
+                .when(redisTemplate).listenToChannel(RevokedTokens.CHANNEL);
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(Flux.just(RevokedTokens.KEY_PREFIX + "jti-2"));
+        RevokedTokens revokedTokens = new RevokedTokens(redisTemplate, meterRegistry, 7200, 100);
+
+        // Act
+        revokedTokens.subscription().blockLast();
+
+        // Assert
+        assertTrue(revokedTokens.isRevoked("jti-1"));
+        assertTrue(revokedTokens.isRevoked("jti-2"));
+        assertFalse(revokedTokens.isRevoked("jti-3"));
+        assertFalse(revokedTokens.isRevoked(null));
+        assertEquals(2, meterRegistry.get("gateway.token.revoked.rejections").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should forget a jti once no access token can still carry it")
+    void isRevoked_ShouldExpireAfterRetention() {
+        // Arrange
+        RevokedTokens revokedTokens = new RevokedTokens(redisTemplate, meterRegistry, 0, 100);
+
+        // Act
+        revokedTokens.revoke("jti-1");
+
+        // Assert
+        assertFalse(revokedTokens.isRevoked("jti-1"));
+    }
+}
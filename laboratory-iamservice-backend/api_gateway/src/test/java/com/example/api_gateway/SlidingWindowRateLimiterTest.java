@@ -0,0 +1,89 @@
+package com.example.api_gateway;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowRateLimiterTest {
+
+    private static final long WINDOW = 60_000;
+    // start of a fixed window
+    private static final long T0 = 1_800_000_000_000L - 1_800_000_000_000L % WINDOW;
+
+    private SlidingWindowRateLimiter limiter(int maxKeys) {
+        EdgeRateLimitProperties properties = new EdgeRateLimitProperties();
+        properties.setMaxKeys(maxKeys);
+        return new SlidingWindowRateLimiter(properties);
+    }
+
+    @Test
+    @DisplayName("Should allow up to the limit and reject the rest until the window ends")
+    void tryAcquire_ShouldRejectOverLimit() {
+        // Arrange
+        SlidingWindowRateLimiter limiter = limiter(100);
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("login:ip:10.0.0.1", 3, WINDOW, T0 + i).allowed());
+        }
+        SlidingWindowRateLimiter.Decision rejected = limiter.tryAcquire("login:ip:10.0.0.1", 3, WINDOW, T0 + 10_000);
+
+        // Assert
+        assertFalse(rejected.allowed());
+        assertEquals(50_000, rejected.retryAfterMillis());
+        assertTrue(limiter.tryAcquire("login:ip:10.0.0.2", 3, WINDOW, T0 + 10_000).allowed());
+    }
+
+    @Test
+    @DisplayName("Should weight the previous window by its overlap with the sliding window")
+    void tryAcquire_ShouldWeightPreviousWindow() {
+        // Arrange
+        SlidingWindowRateLimiter limiter = limiter(100);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire("key", 4, WINDOW, T0 + i);
+        }
+
+        // Act & Assert
+        // a quarter into the next window 3 of the previous 4 still count
+        assertTrue(limiter.tryAcquire("key", 4, WINDOW, T0 + WINDOW + WINDOW / 4).allowed());
+        assertFalse(limiter.tryAcquire("key", 4, WINDOW, T0 + WINDOW + WINDOW / 4).allowed());
+        // half way only 2 count
+        assertTrue(limiter.tryAcquire("key", 4, WINDOW, T0 + WINDOW + WINDOW / 2).allowed());
+    }
+
+    @Test
+    @DisplayName("Should keep a limited client's window however many new keys arrive")
+    void tryAcquire_ShouldNotEvictLiveWindows_WhenFull() {
+        // Arrange
+        SlidingWindowRateLimiter limiter = limiter(10);
+        limiter.tryAcquire("limited", 1, WINDOW, T0);
+
+        // Act - rotate far more keys than the cap
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(limiter.tryAcquire("rotated-" + i, 1, WINDOW, T0 + 1).allowed());
+        }
+
+        // Assert
+        assertEquals(10, limiter.size());
+        assertFalse(limiter.tryAcquire("limited", 1, WINDOW, T0 + 2).allowed());
+    }
+
+    @Test
+    @DisplayName("Should make room by dropping idle windows only")
+    void tryAcquire_ShouldSweepIdleWindows_WhenFull() {
+        // Arrange
+        SlidingWindowRateLimiter limiter = limiter(2);
+        limiter.tryAcquire("idle", 5, WINDOW, T0);
+        limiter.tryAcquire("active", 1, WINDOW, T0 + WINDOW);
+
+        // Act - "idle" has seen nothing for two windows
+        boolean allowed = limiter.tryAcquire("new", 1, WINDOW, T0 + 2 * WINDOW).allowed();
+
+        // Assert
+        assertTrue(allowed);
+        assertEquals(2, limiter.size());
+        // "new" took the place of "idle" and is tracked
+        assertFalse(limiter.tryAcquire("new", 1, WINDOW, T0 + 2 * WINDOW + 1).allowed());
+    }
+}
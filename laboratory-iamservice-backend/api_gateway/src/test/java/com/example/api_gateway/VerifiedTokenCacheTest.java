@@ -0,0 +1,135 @@
+package com.example.api_gateway;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        verifications = new AtomicInteger();
+    }
+
+    private Function<String, JwtVerifier.TokenClaims> verifier(long expiresAt) {
+        return token -> {
+            verifications.incrementAndGet();
+            return new JwtVerifier.TokenClaims("user-" + token, "jti-" + token, "ROLE_ADMIN", 0L,
+                    System.currentTimeMillis(), expiresAt, null);
+        };
+    }
+
+    private double count(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should verify a token once and serve repeats from the cache")
+    void get_ShouldHitAfterFirstVerification() {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, 300, 100);
+        Function<String, JwtVerifier.TokenClaims> verifier = verifier(System.currentTimeMillis() + 60_000);
+
+        // Act
+        JwtVerifier.TokenClaims first = cache.get("a", verifier);
+        JwtVerifier.TokenClaims second = cache.get("a", verifier);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(1, verifications.get());
+        assertEquals(1, count("gateway.token.cache.requests", "result", "hit"));
+        assertEquals(1, count("gateway.token.cache.requests", "result", "miss"));
+    }
+
+    @Test
+    @DisplayName("Should verify again once the token's exp has passed")
+    void get_ShouldExpireWithToken() throws InterruptedException {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, 300, 100);
+        Function<String, JwtVerifier.TokenClaims> verifier = verifier(System.currentTimeMillis() + 50);
+
+        // Act
+        cache.get("a", verifier);
+        Thread.sleep(80);
+        cache.get("a", verifier);
+
+        // Assert
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    @DisplayName("Should not keep an entry longer than max-ttl-seconds")
+    void get_ShouldCapTtl() {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, 0, 100);
+        Function<String, JwtVerifier.TokenClaims> verifier = verifier(System.currentTimeMillis() + 60_000);
+
+        // Act
+        cache.get("a", verifier);
+        cache.get("a", verifier);
+
+        // Assert
+        assertEquals(2, verifications.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should never cache a verification failure")
+    void get_ShouldNotCacheFailures() {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, 300, 100);
+        Function<String, JwtVerifier.TokenClaims> failing = token -> {
+            verifications.incrementAndGet();
+            throw new JwtException("Invalid token");
+        };
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> cache.get("bad", failing));
+        assertThrows(JwtException.class, () -> cache.get("bad", failing));
+        assertEquals(2, verifications.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should stay within max-size and count size evictions")
+    void get_ShouldStayBounded() {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, 300, 3);
+        Function<String, JwtVerifier.TokenClaims> verifier = verifier(System.currentTimeMillis() + 60_000);
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            cache.get("token-" + i, verifier);
+        }
+
+        // Assert
+        assertEquals(3, cache.size());
+        assertEquals(7, count("gateway.token.cache.evictions", "cause", "size"));
+    }
+
+    @Test
+    @DisplayName("Should verify again after invalidate")
+    void invalidate_ShouldDropEntry() {
+        // Arrange
+        VerifiedTokenCache cache = new VerifiedTokenCache(meterRegistry, 300, 100);
+        Function<String, JwtVerifier.TokenClaims> verifier = verifier(System.currentTimeMillis() + 60_000);
+        cache.get("a", verifier);
+
+        // Act
+        cache.invalidate("a");
+        cache.get("a", verifier);
+
+        // Assert
+        assertEquals(2, verifications.get());
+    }
+}
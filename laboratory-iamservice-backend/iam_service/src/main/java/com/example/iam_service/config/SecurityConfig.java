@@ -46,7 +46,8 @@ public class SecurityConfig {
                                 "/swagger-ui/**",
                                 "/swagger-ui.html",
                                 "/actuator/**",
-                                "/internal/**"
+                                "/internal/**",
+                                "/.well-known/**"
                         ).permitAll()
                         .anyRequest().authenticated()
                 )
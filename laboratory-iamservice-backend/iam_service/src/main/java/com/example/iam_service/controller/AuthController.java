@@ -4,13 +4,13 @@ import com.example.iam_service.dto.user.UserDTO;
 import com.example.iam_service.dto.request.*;
 import com.example.iam_service.dto.response.ApiResponse;
 import com.example.iam_service.dto.response.auth.TokenResponse;
-import com.example.iam_service.entity.Token;
 import com.example.iam_service.entity.User;
 import com.example.iam_service.mapper.UserMapper;
+import com.example.iam_service.repository.UserCredentials;
 import com.example.iam_service.service.EmailService;
+import com.example.iam_service.service.authen.LoginRateLimiterService;
+import com.example.iam_service.service.authen.ResetPasswordRateLimiterService;
 import com.example.iam_service.serviceImpl.AuthenticationServiceImpl;
-import com.example.iam_service.serviceImpl.LoginLimiterServiceImpl;
-import com.example.iam_service.serviceImpl.ResetPasswordRateLimiterImpl;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -30,8 +30,8 @@ import java.util.Map;
 public class AuthController {
 
     private final AuthenticationServiceImpl authService;
-    private final LoginLimiterServiceImpl loginLimiterService;
-    private final ResetPasswordRateLimiterImpl resetPasswordRateLimiterService;
+    private final LoginRateLimiterService loginLimiterService;
+    private final ResetPasswordRateLimiterService resetPasswordRateLimiterService;
     private final UserMapper userMapper;
     private final EmailService emailService;
 
@@ -106,7 +106,7 @@ public class AuthController {
 
             // verify google credentials
             GoogleIdToken.Payload payload = authService.getPayload(credential.getGoogleCredential());
-            User user = authService.loadUserByLoginGoogle(payload);
+            UserCredentials user = authService.loadUserByLoginGoogle(payload);
 
             // generate tokens
             Map<String, String> tokens = authService.getTokens(user);
@@ -144,18 +144,14 @@ public class AuthController {
                     .body(new ApiResponse<>("Error", "Invalid refresh token"));
         }
 
-        Token validToken = authService.verifyRefreshToken(refreshToken);
-        if (validToken == null) {
+        // rotate in one step, a replayed token revokes its whole family
+        Map<String, String> tokens = authService.rotateTokens(refreshToken);
+        if (tokens == null) {
             return ResponseEntity
                     .badRequest()
                     .body(new ApiResponse<>("Error", "Not found or expired refresh token"));
         }
 
-        authService.deleteToken(validToken.getTokenId());
-
-        // regenerate tokens
-        Map<String, String> tokens = authService.getTokens(validToken.getUser());
-
         ResponseCookie cookie = setCookieToken(tokens.get("refreshToken"));
 
         return ResponseEntity
@@ -169,13 +165,19 @@ public class AuthController {
 
     @DeleteMapping("/logout")
     public ResponseEntity<ApiResponse<?>> logout(
-            @CookieValue(value = "refreshToken", required = false) String refreshToken
+            @CookieValue(value = "refreshToken", required = false) String refreshToken,
+            @RequestHeader(value = "Authorization", required = false) String authHeader
     ) {
         try {
             if (refreshToken != null && !refreshToken.trim().isEmpty()) {
                 authService.deleteToken(refreshToken);
             }
 
+            // access token stays valid until exp otherwise
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                authService.revokeAccessToken(authHeader.substring(7).trim());
+            }
+
             ResponseCookie clearCookie = ResponseCookie.from("refreshToken", "")
                     .maxAge(0)
                     .secure(true)
@@ -1,14 +1,18 @@
 package com.example.iam_service.controller;
 
 import com.example.iam_service.dto.response.ApiResponse;
+import com.example.iam_service.dto.response.CursorPageResponse;
 import com.example.iam_service.dto.user.AdminUpdateUserDTO;
 import com.example.iam_service.dto.user.DetailUserDTO;
 import com.example.iam_service.dto.user.UpdateUserProfileDTO;
 import com.example.iam_service.dto.user.UserDTO;
+import com.example.iam_service.dto.user.UserStatsDTO;
 import com.example.iam_service.entity.User;
 import com.example.iam_service.service.UserService;
+import com.example.iam_service.service.UserStatsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,6 +24,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +38,7 @@ public class UserController {
 
     private final UserService userService;
     private final UserMapper userMapper;
+    private final UserStatsService userStatsService;
 
     @Operation(
             summary = "Create a new user",
@@ -72,7 +78,8 @@ public class UserController {
 
     @Operation(
             summary = "Get all users",
-            description = "Retrieve all users excluding deleted ones."
+            description = "Retrieve all users excluding deleted ones. Unbounded, use /users/paged instead.",
+            deprecated = true
     )
     @PreAuthorize("hasAuthority('VIEW_USER') or hasAuthority('ROLE_ADMIN') or hasAuthority('ROLE_LAB_MANAGER')")
     @GetMapping
@@ -84,9 +91,34 @@ public class UserController {
         return ResponseEntity.ok(userDTOs);
     }
 
+    @Operation(
+            summary = "Get users page by page",
+            description = "Newest users first, filtered by role, status (active, inactive, deleted) and creation date. " +
+                    "Pass the returned nextCursor as cursor to fetch the following page."
+    )
+    @PreAuthorize("hasAuthority('VIEW_USER') or hasAuthority('ROLE_ADMIN') or hasAuthority('ROLE_LAB_MANAGER')")
+    @GetMapping("/paged")
+    public ResponseEntity<CursorPageResponse<UserDTO>> getUsersPaged(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+        // deleted and inactive accounts stay admin only, as on /inactive and /deleted
+        if (status != null && !status.isBlank() && !status.equalsIgnoreCase("active") && !isAdmin()) {
+            throw new AccessDeniedException("Only admins can list inactive or deleted users");
+        }
+        CursorPageResponse<User> page = userService.getUsersPage(role, status, fromDate, toDate, cursor, size);
+        return ResponseEntity.ok(page.map(userMapper::toDto));
+    }
+
     @Operation(
             summary = "Get all inactive users",
-            description = "Retrieve all inactivate users. Available to admin only."
+            description = "Retrieve all inactivate users. Available to admin only. Unbounded, use /users/paged?status=inactive instead.",
+            deprecated = true
     )
     @PreAuthorize("hasAuthority('ROLE_ADMIN') ")
     @GetMapping("/inactive")
@@ -109,6 +141,17 @@ public class UserController {
         return ResponseEntity.ok("User with email " + email + " has been activated successfully.");
     }
 
+    @Operation(
+            summary = "Get the current user's account information",
+            description = "Profile of the authenticated user. Replaces the profile claims dropped from compact access tokens."
+    )
+    @GetMapping("/me")
+    public ResponseEntity<DetailUserDTO> getCurrentUser() {
+        // principal is the user snapshot resolved by JwtAuthenticationFilter
+        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return ResponseEntity.ok(userMapper.toDetailDto(currentUser));
+    }
+
     @Operation(
             summary = "Get detailed information of an user by userId",
             description = "Retrieve a user by their userId. Available to admins and lab managers or anyone with permission VIEW_USER."
@@ -191,7 +234,8 @@ public class UserController {
 
     @Operation(
             summary = "Get all deleted users",
-            description = "Retrieve all deleted users. Available to admins only."
+            description = "Retrieve all deleted users. Available to admins only. Unbounded, use /users/paged?status=deleted instead.",
+            deprecated = true
     )
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @GetMapping("/deleted")
@@ -254,23 +298,16 @@ public class UserController {
     @PreAuthorize("hasAuthority('VIEW_USER') or hasAuthority('ROLE_ADMIN') or hasAuthority('ROLE_LAB_MANAGER')")
     @GetMapping("/roles")
     public ResponseEntity<ApiResponse<Map<String, Integer>>> getAllRolesByUsers() {
-        List<User> users = userService.getAllUsers();
-        if (users == null || users.isEmpty()) {
+        // served from the UserStats counters, no scan of "User"
+        Map<String, Long> roles = userStatsService.getStats().getRoles();
+        if (roles.isEmpty()) {
             return ResponseEntity
                     .status(404)
                     .body(new ApiResponse<>("Error", "No user found"));
         }
 
         Map<String, Integer> totalOfRoles = new HashMap<>();
-        users.forEach(user -> {
-            String key = user.getRoleCode().startsWith("ROLE_")
-                    ? user.getRoleCode().substring(5)
-                    : user.getRoleCode();
-            int counter = totalOfRoles.get(key) != null
-                    ? totalOfRoles.get(key)
-                    : 0;
-            totalOfRoles.put(key, ++counter);
-        });
+        roles.forEach((role, count) -> totalOfRoles.put(role, count.intValue()));
 
         return ResponseEntity.ok(
                 new ApiResponse<>(
@@ -278,4 +315,23 @@ public class UserController {
                         "Fetched all roles in system",
                         totalOfRoles));
     }
+
+    @Operation(
+            summary = "Get user statistics",
+            description = "Number of users by role and by status (active, inactive, pending deletion, deleted)."
+    )
+    @PreAuthorize("hasAuthority('VIEW_USER') or hasAuthority('ROLE_ADMIN') or hasAuthority('ROLE_LAB_MANAGER')")
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<UserStatsDTO>> getUserStats() {
+        return ResponseEntity.ok(
+                new ApiResponse<>(
+                        "success",
+                        "Fetched user statistics",
+                        userStatsService.getStats()));
+    }
+
+    private boolean isAdmin() {
+        return SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
 }
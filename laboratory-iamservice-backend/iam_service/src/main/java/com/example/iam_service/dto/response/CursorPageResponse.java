@@ -0,0 +1,22 @@
+package com.example.iam_service.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class CursorPageResponse<T> {
+    private List<T> items;
+    // pass back as ?cursor= for the next page, null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+
+    public <R> CursorPageResponse<R> map(Function<T, R> mapper) {
+        return new CursorPageResponse<>(items.stream().map(mapper).toList(), nextCursor, hasMore);
+    }
+}
@@ -4,6 +4,7 @@ import java.time.LocalDate;
 
 import jakarta.validation.constraints.Past;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,11 +12,13 @@ import lombok.Setter;
 @Setter
 public class UpdateUserProfileDTO {
     @Pattern(regexp = "^\\+?[0-9]*$", message = "Phone number must contain only digits")
+    @Size(max = 255, message = "Phone number must be at most 255 characters")
     private String phoneNumber;
     private String fullName;
     @Pattern(regexp = "^(MALE|FEMALE)$", message = "Invalid gender value")
     private String gender;
     @Past(message = "Birthdate must be in the past")
     private LocalDate birthdate;
+    @Size(max = 255, message = "Address must be at most 255 characters")
     private String address;
 }
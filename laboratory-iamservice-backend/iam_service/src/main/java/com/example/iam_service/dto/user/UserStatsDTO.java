@@ -0,0 +1,15 @@
+package com.example.iam_service.dto.user;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class UserStatsDTO {
+    // role code without the ROLE_ prefix -> users not deleted
+    private Map<String, Long> roles;
+    private long active;
+    private long inactive;
+    private long pendingDeletion;
+    private long deleted;
+}
@@ -0,0 +1,58 @@
+package com.example.iam_service.entity;
+
+import com.example.iam_service.util.EncryptDecryptConverter;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Mail waiting for EmailOutboxWorker. Rows are deleted once delivered, the body
+// can carry a temporary password so it is encrypted at rest.
+@Entity
+@Table(name = "\"EmailOutbox\"", indexes = {
+        @Index(name = "idx_email_outbox_due", columnList = "status, nextAttemptAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutbox {
+
+    public enum Status {
+        PENDING,
+        // gave up after app.email.outbox.max-attempts, kept for inspection
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Convert(converter = EncryptDecryptConverter.class)
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private String lastError;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -12,13 +12,17 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Data
 @Entity
-@Table(name = "\"Token\"")
+@Table(name = "\"Token\"", indexes = {
+        @Index(name = "idx_token_tokenid", columnList = "tokenId", unique = true),
+        @Index(name = "idx_token_familyid", columnList = "familyId"),
+        @Index(name = "idx_token_expiredat", columnList = "expiredAt")
+})
 public class Token {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "userid", nullable = false)
     private User user;
 
@@ -28,6 +32,12 @@ public class Token {
     @Column(nullable = false)
     private LocalDateTime expiredAt;
 
+    // rotation family, the id of the token issued at login
+    private String familyId;
+
+    // set once the token has been rotated, presenting it again is a reuse
+    private LocalDateTime usedAt;
+
     @Column(insertable = false, updatable = false)
     private LocalDateTime createdAt;
 }
@@ -1,5 +1,6 @@
 package com.example.iam_service.entity;
 
+import com.example.iam_service.util.BlindIndexListener;
 import com.example.iam_service.util.EncryptDecryptConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
@@ -9,12 +10,18 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "\"User\"") // 👈 because "User" is a reserved word in Postgres
+@Table(name = "\"User\"", indexes = { // 👈 because "User" is a reserved word in Postgres
+        @Index(name = "idx_user_created_id", columnList = "createdAt DESC, userId DESC"), // keyset listing order
+        @Index(name = "idx_user_phone_index", columnList = "phoneNumberIndex"),
+        @Index(name = User.IDENTITY_NUMBER_INDEX, columnList = "identityNumberIndex", unique = true)
+})
+@EntityListeners(BlindIndexListener.class) // fills phoneNumberIndex / identityNumberIndex
 @Data                   // includes @Getter, @Setter, @ToString, @EqualsAndHashCode
 @NoArgsConstructor      // generates empty constructor
 @AllArgsConstructor     // generates full constructor
 @Builder                // lets you use User.builder() to create objects easily
 public class User {
+    public static final String IDENTITY_NUMBER_INDEX = "idx_user_identity_index";
 
     @Id
     @GeneratedValue
@@ -27,20 +34,32 @@ public class User {
     private String email;
 
     // null
+    // encrypted columns: 255 characters of plaintext (up to 765 UTF-8 bytes) take ~1080 as
+    // "v2:<key id>:" + base64(iv | ciphertext | tag)
     @Convert(converter = EncryptDecryptConverter.class)
     @Pattern(regexp = "^\\+?[0-9]*$", message = "Phone number must contain only digits")
-    @Column(nullable = true, length = 255)
+    @Size(max = 255, message = "Phone number must be at most 255 characters")
+    @Column(nullable = true, length = 1200)
     private String phoneNumber;
 
+    // blind index of phoneNumber, the only way to look it up
+    @Column(nullable = true, length = 64)
+    private String phoneNumberIndex;
+
     @NotBlank(message = "Full name is required")
     @Column(nullable = false, length = 255)
     private String fullName;
 
     //null
     @Convert(converter = EncryptDecryptConverter.class)
-    @Column(nullable = true, length = 255)
+    @Size(max = 255, message = "Identity number must be at most 255 characters")
+    @Column(nullable = true, length = 1200)
     private String identityNumber;
 
+    // blind index of identityNumber
+    @Column(nullable = true, length = 64)
+    private String identityNumberIndex;
+
     @Pattern(
             regexp = "^(MALE|FEMALE)$",
             message = "Gender must be either MALE or FEMALE"
@@ -54,7 +73,8 @@ public class User {
 
     //null
     @Convert(converter = EncryptDecryptConverter.class)
-    @Column(nullable = true, length = 255)
+    @Size(max = 255, message = "Address must be at most 255 characters")
+    @Column(nullable = true, length = 1200)
     private String address;
 
     //null
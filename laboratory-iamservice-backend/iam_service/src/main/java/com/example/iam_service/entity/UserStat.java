@@ -0,0 +1,23 @@
+package com.example.iam_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One counter per bucket ("role:ROLE_ADMIN", "status:active", ...), maintained by
+// UserStatsService in the same transaction as the user change.
+@Entity
+@Table(name = "\"UserStats\"")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStat {
+
+    @Id
+    @Column(length = 255)
+    private String bucket;
+
+    @Column(nullable = false)
+    private long count;
+}
@@ -1,8 +1,13 @@
 package com.example.iam_service.exception;
 
 import com.example.iam_service.dto.response.ApiResponse;
+import com.example.iam_service.entity.User;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -30,6 +35,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    // a unique index hit by a concurrent write that passed the service checks
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String, String>> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        Map<String, String> error = new HashMap<>();
+        boolean identityNumber = ex.getCause() instanceof ConstraintViolationException violation
+                && User.IDENTITY_NUMBER_INDEX.equals(violation.getConstraintName());
+        error.put("error", identityNumber ? "Identity number already exists" : "Request conflicts with existing data");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGeneric(Exception ex) {
         Map<String, String> error = new HashMap<>();
@@ -44,6 +59,14 @@ public class GlobalExceptionHandler {
                 .body(new ApiResponse<>("Error", ex.getMessage()));
     }
 
+    @ExceptionHandler(PasswordHashBusyException.class)
+    public ResponseEntity<ApiResponse<String>> handlePasswordHashBusy(PasswordHashBusyException ex) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiResponse<>("error", ex.getMessage()));
+    }
+
     @ExceptionHandler(InsufficientPrivilegesException.class)
     public ResponseEntity<Map<String, Object>> handleInsufficientPrivilege(InsufficientPrivilegesException ex) {
         Map<String, Object> errorResponse = new HashMap<>();
@@ -54,4 +77,16 @@ public class GlobalExceptionHandler {
 
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
     }
+
+    // guards in controllers and @PreAuthorize, otherwise caught by handleGeneric as a 500
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<Map<String, Object>> handleAccessDenied(AccessDeniedException ex) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("timestamp", LocalDateTime.now());
+        errorResponse.put("status", HttpStatus.FORBIDDEN.value());
+        errorResponse.put("error", "Forbidden");
+        errorResponse.put("message", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+    }
 }
@@ -0,0 +1,8 @@
+package com.example.iam_service.exception;
+
+// the login bcrypt pool is saturated, the client should retry shortly
+public class PasswordHashBusyException extends RuntimeException {
+    public PasswordHashBusyException(String message) {
+        super(message);
+    }
+}
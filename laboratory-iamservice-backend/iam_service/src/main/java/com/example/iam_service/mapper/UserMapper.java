@@ -7,6 +7,7 @@ import com.example.iam_service.dto.user.UserDTO;
 import com.example.iam_service.entity.User;
 import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import org.mapstruct.factory.Mappers;
@@ -16,13 +17,20 @@ public interface UserMapper {
     UserMapper INSTANCE = Mappers.getMapper(UserMapper.class);
 
     UserDTO toDto(User user);
+    // blind indexes are derived by BlindIndexListener, never mapped
+    @Mapping(target = "phoneNumberIndex", ignore = true)
+    @Mapping(target = "identityNumberIndex", ignore = true)
     User toEntity(UserDTO dto);
     DetailUserDTO toDetailDto(User user);
 
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "phoneNumberIndex", ignore = true)
+    @Mapping(target = "identityNumberIndex", ignore = true)
     void updateUserFromProfileDto(UpdateUserProfileDTO dto, @MappingTarget User user);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "phoneNumberIndex", ignore = true)
+    @Mapping(target = "identityNumberIndex", ignore = true)
     void updateUserFromAdminDto(AdminUpdateUserDTO dto, @MappingTarget User user);
 }
@@ -0,0 +1,40 @@
+package com.example.iam_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// The encrypted "EmailOutbox".body as stored, past EncryptDecryptConverter, for FieldKeyRotationJob.
+// Plain JDBC like UserCiphertextRepository: the worker's lease and attempts are not touched.
+@Repository
+@RequiredArgsConstructor
+public class EmailOutboxCiphertextRepository {
+
+    public record OutboxCiphertext(long id, String body) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // next rows after the given id with a body not written under the key prefix
+    public List<OutboxCiphertext> findNotUnderKey(long after, String keyPrefix, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT id, body FROM "EmailOutbox"
+                        WHERE id > ? AND body NOT LIKE ?
+                        ORDER BY id
+                        LIMIT ?
+                        """,
+                (rs, rowNum) -> new OutboxCiphertext(rs.getLong("id"), rs.getString("body")),
+                after, keyPrefix + "%", limit);
+    }
+
+    // compare-and-set, false when the row was delivered, given up on or rewritten since it was read
+    public boolean replace(OutboxCiphertext current, String body) {
+        return jdbcTemplate.update("""
+                        UPDATE "EmailOutbox" SET body = ?
+                        WHERE id = ? AND body = ?
+                        """,
+                body, current.id(), current.body()) == 1;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.iam_service.repository;
+
+import com.example.iam_service.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Claims a batch of due mail by pushing nextAttemptAt out to the lease, so another
+    // replica skips the locked rows now and a crashed worker's batch is retried later.
+    // Returns the ids only: decrypting the bodies here would roll the claim back for the
+    // whole batch whenever one of them cannot be decrypted.
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            UPDATE "EmailOutbox" SET nextAttemptAt = :leaseUntil
+            WHERE id IN (
+                SELECT id FROM "EmailOutbox"
+                WHERE status = 'PENDING' AND nextAttemptAt <= :now
+                ORDER BY nextAttemptAt
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id
+            """)
+    List<Long> claimBatch(@Param("now") LocalDateTime now,
+                                 @Param("leaseUntil") LocalDateTime leaseUntil,
+                                 @Param("batchSize") int batchSize);
+
+    long countByStatus(EmailOutbox.Status status);
+
+    // gives up on a row without loading it, the body is dropped
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox m SET m.status = :status, m.body = NULL, m.lastError = :error WHERE m.id = :id")
+    int markFailed(@Param("id") Long id,
+                   @Param("status") EmailOutbox.Status status,
+                   @Param("error") String error);
+}
@@ -0,0 +1,68 @@
+package com.example.iam_service.repository;
+
+import com.example.iam_service.entity.Token;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Default store on the "Token" table.
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.refresh-token.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+    private final RefreshTokenRepository refreshRepo;
+    private final UserRepository userRepository;
+
+    @Override
+    public void save(String tokenId, UUID userId, LocalDateTime expiredAt) {
+        Token token = new Token();
+        // reference only, the FK needs the id and not the user row
+        token.setUser(userRepository.getReferenceById(userId));
+        token.setTokenId(tokenId);
+        token.setExpiredAt(expiredAt);
+        token.setFamilyId(tokenId);
+        refreshRepo.save(token);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<StoredToken> find(String tokenId) {
+        // user is lazy, reading its id does not initialize the proxy
+        return refreshRepo.findByTokenId(tokenId)
+                .filter(token -> token.getUsedAt() == null)
+                .map(token -> new StoredToken(token.getUser().getUserId(), token.getExpiredAt()));
+    }
+
+    @Override
+    @Transactional
+    public Rotation rotate(String oldTokenId, String newTokenId, LocalDateTime newExpiredAt) {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> rotated = refreshRepo.rotate(oldTokenId, newTokenId, newExpiredAt, now);
+        if (!rotated.isEmpty()) {
+            return new Rotation(RotationStatus.ROTATED, UUID.fromString(rotated.get(0)));
+        }
+
+        // nothing consumed: unknown, expired or already rotated
+        Optional<Token> found = refreshRepo.findByTokenId(oldTokenId);
+        if (found.isEmpty()) return Rotation.of(RotationStatus.NOT_FOUND);
+
+        Token token = found.get();
+        if (token.getUsedAt() == null) return Rotation.of(RotationStatus.EXPIRED);
+
+        String familyId = token.getFamilyId() != null ? token.getFamilyId() : token.getTokenId();
+        refreshRepo.revokeFamily(familyId, now);
+        return new Rotation(RotationStatus.REUSED, token.getUser().getUserId());
+    }
+
+    @Override
+    @Transactional
+    public void delete(String tokenId) {
+        refreshRepo.deleteByTokenId(tokenId);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.iam_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Refresh tokens kept in Redis under the SHA-256 of the token id, so a Redis dump
+// does not leak usable tokens. Every key carries a native TTL so expired tokens
+// disappear on their own.
+//   refresh:<hash>            -> userId|expiresAtMillis|familyId
+//   refresh:used:<hash>       -> userId|familyId, a rotated token kept for reuse detection
+//   refresh:family:<familyId> -> hash of the current token of the family
+// Issue, rotate and delete each run as one Lua script, so they are atomic and take
+// a single round trip.
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.refresh-token.store", havingValue = "redis")
+public class RedisRefreshTokenStore implements RefreshTokenStore {
+    private static final String KEY_PREFIX = "refresh:";
+    private static final String USED_PREFIX = "refresh:used:";
+    private static final String FAMILY_PREFIX = "refresh:family:";
+
+    // KEYS: token, family   ARGV: value, ttl, token hash
+    static final RedisScript<Long> ISSUE = RedisScript.of("""
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            redis.call('SET', KEYS[2], ARGV[3], 'PX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS: old token, old used marker, new token
+    // ARGV: now, new expiry, new token hash, family prefix, token prefix
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> ROTATE = RedisScript.of("""
+            local value = redis.call('GET', KEYS[1])
+            if not value then
+              local used = redis.call('GET', KEYS[2])
+              if not used then return {'NOT_FOUND'} end
+              local userId, family = string.match(used, '^([^|]*)|(.*)$')
+              local familyKey = ARGV[4] .. family
+              local current = redis.call('GET', familyKey)
+              if current then redis.call('DEL', ARGV[5] .. current) end
+              redis.call('DEL', familyKey)
+              return {'REUSED', userId}
+            end
+            redis.call('DEL', KEYS[1])
+            local userId, expiresAt, family = string.match(value, '^([^|]*)|([^|]*)|?(.*)$')
+            if family == '' then family = ARGV[3] end
+            local now = tonumber(ARGV[1])
+            local remaining = tonumber(expiresAt) - now
+            if remaining <= 0 then return {'EXPIRED'} end
+            local ttl = tonumber(ARGV[2]) - now
+            redis.call('SET', KEYS[2], userId .. '|' .. family, 'PX', remaining)
+            redis.call('SET', KEYS[3], userId .. '|' .. ARGV[2] .. '|' .. family, 'PX', ttl)
+            redis.call('SET', ARGV[4] .. family, ARGV[3], 'PX', ttl)
+            return {'ROTATED', userId}
+            """, List.class);
+
+    // KEYS: token   ARGV: family prefix
+    static final RedisScript<Long> DELETE = RedisScript.of("""
+            local value = redis.call('GET', KEYS[1])
+            if not value then return 0 end
+            local family = string.match(value, '^[^|]*|[^|]*|(.+)$')
+            if family then redis.call('DEL', ARGV[1] .. family) end
+            return redis.call('DEL', KEYS[1])
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public void save(String tokenId, UUID userId, LocalDateTime expiredAt) {
+        long expiresAt = toMillis(expiredAt);
+        long ttl = expiresAt - System.currentTimeMillis();
+        if (ttl <= 0) return;
+
+        String hash = hash(tokenId);
+        String familyId = UUID.randomUUID().toString();
+        redisTemplate.execute(ISSUE, List.of(KEY_PREFIX + hash, FAMILY_PREFIX + familyId),
+                userId + "|" + expiresAt + "|" + familyId, String.valueOf(ttl), hash);
+    }
+
+    @Override
+    public Optional<StoredToken> find(String tokenId) {
+        String value = redisTemplate.opsForValue().get(key(tokenId));
+        if (value == null) return Optional.empty();
+
+        String[] parts = value.split("\\|");
+        if (parts.length < 2) return Optional.empty();
+        try {
+            UUID userId = UUID.fromString(parts[0]);
+            long expiresAt = Long.parseLong(parts[1]);
+            return Optional.of(new StoredToken(userId, toLocalDateTime(expiresAt)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Rotation rotate(String oldTokenId, String newTokenId, LocalDateTime newExpiredAt) {
+        String oldHash = hash(oldTokenId);
+        String newHash = hash(newTokenId);
+
+        List<?> result = redisTemplate.execute(ROTATE,
+                List.of(KEY_PREFIX + oldHash, USED_PREFIX + oldHash, KEY_PREFIX + newHash),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(toMillis(newExpiredAt)),
+                newHash, FAMILY_PREFIX, KEY_PREFIX);
+        if (result == null || result.isEmpty()) return Rotation.of(RotationStatus.NOT_FOUND);
+
+        RotationStatus status = RotationStatus.valueOf(result.get(0).toString());
+        UUID userId = result.size() > 1 ? UUID.fromString(result.get(1).toString()) : null;
+        return new Rotation(status, userId);
+    }
+
+    @Override
+    public void delete(String tokenId) {
+        redisTemplate.execute(DELETE, List.of(key(tokenId)), FAMILY_PREFIX);
+    }
+
+    static String key(String tokenId) {
+        return KEY_PREFIX + hash(tokenId);
+    }
+
+    private static String hash(String tokenId) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(tokenId.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
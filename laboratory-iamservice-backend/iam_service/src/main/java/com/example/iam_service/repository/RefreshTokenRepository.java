@@ -2,13 +2,57 @@ package com.example.iam_service.repository;
 
 import com.example.iam_service.entity.Token;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<Token, UUID> {
     Optional<Token> findByTokenId(String tokenId);
-    void deleteByTokenId(String tokenId);
+
+    // single DELETE statement instead of the derived select-then-remove
+    @Modifying
+    @Query("DELETE FROM Token t WHERE t.tokenId = :tokenId")
+    void deleteByTokenId(@Param("tokenId") String tokenId);
+
+    // Marks the old token used and inserts its successor in the same family, in one
+    // statement. Returns the owner, or nothing when the old token is unknown, expired
+    // or already used. A concurrent rotation of the same token blocks on the row lock
+    // and then finds it used.
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            WITH used AS (
+                UPDATE "Token" SET usedAt = :now
+                WHERE tokenId = :oldTokenId AND usedAt IS NULL AND expiredAt > :now
+                RETURNING userId, COALESCE(familyId, tokenId) AS familyId
+            )
+            INSERT INTO "Token" (userId, tokenId, expiredAt, familyId)
+            SELECT userId, :newTokenId, :newExpiredAt, familyId FROM used
+            RETURNING CAST(userId AS VARCHAR)
+            """)
+    List<String> rotate(@Param("oldTokenId") String oldTokenId,
+                        @Param("newTokenId") String newTokenId,
+                        @Param("newExpiredAt") LocalDateTime newExpiredAt,
+                        @Param("now") LocalDateTime now);
+
+    // one bounded batch of expired tokens, walks idx_token_expiredat
+    @Modifying
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            DELETE FROM "Token" WHERE id IN (
+                SELECT id FROM "Token" WHERE expiredAt < :cutoff ORDER BY expiredAt LIMIT :batchSize
+            )
+            """)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+
+    @Modifying
+    @Query("UPDATE Token t SET t.usedAt = :now WHERE t.familyId = :familyId AND t.usedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
 }
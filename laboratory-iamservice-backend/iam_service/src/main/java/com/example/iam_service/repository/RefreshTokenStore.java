@@ -0,0 +1,34 @@
+package com.example.iam_service.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+// Storage of issued refresh tokens: token id -> owner + expiry.
+// Tokens issued at login start a family, rotation keeps the family and marks the old
+// token used, presenting a used token again revokes the whole family.
+// The implementation is picked by app.refresh-token.store (jpa | redis).
+// The stores do not share tokens: switching drops every issued refresh token, users sign in again.
+public interface RefreshTokenStore {
+
+    record StoredToken(UUID userId, LocalDateTime expiredAt) {}
+
+    enum RotationStatus { ROTATED, NOT_FOUND, EXPIRED, REUSED }
+
+    // userId is set for ROTATED and REUSED
+    record Rotation(RotationStatus status, UUID userId) {
+        public static Rotation of(RotationStatus status) {
+            return new Rotation(status, null);
+        }
+    }
+
+    // issue a token starting a new family
+    void save(String tokenId, UUID userId, LocalDateTime expiredAt);
+
+    Optional<StoredToken> find(String tokenId);
+
+    // atomically consume oldTokenId and issue newTokenId in the same family
+    Rotation rotate(String oldTokenId, String newTokenId, LocalDateTime newExpiredAt);
+
+    void delete(String tokenId);
+}
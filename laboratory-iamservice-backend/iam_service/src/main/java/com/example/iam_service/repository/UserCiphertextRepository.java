@@ -0,0 +1,52 @@
+package com.example.iam_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+// The encrypted "User" columns as stored, past EncryptDecryptConverter, for FieldKeyRotationJob.
+// Plain JDBC on purpose: no entity is loaded, so neither version nor the blind indexes change.
+@Repository
+@RequiredArgsConstructor
+public class UserCiphertextRepository {
+
+    public record UserCiphertext(UUID userId, String phoneNumber, String identityNumber, String address) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // next rows after the given userId with a column not written under the key prefix
+    public List<UserCiphertext> findNotUnderKey(UUID after, String keyPrefix, int limit) {
+        String pattern = keyPrefix + "%";
+        return jdbcTemplate.query("""
+                        SELECT userId, phoneNumber, identityNumber, address FROM "User"
+                        WHERE userId > ?
+                          AND (phoneNumber NOT LIKE ? OR identityNumber NOT LIKE ? OR address NOT LIKE ?)
+                        ORDER BY userId
+                        LIMIT ?
+                        """,
+                (rs, rowNum) -> new UserCiphertext(
+                        rs.getObject("userId", UUID.class),
+                        rs.getString("phoneNumber"),
+                        rs.getString("identityNumber"),
+                        rs.getString("address")),
+                after, pattern, pattern, pattern, limit);
+    }
+
+    // compare-and-set, false when the row changed since it was read
+    public boolean replace(UserCiphertext current, UserCiphertext replacement) {
+        return jdbcTemplate.update("""
+                        UPDATE "User" SET phoneNumber = ?, identityNumber = ?, address = ?
+                        WHERE userId = ?
+                          AND phoneNumber IS NOT DISTINCT FROM CAST(? AS VARCHAR)
+                          AND identityNumber IS NOT DISTINCT FROM CAST(? AS VARCHAR)
+                          AND address IS NOT DISTINCT FROM CAST(? AS VARCHAR)
+                        """,
+                replacement.phoneNumber(), replacement.identityNumber(), replacement.address(),
+                current.userId(),
+                current.phoneNumber(), current.identityNumber(), current.address()) == 1;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.iam_service.repository;
+
+import com.example.iam_service.entity.User;
+
+import java.util.UUID;
+
+// Columns login, Google login and refresh need. Loading it skips the encrypted
+// profile columns (phone, identity number, address) and their AES decryption.
+// profile is set only when the whole row was loaded anyway, for the full token profile.
+public record UserCredentials(
+        UUID userId,
+        String password,
+        Boolean isActive,
+        Boolean isDeleted,
+        String roleCode,
+        Long version,
+        User profile) {
+
+    // JPQL constructor expression, credential columns only
+    public UserCredentials(UUID userId, String password, Boolean isActive, Boolean isDeleted,
+                           String roleCode, Long version) {
+        this(userId, password, isActive, isDeleted, roleCode, version, null);
+    }
+
+    public static UserCredentials of(User user) {
+        return new UserCredentials(user.getUserId(), user.getPassword(), user.getIsActive(),
+                user.getIsDeleted(), user.getRoleCode(), user.getVersion(), user);
+    }
+}
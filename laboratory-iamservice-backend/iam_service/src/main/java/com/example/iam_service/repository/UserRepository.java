@@ -3,11 +3,13 @@ package com.example.iam_service.repository;
 import com.example.iam_service.entity.User;
 import com.example.iam_service.util.RoleSpecification;
 import com.example.iam_service.util.UserSpecification;
-import io.lettuce.core.dynamic.annotation.Param;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,9 +19,28 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificationExecutor<User> {
     Optional<User> findByEmail(String email);
-    Optional<User> findByPhoneNumber(String phoneNumber);
+    // phoneNumber / identityNumber are encrypted, lookups go through their blind index (see BlindIndex)
+    Optional<User> findByPhoneNumberIndex(String phoneNumberIndex);
+    boolean existsByIdentityNumberIndex(String identityNumberIndex);
+    boolean existsByIdentityNumberIndexAndUserIdNot(String identityNumberIndex, UUID userId);
+
+    // rows written before the blind index columns existed, for BlindIndexBackfill:
+    // [userId, phoneNumber, identityNumber], decrypted by the converter
+    @Query("SELECT u.userId, u.phoneNumber, u.identityNumber FROM User u WHERE u.userId > :after AND ("
+            + "(u.phoneNumber IS NOT NULL AND u.phoneNumberIndex IS NULL) OR "
+            + "(u.identityNumber IS NOT NULL AND u.identityNumberIndex IS NULL)) ORDER BY u.userId")
+    List<Object[]> findMissingBlindIndex(@Param("after") UUID after, Pageable pageable);
+
+    // bulk update, the version (and issued tokens) stay as they are
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.phoneNumberIndex = :phoneNumberIndex, u.identityNumberIndex = :identityNumberIndex "
+            + "WHERE u.userId = :userId")
+    int updateBlindIndexes(@Param("userId") UUID userId,
+                           @Param("phoneNumberIndex") String phoneNumberIndex,
+                           @Param("identityNumberIndex") String identityNumberIndex);
     boolean existsByEmail(String email);
     // 🔹 Find all users who are not active
     List<User> findByIsActiveFalse();
@@ -37,6 +58,23 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     int batchUpdateUser(@Param("newRoleCode") String newRoleCode,
                         @Param("oldRoleCode") String oldRoleCode);
 
+    // credential projection for login / refresh, the profile stays encrypted in the row
+    @Query("SELECT new com.example.iam_service.repository.UserCredentials("
+            + "u.userId, u.password, u.isActive, u.isDeleted, u.roleCode, u.version) "
+            + "FROM User u WHERE u.email = :email")
+    Optional<UserCredentials> findCredentialsByEmail(@Param("email") String email);
+
+    @Query("SELECT new com.example.iam_service.repository.UserCredentials("
+            + "u.userId, u.password, u.isActive, u.isDeleted, u.roleCode, u.version) "
+            + "FROM User u WHERE u.userId = :userId")
+    Optional<UserCredentials> findCredentialsById(@Param("userId") UUID userId);
+
+    // bcrypt cost upgrade on login, a bulk update leaves the version (and issued tokens) alone
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.userId = :userId")
+    int updatePasswordHash(@Param("userId") UUID userId, @Param("password") String password);
+
     List<User> findAllByIsDeletedFalseAndDeletedAtBefore(LocalDateTime now);
     List<User> findAllByIsDeletedTrueOrDeletedAtIsNotNull();
     List<User> findAllByIsDeletedFalse();
@@ -0,0 +1,61 @@
+package com.example.iam_service.repository;
+
+import com.example.iam_service.entity.UserStat;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStat, String> {
+
+    // single statement upsert, the row lock serializes concurrent writers of the same bucket
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO "UserStats" (bucket, count) VALUES (:bucket, :delta)
+            ON CONFLICT (bucket) DO UPDATE SET count = "UserStats".count + EXCLUDED.count
+            """)
+    int increment(@Param("bucket") String bucket, @Param("delta") long delta);
+
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO "UserStats" (bucket, count) VALUES (:bucket, :count)
+            ON CONFLICT (bucket) DO UPDATE SET count = EXCLUDED.count
+            """)
+    int setCount(@Param("bucket") String bucket, @Param("count") long count);
+
+    // exact counts for the reconciliation, one scan each
+    @Query(nativeQuery = true, value = """
+            SELECT roleCode, COUNT(*) FROM "User"
+            WHERE COALESCE(isDeleted, FALSE) = FALSE AND roleCode IS NOT NULL
+            GROUP BY roleCode
+            """)
+    List<Object[]> countUsersByRole();
+
+    @Query(nativeQuery = true, value = """
+            SELECT CASE WHEN isDeleted THEN 'deleted'
+                        WHEN deletedAt IS NOT NULL THEN 'pending_deletion'
+                        WHEN isActive THEN 'active'
+                        ELSE 'inactive' END,
+                   COUNT(*)
+            FROM "User"
+            GROUP BY 1
+            """)
+    List<Object[]> countUsersByStatus();
+
+    @Query(nativeQuery = true, value = """
+            SELECT COUNT(*) FROM "User"
+            WHERE COALESCE(isDeleted, FALSE) = FALSE AND roleCode = :roleCode
+            """)
+    long countUsersInRole(@Param("roleCode") String roleCode);
+
+    // taken by the reconciliation swap, in bucket order like the writers so the two cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserStat s ORDER BY s.bucket")
+    List<UserStat> lockAll();
+}
@@ -0,0 +1,79 @@
+package com.example.iam_service.scheduler;
+
+import com.example.iam_service.repository.UserRepository;
+import com.example.iam_service.util.BlindIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+// Fills the phone / identity blind indexes of users written before the columns existed.
+// New and updated users get them from the entity callbacks, so after one pass this finds nothing.
+// Walks the missing rows in userId order, a chunk at a time, one UPDATE per row setting both indexes.
+@Slf4j
+@Component
+public class BlindIndexBackfill {
+
+    // lowest uuid in Postgres ordering
+    private static final UUID START = new UUID(0L, 0L);
+
+    private final UserRepository userRepository;
+    private final BlindIndex blindIndex;
+    private final int chunkSize;
+    private final Counter backfilled;
+
+    public BlindIndexBackfill(
+            UserRepository userRepository,
+            BlindIndex blindIndex,
+            MeterRegistry meterRegistry,
+            @Value("${app.blind-index.backfill-chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.blindIndex = blindIndex;
+        this.chunkSize = chunkSize;
+        this.backfilled = Counter.builder("iam.user.blind-index.backfilled")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            long total = backfill();
+            if (total > 0) {
+                log.info("Backfilled blind indexes of {} users", total);
+            }
+        } catch (Exception e) {
+            log.error("Blind index backfill failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public long backfill() {
+        long total = 0;
+        UUID after = START;
+        while (true) {
+            List<Object[]> rows = userRepository.findMissingBlindIndex(after, PageRequest.of(0, chunkSize));
+            for (Object[] row : rows) {
+                UUID userId = (UUID) row[0];
+                try {
+                    userRepository.updateBlindIndexes(userId,
+                            blindIndex.phoneNumber((String) row[1]),
+                            blindIndex.identityNumber((String) row[2]));
+                } catch (DataIntegrityViolationException e) {
+                    // identity number already taken by another user, left for an admin to resolve
+                    log.warn("Blind index of user {} not backfilled: duplicate identity number", userId);
+                }
+                after = userId;
+            }
+            total += rows.size();
+            backfilled.increment(rows.size());
+            if (rows.size() < chunkSize) return total;
+        }
+    }
+}
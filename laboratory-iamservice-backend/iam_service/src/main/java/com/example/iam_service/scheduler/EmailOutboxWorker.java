@@ -0,0 +1,212 @@
+package com.example.iam_service.scheduler;
+
+import com.example.iam_service.entity.EmailOutbox;
+import com.example.iam_service.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Delivers the email outbox. Each claimed batch goes out through one JavaMailSender.send
+// call, which opens a single SMTP connection for the whole batch instead of one
+// handshake per mail. Delivered rows are deleted, failed ones are retried with
+// exponential backoff until app.email.outbox.max-attempts, then marked FAILED.
+// A row whose body cannot be decrypted (its key left the ring) is marked FAILED right away.
+@Slf4j
+@Component
+public class EmailOutboxWorker {
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final String fromAddress;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final long backoffSeconds;
+    private final long maxBackoffSeconds;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer batchDuration;
+
+    public EmailOutboxWorker(
+            EmailOutboxRepository outboxRepository,
+            JavaMailSender mailSender,
+            MeterRegistry meterRegistry,
+            @Value("${app.email.from}") String fromAddress,
+            @Value("${app.email.outbox.batch-size:50}") int batchSize,
+            @Value("${app.email.outbox.max-batches:20}") int maxBatches,
+            @Value("${app.email.outbox.lease-seconds:300}") long leaseSeconds,
+            @Value("${app.email.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.email.outbox.backoff-seconds:30}") long backoffSeconds,
+            @Value("${app.email.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.fromAddress = fromAddress;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.backoffSeconds = backoffSeconds;
+        this.maxBackoffSeconds = maxBackoffSeconds;
+
+        Gauge.builder("iam.email.outbox.pending", pending, AtomicLong::get)
+                .register(meterRegistry);
+        this.sent = Counter.builder("iam.email.outbox.sent")
+                .register(meterRegistry);
+        this.retried = Counter.builder("iam.email.outbox.retried")
+                .register(meterRegistry);
+        this.failed = Counter.builder("iam.email.outbox.failed")
+                .register(meterRegistry);
+        this.batchDuration = Timer.builder("iam.email.outbox.batch.duration")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-ms:2000}")
+    public void deliver() {
+        try {
+            for (int batch = 0; batch < maxBatches; batch++) {
+                // a short batch means nothing else is due
+                if (deliverBatch(LocalDateTime.now()) < batchSize) break;
+            }
+        } catch (Exception e) {
+            log.error("Email outbox delivery failed: {}", e.getMessage(), e);
+        }
+
+        try {
+            pending.set(outboxRepository.countByStatus(EmailOutbox.Status.PENDING));
+        } catch (Exception e) {
+            log.warn("Could not count pending outbox mail: {}", e.getMessage());
+        }
+    }
+
+    int deliverBatch(LocalDateTime now) {
+        List<Long> claimed = outboxRepository.claimBatch(now, now.plusSeconds(leaseSeconds), batchSize);
+        if (claimed.isEmpty()) return 0;
+
+        List<EmailOutbox> batch = load(claimed);
+        if (batch.isEmpty()) return claimed.size();
+
+        Timer.Sample sample = Timer.start();
+        SimpleMailMessage[] messages = batch.stream().map(this::toMessage).toArray(SimpleMailMessage[]::new);
+        Map<Object, Exception> failures = send(messages);
+        sample.stop(batchDuration);
+
+        List<EmailOutbox> delivered = new ArrayList<>();
+        List<EmailOutbox> rescheduled = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Exception failure = failures.get(messages[i]);
+            if (failure == null) {
+                delivered.add(batch.get(i));
+            } else {
+                rescheduled.add(reschedule(batch.get(i), failure, now));
+            }
+        }
+
+        if (!delivered.isEmpty()) {
+            outboxRepository.deleteAllInBatch(delivered);
+            sent.increment(delivered.size());
+        }
+        if (!rescheduled.isEmpty()) {
+            outboxRepository.saveAll(rescheduled);
+        }
+        return claimed.size();
+    }
+
+    // one query for the batch; a body that cannot be decrypted fails it, then row by row
+    private List<EmailOutbox> load(List<Long> ids) {
+        try {
+            return outboxRepository.findAllById(ids);
+        } catch (RuntimeException e) {
+            List<EmailOutbox> loaded = new ArrayList<>();
+            for (Long id : ids) {
+                try {
+                    outboxRepository.findById(id).ifPresent(loaded::add);
+                } catch (RuntimeException rowFailure) {
+                    outboxRepository.markFailed(id, EmailOutbox.Status.FAILED, truncate(rowFailure.getMessage()));
+                    failed.increment();
+                    log.warn("Giving up on outbox mail {}, cannot read its body: {}", id, rowFailure.getMessage());
+                }
+            }
+            return loaded;
+        }
+    }
+
+    private Map<Object, Exception> send(SimpleMailMessage[] messages) {
+        try {
+            mailSender.send(messages);
+            return Map.of();
+        } catch (MailSendException e) {
+            // per message failures, the rest of the batch went out
+            if (!e.getFailedMessages().isEmpty()) return e.getFailedMessages();
+            return failAll(messages, e);
+        } catch (MailException e) {
+            // connection or authentication failure, nothing was sent
+            return failAll(messages, e);
+        }
+    }
+
+    private EmailOutbox reschedule(EmailOutbox mail, Exception failure, LocalDateTime now) {
+        int attempts = mail.getAttempts() + 1;
+        mail.setAttempts(attempts);
+        mail.setLastError(truncate(failure.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            // the body may hold a temporary password, do not keep it around
+            mail.setStatus(EmailOutbox.Status.FAILED);
+            mail.setBody(null);
+            failed.increment();
+            log.warn("Giving up on outbox mail {} after {} attempts: {}", mail.getId(), attempts, failure.getMessage());
+        } else {
+            mail.setNextAttemptAt(now.plusSeconds(backoff(attempts)));
+            retried.increment();
+        }
+        return mail;
+    }
+
+    long backoff(int attempts) {
+        long delay = backoffSeconds << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffSeconds);
+    }
+
+    private SimpleMailMessage toMessage(EmailOutbox mail) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromAddress);
+        message.setTo(mail.getRecipient());
+        message.setSubject(mail.getSubject());
+        message.setText(mail.getBody());
+        return message;
+    }
+
+    private static Map<Object, Exception> failAll(SimpleMailMessage[] messages, Exception e) {
+        Map<Object, Exception> failures = new HashMap<>();
+        for (SimpleMailMessage message : messages) {
+            failures.put(message, e);
+        }
+        return failures;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.iam_service.scheduler;
+
+import com.example.iam_service.repository.EmailOutboxCiphertextRepository;
+import com.example.iam_service.repository.EmailOutboxCiphertextRepository.OutboxCiphertext;
+import com.example.iam_service.repository.UserCiphertextRepository;
+import com.example.iam_service.repository.UserCiphertextRepository.UserCiphertext;
+import com.example.iam_service.util.FieldCrypto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+// Re-encrypts phoneNumber, identityNumber and address of "User" rows not yet under the
+// active key (FieldCrypto key ring), walking userId order a chunk at a time with a pause
+// between chunks. Each row is one compare-and-set update in its own statement: row locks
+// for milliseconds, no table lock, logins keep reading. A row saved by the application
+// meanwhile is already under the active key and is left alone.
+// The end of each "User" pass also re-encrypts "EmailOutbox".body, the other converted column;
+// the outbox only holds mail waiting for delivery, so it is walked in one go.
+// Every run continues from the last userId; rotated rows no longer match, so a restart only
+// rescans. A pass that finds nothing left to rotate and no row it failed to read ends the
+// job until the next start; only then may an old key leave the ring.
+@Slf4j
+@Component
+public class FieldKeyRotationJob {
+
+    // lowest uuid in Postgres ordering
+    private static final UUID START = new UUID(0L, 0L);
+
+    private final UserCiphertextRepository ciphertextRepository;
+    private final EmailOutboxCiphertextRepository outboxCiphertextRepository;
+    private final FieldCrypto fieldCrypto;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final int maxChunks;
+
+    private final Counter rotated;
+    private final Counter conflicts;
+    private final Counter failed;
+    private final Timer chunkDuration;
+
+    private UUID cursor = START;
+    private long rotatedInPass;
+    private long failedInPass;
+    private volatile boolean complete;
+
+    public FieldKeyRotationJob(
+            UserCiphertextRepository ciphertextRepository,
+            EmailOutboxCiphertextRepository outboxCiphertextRepository,
+            FieldCrypto fieldCrypto,
+            MeterRegistry meterRegistry,
+            @Value("${app.field-crypto.rotation.chunk-size:200}") int chunkSize,
+            @Value("${app.field-crypto.rotation.pause-ms:200}") long pauseMillis,
+            @Value("${app.field-crypto.rotation.max-chunks:100}") int maxChunks) {
+        this.ciphertextRepository = ciphertextRepository;
+        this.outboxCiphertextRepository = outboxCiphertextRepository;
+        this.fieldCrypto = fieldCrypto;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.maxChunks = maxChunks;
+
+        this.rotated = Counter.builder("iam.crypto.rotation.rows")
+                .tag("result", "rotated")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("iam.crypto.rotation.rows")
+                .tag("result", "conflict")
+                .register(meterRegistry);
+        this.failed = Counter.builder("iam.crypto.rotation.rows")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.chunkDuration = Timer.builder("iam.crypto.rotation.chunk.duration")
+                .register(meterRegistry);
+        Gauge.builder("iam.crypto.rotation.complete", this, job -> job.complete ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.field-crypto.rotation.interval-ms:60000}",
+            initialDelayString = "${app.field-crypto.rotation.interval-ms:60000}")
+    public void rotate() {
+        if (complete) return;
+        try {
+            long count = runChunks();
+            if (count > 0) {
+                log.info("Re-encrypted {} rows under key {}, at userId {}", count, fieldCrypto.activeKeyId(), cursor);
+            }
+        } catch (Exception e) {
+            log.error("Field key rotation failed at userId {}: {}", cursor, e.getMessage(), e);
+        }
+    }
+
+    synchronized long runChunks() {
+        long total = 0;
+        for (int chunk = 0; chunk < maxChunks && !complete; chunk++) {
+            Timer.Sample sample = Timer.start();
+            List<UserCiphertext> rows = ciphertextRepository.findNotUnderKey(cursor, fieldCrypto.activePrefix(), chunkSize);
+            for (UserCiphertext row : rows) {
+                if (reencrypt(row)) {
+                    total++;
+                    rotatedInPass++;
+                }
+                cursor = row.userId();
+            }
+            sample.stop(chunkDuration);
+
+            if (rows.size() < chunkSize) {
+                total += rotateOutbox();
+                endPass();
+            } else if (!pause()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    // a pass that rotated rows is followed by one more to confirm nothing is left,
+    // rows that failed keep the job running (and the complete gauge at 0)
+    private void endPass() {
+        if (rotatedInPass == 0 && failedInPass == 0) {
+            complete = true;
+            log.info("Field key rotation complete, nothing left to re-encrypt under key {}", fieldCrypto.activeKeyId());
+        } else if (rotatedInPass == 0) {
+            log.warn("Field key rotation pass left {} rows it cannot re-encrypt under key {}",
+                    failedInPass, fieldCrypto.activeKeyId());
+        }
+        cursor = START;
+        rotatedInPass = 0;
+        failedInPass = 0;
+    }
+
+    // counts into the pass like the users, so the job completes only once the outbox is clean too
+    private long rotateOutbox() {
+        long total = 0;
+        long after = 0;
+        List<OutboxCiphertext> rows;
+        do {
+            rows = outboxCiphertextRepository.findNotUnderKey(after, fieldCrypto.activePrefix(), chunkSize);
+            for (OutboxCiphertext row : rows) {
+                if (reencrypt(row)) {
+                    total++;
+                    rotatedInPass++;
+                }
+                after = row.id();
+            }
+        } while (rows.size() == chunkSize);
+        return total;
+    }
+
+    private boolean reencrypt(OutboxCiphertext row) {
+        String body;
+        try {
+            body = reencrypt(row.body());
+        } catch (IllegalStateException e) {
+            // EmailOutboxWorker gives up on it and drops the body
+            failed.increment();
+            failedInPass++;
+            log.warn("Cannot re-encrypt outbox mail {}: {}", row.id(), e.getMessage());
+            return false;
+        }
+
+        if (!outboxCiphertextRepository.replace(row, body)) {
+            conflicts.increment();
+            return false;
+        }
+        rotated.increment();
+        return true;
+    }
+
+    private boolean reencrypt(UserCiphertext row) {
+        UserCiphertext replacement;
+        try {
+            replacement = new UserCiphertext(row.userId(),
+                    reencrypt(row.phoneNumber()),
+                    reencrypt(row.identityNumber()),
+                    reencrypt(row.address()));
+        } catch (IllegalStateException e) {
+            // under a key that is not in the ring, stays as it is
+            failed.increment();
+            failedInPass++;
+            log.warn("Cannot re-encrypt user {}: {}", row.userId(), e.getMessage());
+            return false;
+        }
+
+        if (!ciphertextRepository.replace(row, replacement)) {
+            conflicts.increment();
+            return false;
+        }
+        rotated.increment();
+        return true;
+    }
+
+    private String reencrypt(String stored) {
+        if (fieldCrypto.isCurrent(stored)) return stored;
+        return fieldCrypto.encrypt(fieldCrypto.decrypt(stored));
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) return true;
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
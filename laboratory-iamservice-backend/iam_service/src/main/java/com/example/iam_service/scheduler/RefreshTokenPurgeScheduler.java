@@ -0,0 +1,153 @@
+package com.example.iam_service.scheduler;
+
+import com.example.iam_service.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Deletes expired rows of the "Token" table in small batches driven by idx_token_expiredat,
+// pausing between batches so the purge never holds long locks or floods the WAL.
+// With app.refresh-token.purge.partitioned the table is range partitioned by month of
+// expiredAt (postgres-init/optional/token_partitioning.sql): partitions of past months only
+// hold expired tokens and are dropped whole, the coming months are created ahead.
+@Slf4j
+@Component
+public class RefreshTokenPurgeScheduler {
+    private static final Pattern PARTITION = Pattern.compile("Token_p(\\d{4})_(\\d{2})");
+    private static final int PARTITIONS_AHEAD = 2;
+
+    private final RefreshTokenRepository refreshRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final int maxBatches;
+    private final boolean partitioned;
+
+    private final Counter purgedRows;
+    private final Counter droppedPartitions;
+    private final Counter failedPartitions;
+    private final Timer duration;
+
+    public RefreshTokenPurgeScheduler(
+            RefreshTokenRepository refreshRepo,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.refresh-token.purge.batch-size:1000}") int batchSize,
+            @Value("${app.refresh-token.purge.pause-ms:100}") long pauseMillis,
+            @Value("${app.refresh-token.purge.max-batches:500}") int maxBatches,
+            @Value("${app.refresh-token.purge.partitioned:false}") boolean partitioned) {
+        this.refreshRepo = refreshRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.maxBatches = maxBatches;
+        this.partitioned = partitioned;
+
+        this.purgedRows = Counter.builder("iam.refresh.purge.rows")
+                .register(meterRegistry);
+        this.droppedPartitions = Counter.builder("iam.refresh.purge.partitions.dropped")
+                .register(meterRegistry);
+        // failed DROP or CREATE of a partition, retried on the next run
+        this.failedPartitions = Counter.builder("iam.refresh.purge.partitions.failed")
+                .register(meterRegistry);
+        this.duration = Timer.builder("iam.refresh.purge.duration")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.refresh-token.purge.cron:0 */15 * * * *}")
+    public void purgeExpiredTokens() {
+        Timer.Sample sample = Timer.start();
+        try {
+            if (partitioned) {
+                maintainPartitions(YearMonth.now());
+            }
+            long purged = purgeInBatches(LocalDateTime.now());
+            if (purged > 0) {
+                log.info("Purged {} expired refresh tokens", purged);
+            }
+        } catch (Exception e) {
+            log.error("Refresh token purge failed: {}", e.getMessage(), e);
+        } finally {
+            sample.stop(duration);
+        }
+    }
+
+    long purgeInBatches(LocalDateTime cutoff) {
+        long total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int deleted = refreshRepo.deleteExpiredBatch(cutoff, batchSize);
+            total += deleted;
+            purgedRows.increment(deleted);
+
+            // a short batch means nothing expired is left
+            if (deleted < batchSize || !pause()) break;
+        }
+        return total;
+    }
+
+    void maintainPartitions(YearMonth current) {
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = 'Token'
+                """, String.class);
+
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION.matcher(partition);
+            if (!matcher.matches()) continue;
+
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(current)) {
+                if (execute("DROP TABLE IF EXISTS \"" + partition + "\"")) {
+                    droppedPartitions.increment();
+                    log.info("Dropped expired refresh token partition {}", partition);
+                }
+            }
+        }
+
+        for (int i = 0; i <= PARTITIONS_AHEAD; i++) {
+            YearMonth month = current.plusMonths(i);
+            execute("CREATE TABLE IF NOT EXISTS \"" + partitionName(month) + "\" PARTITION OF \"Token\""
+                    + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("Token_p%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private boolean execute(String sql) {
+        try {
+            jdbcTemplate.execute(sql);
+            return true;
+        } catch (DataAccessException e) {
+            failedPartitions.increment();
+            log.warn("Refresh token partition maintenance failed for [{}]: {}", sql, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) return true;
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
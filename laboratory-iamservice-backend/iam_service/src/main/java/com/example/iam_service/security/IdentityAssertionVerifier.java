@@ -0,0 +1,92 @@
+package com.example.iam_service.security;
+
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.UUID;
+
+// Verifies the identity assertion minted by the api gateway after it validated the JWT:
+// base64url(userId|role|privileges|exp|jti) + "." + base64url(HMAC-SHA256(payload))
+@Component
+public class IdentityAssertionVerifier {
+    public static final String HEADER = "X-Identity-Assertion";
+
+    // exp in epoch millis, jti of the forwarded access token (null when it has none)
+    public record Identity(UUID userId, String roleCode, long privileges, long expiresAt, String jti) {
+    }
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+
+    public IdentityAssertionVerifier(@Value("${app.identity-assertion.secret:}") String secret) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0 && bytes.length < 32) {
+            throw new IllegalStateException("app.identity-assertion.secret must be at least 32 bytes");
+        }
+
+        this.key = bytes.length > 0 ? new SecretKeySpec(bytes, "HmacSHA256") : null;
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance("HmacSHA256");
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+        });
+    }
+
+    // disabled when no internal secret is configured, requests then fall back to the JWT
+    public boolean isEnabled() {
+        return key != null;
+    }
+
+    public Identity verify(String assertion) {
+        if (!isEnabled()) {
+            throw new JwtException("Identity assertion is disabled");
+        }
+
+        int dot = assertion.indexOf('.');
+        if (dot <= 0 || dot == assertion.length() - 1) {
+            throw new JwtException("Identity assertion malformed");
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = Base64.getUrlDecoder().decode(assertion.substring(0, dot));
+            signature = Base64.getUrlDecoder().decode(assertion.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new JwtException("Identity assertion malformed");
+        }
+
+        if (!MessageDigest.isEqual(mac.get().doFinal(payload), signature)) {
+            throw new JwtException("Identity assertion signature invalid");
+        }
+
+        // userId|role|privileges|exp[|jti]
+        String[] parts = new String(payload, StandardCharsets.UTF_8).split("\\|", -1);
+        if (parts.length != 4 && parts.length != 5) {
+            throw new JwtException("Identity assertion malformed");
+        }
+
+        try {
+            Identity identity = new Identity(
+                    UUID.fromString(parts[0]), parts[1], Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+                    parts.length == 5 && !parts[4].isEmpty() ? parts[4] : null);
+            if (identity.expiresAt() <= System.currentTimeMillis()) {
+                throw new JwtException("Identity assertion expired");
+            }
+            return identity;
+        } catch (IllegalArgumentException e) {
+            throw new JwtException("Identity assertion malformed");
+        }
+    }
+}
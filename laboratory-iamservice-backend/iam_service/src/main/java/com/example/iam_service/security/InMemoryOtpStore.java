@@ -0,0 +1,189 @@
+package com.example.iam_service.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+// Single replica OTP store. Entries expire on a timer wheel: slot i holds the emails
+// whose OTP expires during tick i (mod slots), so each tick only touches the entries
+// that are due instead of scanning the whole map. The TTL is fixed, so one turn of
+// the wheel covers every live entry.
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory")
+public class InMemoryOtpStore implements OtpStore {
+
+    record Entry(String otp, long expiresAt, int attempts) {
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String>[] wheel;
+    private final long ttlMillis;
+    private final long tickMillis;
+    private final int maxAttempts;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Object wheelLock = new Object();
+    private long lastTick;
+
+    private final Counter expirations;
+    private final Counter evictions;
+
+    @Autowired
+    public InMemoryOtpStore(
+            MeterRegistry meterRegistry,
+            @Value("${app.otp.ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.otp.tick-ms:1000}") long tickMillis,
+            @Value("${app.otp.max-attempts:5}") int maxAttempts,
+            @Value("${app.otp.max-entries:100000}") int maxEntries) {
+        this(meterRegistry, ttlSeconds, tickMillis, maxAttempts, maxEntries, System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    InMemoryOtpStore(MeterRegistry meterRegistry, long ttlSeconds, long tickMillis,
+                     int maxAttempts, int maxEntries, LongSupplier clock) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.tickMillis = tickMillis;
+        this.maxAttempts = maxAttempts;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+
+        // +2: the tick being written and the tick being drained never share a slot
+        int slots = (int) ((ttlMillis + tickMillis - 1) / tickMillis) + 2;
+        this.wheel = new Set[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.lastTick = clock.getAsLong() / tickMillis - 1;
+
+        this.expirations = Counter.builder("iam.otp.store.expirations")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("iam.otp.store.evictions")
+                .register(meterRegistry);
+        Gauge.builder("iam.otp.store.size", entries, Map::size)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void storeOtp(String email, String otp) {
+        long expiresAt = clock.getAsLong() + ttlMillis;
+
+        if (entries.size() >= maxEntries && !entries.containsKey(email)) {
+            makeRoom();
+        }
+
+        entries.put(email, new Entry(otp, expiresAt, 0));
+        slotOf(expiresAt).add(email);
+    }
+
+    @Override
+    public VerifyResult verifyOtp(String email, String otp) {
+        long now = clock.getAsLong();
+        VerifyResult[] result = new VerifyResult[1];
+
+        entries.compute(email, (key, entry) -> {
+            if (entry == null) {
+                result[0] = VerifyResult.NOT_FOUND;
+                return null;
+            }
+            if (entry.expiresAt() <= now) {
+                result[0] = VerifyResult.EXPIRED;
+                return null;
+            }
+            if (matches(entry.otp(), otp)) {
+                result[0] = VerifyResult.VALID;
+                return null;
+            }
+
+            int attempts = entry.attempts() + 1;
+            if (attempts >= maxAttempts) {
+                result[0] = VerifyResult.LOCKED;
+                return null;
+            }
+            result[0] = VerifyResult.INVALID;
+            return new Entry(entry.otp(), entry.expiresAt(), attempts);
+        });
+        return result[0];
+    }
+
+    @Override
+    public void removeOtp(String email) {
+        entries.remove(email);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // drain every slot whose tick has fully passed
+    @Scheduled(fixedDelayString = "${app.otp.tick-ms:1000}")
+    public void tick() {
+        synchronized (wheelLock) {
+            long now = clock.getAsLong();
+            long currentTick = now / tickMillis;
+            // after a long pause one turn of the wheel already covers every slot
+            long from = Math.max(lastTick + 1, currentTick - wheel.length);
+            for (long t = from; t < currentTick; t++) {
+                drain(wheel[(int) (t % wheel.length)], now, false);
+            }
+            lastTick = Math.max(lastTick, currentTick - 1);
+        }
+    }
+
+    // expire what is due, then evict the entries closest to expiry
+    private void makeRoom() {
+        tick();
+        synchronized (wheelLock) {
+            long now = clock.getAsLong();
+            long currentTick = now / tickMillis;
+            for (long t = currentTick; t < currentTick + wheel.length && entries.size() >= maxEntries; t++) {
+                drain(wheel[(int) (t % wheel.length)], now, true);
+            }
+        }
+    }
+
+    private void drain(Set<String> slot, long now, boolean evict) {
+        slot.removeIf(email -> {
+            if (evict && entries.size() < maxEntries) return false;
+
+            boolean[] removed = new boolean[1];
+            Entry remaining = entries.computeIfPresent(email, (key, entry) -> {
+                // re-stored since, the entry now sits in a later slot
+                if (slotOf(entry.expiresAt()) != slot) return entry;
+                if (evict || entry.expiresAt() <= now) {
+                    removed[0] = true;
+                    return null;
+                }
+                return entry;
+            });
+
+            if (removed[0]) {
+                (evict ? evictions : expirations).increment();
+            }
+            return remaining == null || slotOf(remaining.expiresAt()) != slot;
+        });
+    }
+
+    private Set<String> slotOf(long expiresAt) {
+        return wheel[(int) ((expiresAt / tickMillis) % wheel.length)];
+    }
+
+    private static boolean matches(String expected, String actual) {
+        if (actual == null) return false;
+        return MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8),
+                actual.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -28,6 +28,9 @@ import java.util.UUID;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final IdentityAssertionVerifier identityAssertionVerifier;
+    private final TokenRevocationService tokenRevocationService;
 
     // Filter for up-coming requests
     @Override
@@ -50,31 +53,50 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     || path.equals("/swagger-ui.html")
                     || path.startsWith("/actuator/")
                     || path.startsWith("/internal/")
+                    || path.startsWith("/.well-known/")
             ) {
                 filterChain.doFilter(request, response);
                 return;
             }
 
-            // filter ignore auth endpoints
-            if(authHeader == null) {
-                filterChain.doFilter(request,response);
-                return;
+            // gateway routed requests carry a signed identity, one MAC check instead of parsing the JWT again
+            String assertion = request.getHeader(IdentityAssertionVerifier.HEADER);
+            UUID userId;
+            if (assertion != null && identityAssertionVerifier.isEnabled()) {
+                IdentityAssertionVerifier.Identity identity = identityAssertionVerifier.verify(assertion);
+                if (tokenRevocationService.isRevoked(identity.jti())) {
+                    throw new JwtException("Token revoked");
+                }
+                userId = identity.userId();
+            } else {
+                // filter ignore auth endpoints
+                if(authHeader == null) {
+                    filterChain.doFilter(request,response);
+                    return;
+                }
+
+                // extract token from headers
+                String jwt = authHeader.startsWith("Bearer ")
+                        ? authHeader.substring(7).trim()
+                        : authHeader.trim();
+                userId = UUID.fromString(jwtUtil.validate(jwt));
             }
-    
-            // extract token from headers
-            String jwt = authHeader.startsWith("Bearer ")
-                    ? authHeader.substring(7).trim()
-                    : authHeader.trim();
-            String userId = jwtUtil.validate(jwt);
-            User user = userRepository.findById(UUID.fromString(userId))
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
 
-//            List<GrantedAuthority> authorities = jwtUtil.getUserAuthorities(jwt);
+            // serve principal from cache, only hit the database on a miss
+            PrincipalCache.Entry principal = principalCache.get(userId);
+            if (principal == null) {
+                User user = userRepository.findById(userId)
+                        .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+//                List<GrantedAuthority> authorities = jwtUtil.getUserAuthorities(jwt);
+
+                List<GrantedAuthority> authorities = jwtUtil.getUserAuthoritiesV2(user);
+                principal = principalCache.put(user, authorities);
+            }
 
-            List<GrantedAuthority> authorities = jwtUtil.getUserAuthoritiesV2(user);
             // create authentication object
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                    user, null, authorities
+                    principal.user(), null, principal.authorities()
             );
 
             // provide authentication obj for security context holder
@@ -0,0 +1,147 @@
+package com.example.iam_service.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// kid indexed ES256 keys used to sign access tokens.
+// Keys are read from jwt.key-dir: <kid>.key (PKCS#8 PEM) and <kid>.pub (X.509 PEM).
+// The active kid comes from jwt.active-kid or the "active" file in the same directory.
+// Every public key is published in the JWKS, so rotation is:
+// add the new key pair, wait for consumers to refresh their JWKS, then switch the active kid.
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    public record SigningKey(String kid, PrivateKey privateKey) {
+    }
+
+    private record Keys(SigningKey active, Map<String, PublicKey> publicKeys, String jwks) {
+    }
+
+    private final boolean enabled;
+    private final String keyDir;
+    private final String activeKid;
+
+    private volatile Keys keys;
+
+    public JwtKeyRing(
+            @Value("${jwt.algorithm:HS256}") String algorithm,
+            @Value("${jwt.key-dir:}") String keyDir,
+            @Value("${jwt.active-kid:}") String activeKid) {
+        this.enabled = "ES256".equalsIgnoreCase(algorithm);
+        this.keyDir = keyDir;
+        this.activeKid = activeKid;
+
+        if (!enabled) {
+            this.keys = new Keys(null, Map.of(), toJwks(Map.of()));
+        } else if (keyDir.isBlank()) {
+            // single instance / dev only, tokens do not survive a restart
+            KeyPair pair = Jwts.SIG.ES256.keyPair().build();
+            String kid = UUID.randomUUID().toString();
+            log.warn("jwt.key-dir not set, signing with an ephemeral ES256 key (kid={})", kid);
+            this.keys = new Keys(new SigningKey(kid, pair.getPrivate()), Map.of(kid, pair.getPublic()),
+                    toJwks(Map.of(kid, pair.getPublic())));
+        } else {
+            this.keys = load();
+        }
+    }
+
+    // false: tokens are signed with the shared HMAC jwt.secret
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public SigningKey signingKey() {
+        return keys.active();
+    }
+
+    public PublicKey publicKey(String kid) {
+        return keys.publicKeys().get(kid);
+    }
+
+    // {"keys":[...]} with every public key of the ring
+    public String jwks() {
+        return keys.jwks();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.key-reload-interval-ms:60000}")
+    public void reload() {
+        if (!enabled || keyDir.isBlank()) return;
+
+        try {
+            Keys loaded = load();
+            if (!loaded.active().kid().equals(keys.active().kid())) {
+                log.info("JWT signing key rotated to kid={}", loaded.active().kid());
+            }
+            keys = loaded;
+        } catch (IllegalStateException e) {
+            // keep signing with the current keys
+            log.error("JWT key ring reload failed: {}", e.getMessage());
+        }
+    }
+
+    private Keys load() {
+        Path dir = Path.of(keyDir);
+        try (Stream<Path> files = Files.list(dir)) {
+            Map<String, PublicKey> publicKeys = new HashMap<>();
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".pub")).toList()) {
+                String kid = file.getFileName().toString().replaceFirst("\\.pub$", "");
+                publicKeys.put(kid, KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(readPem(file))));
+            }
+
+            String kid = activeKid.isBlank() && Files.exists(dir.resolve("active"))
+                    ? Files.readString(dir.resolve("active")).trim()
+                    : activeKid;
+            if (kid.isBlank() || !publicKeys.containsKey(kid)) {
+                throw new IllegalStateException("Active JWT key '" + kid + "' not found in " + keyDir);
+            }
+
+            PrivateKey privateKey = KeyFactory.getInstance("EC")
+                    .generatePrivate(new PKCS8EncodedKeySpec(readPem(dir.resolve(kid + ".key"))));
+            return new Keys(new SigningKey(kid, privateKey), Map.copyOf(publicKeys), toJwks(publicKeys));
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load JWT keys from " + keyDir + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] readPem(Path file) throws IOException {
+        String pem = Files.readString(file, StandardCharsets.US_ASCII)
+                .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(pem);
+    }
+
+    private static String toJwks(Map<String, PublicKey> publicKeys) {
+        return publicKeys.entrySet().stream()
+                .map(e -> Jwks.json(Jwks.builder()
+                        .key((ECPublicKey) e.getValue())
+                        .id(e.getKey())
+                        .algorithm("ES256")
+                        .publicKeyUse("sig")
+                        .build()))
+                .collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+    }
+}
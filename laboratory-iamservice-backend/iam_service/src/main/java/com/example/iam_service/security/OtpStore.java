@@ -0,0 +1,22 @@
+package com.example.iam_service.security;
+
+// One pending OTP per email. Verification checks and consumes the code in one step,
+// so two replicas (or two concurrent requests) cannot both accept the same code.
+public interface OtpStore {
+
+    enum VerifyResult {
+        VALID,
+        INVALID,
+        NOT_FOUND,
+        EXPIRED,
+        // too many wrong codes, the OTP is dropped and a new one has to be sent
+        LOCKED
+    }
+
+    // replaces any pending OTP of the email and resets its attempt counter
+    void storeOtp(String email, String otp);
+
+    VerifyResult verifyOtp(String email, String otp);
+
+    void removeOtp(String email);
+}
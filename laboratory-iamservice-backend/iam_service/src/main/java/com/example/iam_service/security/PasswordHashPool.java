@@ -0,0 +1,68 @@
+package com.example.iam_service.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Bulk bcrypt hashing on a pool sized to the cores. bcrypt is pure CPU, more threads
+// than cores only adds context switches. When the queue is full the caller hashes
+// itself, which throttles the import instead of failing it.
+@Component
+public class PasswordHashPool {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+
+    public PasswordHashPool(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${app.password-hash.batch.threads:0}") int threads,
+            @Value("${app.password-hash.batch.queue-capacity:10000}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "PasswordHash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.encodeTimer = Timer.builder("iam.password.hash.duration")
+                .tag("op", "encode")
+                .register(meterRegistry);
+    }
+
+    // hashes in parallel, the result keeps the order of the input
+    public List<String> encodeAll(List<String> rawPasswords) {
+        List<CompletableFuture<String>> hashes = rawPasswords.stream()
+                .map(raw -> CompletableFuture.supplyAsync(() -> encode(raw), executor))
+                .toList();
+        return hashes.stream()
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
+    private String encode(String rawPassword) {
+        return encodeTimer.record(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
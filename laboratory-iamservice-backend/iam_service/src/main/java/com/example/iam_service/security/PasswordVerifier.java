@@ -0,0 +1,149 @@
+package com.example.iam_service.security;
+
+import com.example.iam_service.exception.PasswordHashBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Login password checks on their own bcrypt pool, sized to the cores, so a login burst
+// cannot take every Tomcat worker and core away from the other endpoints.
+// Admission control: a full queue is refused right away, and a check that waited longer
+// than max-queue-wait-ms without starting is dropped. Both fail fast with
+// PasswordHashBusyException (503) instead of piling up.
+@Component
+public class PasswordVerifier {
+
+    // rehashed is set when the stored hash uses another bcrypt cost than configured
+    public record Result(boolean matches, String rehashed) {
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final int strength;
+    private final long maxQueueWaitMillis;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer matchTimer;
+    private final Timer queueWait;
+    private final Counter queueFull;
+    private final Counter queueTimeout;
+    private final Counter rehashes;
+
+    public PasswordVerifier(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${app.password-hash.strength:10}") int strength,
+            @Value("${app.password-hash.login.threads:0}") int threads,
+            @Value("${app.password-hash.login.queue-capacity:64}") int queueCapacity,
+            @Value("${app.password-hash.login.max-queue-wait-ms:500}") long maxQueueWaitMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "PasswordVerify-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.matchTimer = Timer.builder("iam.password.hash.duration")
+                .tag("op", "matches")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("iam.password.hash.queue.wait")
+                .register(meterRegistry);
+        this.queueFull = Counter.builder("iam.password.hash.rejected")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.queueTimeout = Counter.builder("iam.password.hash.rejected")
+                .tag("reason", "queue_timeout")
+                .register(meterRegistry);
+        this.rehashes = Counter.builder("iam.password.hash.rehash")
+                .register(meterRegistry);
+        Gauge.builder("iam.password.hash.queue.size", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    public Result verify(String rawPassword, String encodedPassword) {
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        // claimed by the worker when it starts, or by the caller when it gives up waiting
+        AtomicBoolean claimed = new AtomicBoolean();
+        long enqueuedAt = System.nanoTime();
+
+        try {
+            executor.execute(() -> {
+                if (!claimed.compareAndSet(false, true)) return;
+                queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    result.complete(check(rawPassword, encodedPassword));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queueFull.increment();
+            throw new PasswordHashBusyException("Too many concurrent logins, please retry");
+        }
+
+        try {
+            return result.get(maxQueueWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (claimed.compareAndSet(false, true)) {
+                queueTimeout.increment();
+                throw new PasswordHashBusyException("Too many concurrent logins, please retry");
+            }
+            // already hashing, the answer is a few milliseconds away
+            return result.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            claimed.set(true);
+            throw new PasswordHashBusyException("Password check interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Result check(String rawPassword, String encodedPassword) {
+        boolean matches = matchTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+        if (!matches || !needsRehash(encodedPassword)) return new Result(matches, null);
+
+        rehashes.increment();
+        return new Result(true, passwordEncoder.encode(rawPassword));
+    }
+
+    // $2a$10$... -> cost 10
+    boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) != strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.iam_service.security;
+
+import com.example.iam_service.entity.User;
+import com.example.iam_service.util.TransactionUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+// Bounded, TTL based cache of authenticated principals keyed by user id.
+// Lets JwtAuthenticationFilter skip the user + role lookups on repeat requests.
+// Caffeine keeps the bound with O(1) eviction, maintenance runs on the calling thread.
+@Slf4j
+@Component
+public class PrincipalCache {
+
+    // user snapshot with its resolved authorities
+    // user == null marks a tombstone left by an invalidation
+    public record Entry(User user, List<GrantedAuthority> authorities, long version, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        boolean isTombstone() {
+            return user == null;
+        }
+    }
+
+    private final Cache<UUID, Entry> entries;
+    private final long ttlMillis;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public PrincipalCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.principal-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.principal-cache.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttlSeconds * 1000;
+
+        this.hits = Counter.builder("iam.principal.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("iam.principal.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("iam.principal.cache.evictions")
+                .register(meterRegistry);
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .executor(Runnable::run)
+                .<UUID, Entry>evictionListener((id, entry, cause) -> {
+                    if (cause == RemovalCause.SIZE) evictions.increment();
+                })
+                .build();
+        Gauge.builder("iam.principal.cache.size", entries, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    public Entry get(UUID userId) {
+        Entry entry = entries.getIfPresent(userId);
+        if (entry == null || entry.isTombstone() || entry.isExpired(System.currentTimeMillis())) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry;
+    }
+
+    public Entry put(User user, List<GrantedAuthority> authorities) {
+        long now = System.currentTimeMillis();
+        Entry candidate = new Entry(user, List.copyOf(authorities), versionOf(user), now + ttlMillis);
+
+        // never replace a newer snapshot (or the tombstone of one) with an older read
+        entries.asMap().compute(user.getUserId(), (id, current) ->
+                current != null && !current.isExpired(now) && current.version() > candidate.version()
+                        ? current
+                        : candidate);
+        return candidate;
+    }
+
+    // Drop the cached snapshot of a user once the write touching it commits.
+    // The new version is kept as a tombstone so a reader that loaded the old row
+    // before the commit cannot put it back.
+    public void invalidate(User user) {
+        if (user == null || user.getUserId() == null) return;
+
+        TransactionUtil.runAfterCommit(() -> {
+            long now = System.currentTimeMillis();
+            Entry tombstone = new Entry(null, List.of(), versionOf(user), now + ttlMillis);
+            Entry previous = entries.asMap().put(user.getUserId(), tombstone);
+            if (previous != null && !previous.isTombstone()) {
+                evictions.increment();
+            }
+        });
+    }
+
+    // Drop every snapshot holding the given role, its authorities are stale.
+    public void invalidateRole(String roleCode) {
+        TransactionUtil.runAfterCommit(() -> entries.asMap().entrySet().removeIf(e -> {
+            boolean matches = !e.getValue().isTombstone()
+                    && Objects.equals(e.getValue().user().getRoleCode(), roleCode);
+            if (matches) evictions.increment();
+            return matches;
+        }));
+    }
+
+    public void invalidateAll() {
+        TransactionUtil.runAfterCommit(entries::invalidateAll);
+    }
+
+    public int size() {
+        entries.cleanUp();
+        return (int) entries.estimatedSize();
+    }
+
+    // expired entries otherwise only go when the cache is touched
+    @Scheduled(fixedDelayString = "${app.principal-cache.sweep-interval-ms:30000}")
+    public void evictExpired() {
+        entries.cleanUp();
+    }
+
+    private long versionOf(User user) {
+        return user.getVersion() != null ? user.getVersion() : 0L;
+    }
+}
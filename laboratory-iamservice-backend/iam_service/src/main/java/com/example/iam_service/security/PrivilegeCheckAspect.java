@@ -1,42 +1,41 @@
 package com.example.iam_service.security;
 
-import com.example.iam_service.entity.Enum.Privileges;
-import com.example.iam_service.entity.Role;
 import com.example.iam_service.entity.User;
 import com.example.iam_service.exception.InsufficientPrivilegesException;
-import com.example.iam_service.repository.RoleRepository;
-import com.example.iam_service.repository.UserRepository;
-import com.example.iam_service.service.RoleService;
-import com.example.iam_service.service.UserService;
+import com.example.iam_service.util.PrivilegeMask;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import java.util.Arrays;
-import java.util.EnumSet;
-import java.util.Optional;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Aspect
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class PrivilegeCheckAspect {
 
-    @Autowired
-    private UserRepository userRepository;
+    // @PrivilegesRequired of a method compiled to a bitmask, resolved once per method
+    record RequiredPrivileges(long mask, boolean requireAll, String message) {
+    }
+
+    private final RoleAuthorityRegistry roleAuthorityRegistry;
 
-    @Autowired
-    private RoleRepository roleRepository;
+    private final ConcurrentMap<Method, RequiredPrivileges> requirements = new ConcurrentHashMap<>();
 
     @Before("@annotation(com.example.iam_service.security.PrivilegesRequired)")
     public void checkPrivileges(JoinPoint joinPoint) {
-        log.info("Privilege check verification started");
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        PrivilegesRequired annotation = signature.getMethod().getAnnotation(PrivilegesRequired.class);
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        RequiredPrivileges required = requirements.computeIfAbsent(method, PrivilegeCheckAspect::compile);
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -44,65 +43,64 @@ public class PrivilegeCheckAspect {
             throw new InsufficientPrivilegesException("User not authenticated");
         }
 
-        // Extracting email from principal because JWT returns a whole user object
-        Object principal = authentication.getPrincipal();
-        String email;
-        if (principal instanceof org.springframework.security.core.userdetails.UserDetails) {
-            email = ((org.springframework.security.core.userdetails.UserDetails) principal).getUsername();
-        } else if (principal instanceof User) {
-            email = ((User) principal).getEmail();
-        } else {
-            email = authentication.getName();
+        // principal is already resolved by JwtAuthenticationFilter, no need to reload user or role
+        String roleCode = roleCodeOf(authentication);
+        if (roleCode == null) {
+            log.warn("Access denied. No role found for '{}'", subjectOf(authentication));
+            throw new InsufficientPrivilegesException("User role not found");
         }
 
-        log.info("Current user email: {}", email);
-
-        Optional<User> current = userRepository.findByEmail(email);
-        if (!current.isPresent()) {
-            log.warn("User not found.");
-            throw new InsufficientPrivilegesException("User not found");
+        long granted = roleAuthorityRegistry.getPrivilegeMask(roleCode);
+        if (!checkPrivileges(granted, required.mask(), required.requireAll())) {
+            log.warn("Access denied for '{}' on {}. Required privileges: {}, User privileges: {}",
+                    subjectOf(authentication), method.getName(),
+                    PrivilegeMask.toSet(required.mask()), PrivilegeMask.toSet(granted));
+            throw new InsufficientPrivilegesException(required.message());
         }
+    }
 
-        User currentUser = current.get();
-        Optional<Role> roleOpt = roleRepository.findById(currentUser.getRoleCode());
-        if (!roleOpt.isPresent()) {
-            log.warn("Role not found for code {}", currentUser.getRoleCode());
-            throw new InsufficientPrivilegesException("User role not found");
+    public static boolean checkPrivileges(long userPrivileges, long requiredPrivileges, boolean requireAll) {
+        if (userPrivileges == 0L) {
+            return false;
         }
 
-        Role userRole = roleOpt.get();
-
-        // Current user's privileges set
-        EnumSet<Privileges> currentUserPrivileges = userRole.getPrivileges();
-
-        // Method's required privilege
-        Privileges[] requiredPrivileges = annotation.values();
-        boolean requireAll = annotation.requireAll();
+        if (requiredPrivileges == 0L) {
+            return true; // No specific privileges required
+        }
 
-        boolean hasAccess = checkPrivileges(currentUserPrivileges, requiredPrivileges, requireAll);
+        // ALL: user must have every required privilege, ANY: at least one of them
+        return requireAll
+                ? PrivilegeMask.containsAll(userPrivileges, requiredPrivileges)
+                : PrivilegeMask.containsAny(userPrivileges, requiredPrivileges);
+    }
 
-        if (!hasAccess) {
-            log.warn("Access denied for user '{}'. Required privileges: {}, User privileges: {}",
-                    email, Arrays.toString(requiredPrivileges), currentUserPrivileges);
-            throw new InsufficientPrivilegesException(annotation.message());
-        }
+    private static RequiredPrivileges compile(Method method) {
+        PrivilegesRequired annotation = method.getAnnotation(PrivilegesRequired.class);
+        return new RequiredPrivileges(
+                PrivilegeMask.of(annotation.values()),
+                annotation.requireAll(),
+                annotation.message());
     }
 
-    public boolean checkPrivileges(EnumSet<Privileges> userPrivileges, Privileges[] requiredPrivileges, boolean requireAll) {
-        if (userPrivileges == null || userPrivileges.isEmpty()) {
-            return false;
+    // never the principal itself, User.toString() carries the password hash and personal data
+    static String subjectOf(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof User user) {
+            return String.valueOf(user.getUserId());
         }
+        return authentication.getName();
+    }
 
-        if (requiredPrivileges == null || requiredPrivileges.length == 0) {
-            return true; // No specific privileges required
+    private static String roleCodeOf(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof User user) {
+            return user.getRoleCode();
         }
 
-        if (requireAll) {
-            // User must have ALL required privileges
-            return Arrays.stream(requiredPrivileges).allMatch(userPrivileges::contains);
-        } else {
-            // User must have at least ONE required privilege
-            return Arrays.stream(requiredPrivileges).anyMatch(userPrivileges::contains);
+        // other principals carry the role code as a ROLE_ authority
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (authority.getAuthority() != null && authority.getAuthority().startsWith("ROLE_")) {
+                return authority.getAuthority();
+            }
         }
+        return null;
     }
 }
\ No newline at end of file
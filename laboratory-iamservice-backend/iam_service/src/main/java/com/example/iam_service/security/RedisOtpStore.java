@@ -0,0 +1,110 @@
+package com.example.iam_service.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.List;
+
+// OTPs shared by every replica. One hash per email with a native TTL:
+//   otp:<email> -> { code: hmac-sha256(hmac-key, email|otp), attempts: n }
+// An OTP is only 24 bits, a plain digest would be brute forced from a Redis dump at once;
+// without the server side app.otp.hmac-key the stored MAC tells nothing about the code.
+// Verification compares, counts the attempt and consumes in one Lua script.
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "redis", matchIfMissing = true)
+public class RedisOtpStore implements OtpStore {
+    private static final String KEY_PREFIX = "otp:";
+
+    // KEYS: otp   ARGV: code mac, ttl
+    static final RedisScript<Long> ISSUE = RedisScript.of("""
+            redis.call('DEL', KEYS[1])
+            redis.call('HSET', KEYS[1], 'code', ARGV[1], 'attempts', 0)
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    // KEYS: otp   ARGV: code mac, max attempts
+    // 0 not found, 1 valid, 2 invalid, 3 locked
+    static final RedisScript<Long> VERIFY = RedisScript.of("""
+            local code = redis.call('HGET', KEYS[1], 'code')
+            if not code then return 0 end
+            if code == ARGV[1] then
+              redis.call('DEL', KEYS[1])
+              return 1
+            end
+            local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1)
+            if attempts >= tonumber(ARGV[2]) then
+              redis.call('DEL', KEYS[1])
+              return 3
+            end
+            return 2
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final SecretKeySpec hmacKey;
+    private final long ttlMillis;
+    private final int maxAttempts;
+
+    public RedisOtpStore(
+            StringRedisTemplate redisTemplate,
+            @Value("${app.otp.hmac-key}") String hmacKey,
+            @Value("${app.otp.ttl-seconds:300}") long ttlSeconds,
+            @Value("${app.otp.max-attempts:5}") int maxAttempts) {
+        if (hmacKey == null || hmacKey.isBlank()) {
+            throw new IllegalStateException("app.otp.hmac-key must be set for the redis OTP store");
+        }
+        this.redisTemplate = redisTemplate;
+        this.hmacKey = new SecretKeySpec(hmacKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void storeOtp(String email, String otp) {
+        redisTemplate.execute(ISSUE, List.of(key(email)), mac(email, otp), String.valueOf(ttlMillis));
+    }
+
+    @Override
+    public VerifyResult verifyOtp(String email, String otp) {
+        if (otp == null) return VerifyResult.INVALID;
+
+        Long result = redisTemplate.execute(VERIFY, List.of(key(email)), mac(email, otp), String.valueOf(maxAttempts));
+        if (result == null) return VerifyResult.NOT_FOUND;
+
+        // an expired OTP is already gone, Redis reports it as not found
+        return switch (result.intValue()) {
+            case 1 -> VerifyResult.VALID;
+            case 2 -> VerifyResult.INVALID;
+            case 3 -> VerifyResult.LOCKED;
+            default -> VerifyResult.NOT_FOUND;
+        };
+    }
+
+    @Override
+    public void removeOtp(String email) {
+        redisTemplate.delete(key(email));
+    }
+
+    static String key(String email) {
+        return KEY_PREFIX + email;
+    }
+
+    // bound to the email, a MAC copied to another key does not verify there
+    private String mac(String email, String otp) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(hmacKey);
+            return HexFormat.of().formatHex(mac.doFinal((email + "|" + otp).getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
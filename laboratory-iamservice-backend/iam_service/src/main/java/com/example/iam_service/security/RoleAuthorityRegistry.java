@@ -0,0 +1,149 @@
+package com.example.iam_service.security;
+
+import com.example.iam_service.entity.Enum.Privileges;
+import com.example.iam_service.entity.Role;
+import com.example.iam_service.repository.RoleRepository;
+import com.example.iam_service.util.PrivilegeMask;
+import com.example.iam_service.util.TransactionUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// In-memory role code -> authorities table.
+// Entries are built once per role change so resolving a user's authorities is a plain map lookup.
+@Slf4j
+@Component
+public class RoleAuthorityRegistry {
+
+    // pre-built, immutable authorities of a role
+    // ex: [ROLE_ADMIN, CREATE_USER, READ_ONLY, ...] plus the same privileges as a bitmask
+    public record RoleAuthorities(String roleCode, List<GrantedAuthority> authorities, long privilegeMask) {
+    }
+
+    private final RoleRepository roleRepository;
+
+    // swapped as a whole, never mutated in place
+    private volatile Map<String, RoleAuthorities> table = Map.of();
+
+    // role codes the repository did not know, so a stale code does not query on every request
+    private final Cache<String, RoleAuthorities> missing;
+
+    public RoleAuthorityRegistry(
+            RoleRepository roleRepository,
+            @Value("${app.role-registry.missing-ttl-ms:30000}") long missingTtlMillis) {
+        this.roleRepository = roleRepository;
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofMillis(missingTtlMillis))
+                .executor(Runnable::run)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    // picks up role changes committed by other replicas
+    @Scheduled(
+            initialDelayString = "${app.role-registry.reload-interval-ms:300000}",
+            fixedDelayString = "${app.role-registry.reload-interval-ms:300000}")
+    // read and swap under the lock, a register() meanwhile is applied after, never overwritten
+    public synchronized void reload() {
+        Map<String, RoleAuthorities> next = new HashMap<>();
+        roleRepository.findAll().forEach(role -> next.put(role.getCode(), compile(role)));
+        table = Map.copyOf(next);
+        missing.invalidateAll();
+        log.info("Role authority registry loaded with {} roles", next.size());
+    }
+
+    public RoleAuthorities get(String roleCode) {
+        if (roleCode == null) {
+            return new RoleAuthorities(null, List.of(), 0L);
+        }
+
+        RoleAuthorities found = table.get(roleCode);
+        if (found == null) found = missing.getIfPresent(roleCode);
+        if (found != null) {
+            return found;
+        }
+
+        // role created before the registry caught up, load it once
+        Role role = roleRepository.findPrivilegesByCode(roleCode);
+        if (role == null) {
+            log.warn("Role {} not found, granting role authority only", roleCode);
+            RoleAuthorities roleOnly = new RoleAuthorities(roleCode, List.of(new SimpleGrantedAuthority(roleCode)), 0L);
+            missing.put(roleCode, roleOnly);
+            return roleOnly;
+        }
+
+        RoleAuthorities compiled = compile(role);
+        swap(next -> next.putIfAbsent(roleCode, compiled));
+        return compiled;
+    }
+
+    public List<GrantedAuthority> getAuthorities(String roleCode) {
+        return get(roleCode).authorities();
+    }
+
+    public long getPrivilegeMask(String roleCode) {
+        return get(roleCode).privilegeMask();
+    }
+
+    // publish the role's new authorities once the surrounding transaction commits
+    public void register(Role role) {
+        if (role == null || role.getCode() == null) return;
+
+        RoleAuthorities compiled = compile(role);
+        TransactionUtil.runAfterCommit(() -> {
+            swap(next -> next.put(compiled.roleCode(), compiled));
+            missing.invalidate(compiled.roleCode());
+        });
+    }
+
+    public void unregister(String roleCode) {
+        if (roleCode == null) return;
+
+        TransactionUtil.runAfterCommit(() -> swap(next -> next.remove(roleCode)));
+    }
+
+    private synchronized void swap(Consumer<Map<String, RoleAuthorities>> change) {
+        Map<String, RoleAuthorities> next = new HashMap<>(table);
+        change.accept(next);
+        table = Map.copyOf(next);
+    }
+
+    private RoleAuthorities compile(Role role) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+
+        // Add role code
+        // ex: ROLE_ADMIN
+        authorities.add(new SimpleGrantedAuthority(role.getCode()));
+
+        // Add authorities, sorted the same way they are stored
+        // ex: READ_ONLY
+        if (role.getPrivileges() != null) {
+            role.getPrivileges().stream()
+                    .map(Privileges::name)
+                    .sorted(Comparator.naturalOrder())
+                    .forEach(p -> authorities.add(new SimpleGrantedAuthority(p)));
+        }
+
+        return new RoleAuthorities(role.getCode(), List.copyOf(authorities), PrivilegeMask.of(role.getPrivileges()));
+    }
+}
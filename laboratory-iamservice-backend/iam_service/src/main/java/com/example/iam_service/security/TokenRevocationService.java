@@ -0,0 +1,142 @@
+package com.example.iam_service.security;
+
+import com.example.iam_service.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Revoked access tokens (by jti) kept in Redis until the token would have expired anyway.
+// A local Bloom filter in front answers "not revoked" for almost every request without Redis,
+// only filter positives are confirmed against Redis.
+// Instances keep their filters in sync through pub/sub, the filter is rebuilt from Redis
+// periodically so expired jtis drop out of it.
+@Slf4j
+@Component
+public class TokenRevocationService implements MessageListener {
+    public static final String CHANNEL = "iam:token-revocations";
+    private static final String KEY_PREFIX = "revoked:jti:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // jtis added while a rebuild scans Redis, replayed into the new filter
+    private final Queue<String> addedDuringRebuild = new ConcurrentLinkedQueue<>();
+    private volatile boolean rebuilding;
+
+    private final Counter bloomNegatives;
+    private final Counter revokedHits;
+    private final Counter falsePositives;
+
+    public TokenRevocationService(
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.token-revocation.expected-entries:100000}") int expectedEntries,
+            @Value("${app.token-revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+
+        this.bloomNegatives = Counter.builder("iam.token.revocation.checks")
+                .tag("result", "bloom_negative")
+                .register(meterRegistry);
+        this.revokedHits = Counter.builder("iam.token.revocation.checks")
+                .tag("result", "revoked")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("iam.token.revocation.checks")
+                .tag("result", "false_positive")
+                .register(meterRegistry);
+    }
+
+    // expiresAt: epoch millis of the token exp, the entry is dropped by Redis after that
+    public void revoke(String jti, long expiresAt) {
+        long ttl = expiresAt - System.currentTimeMillis();
+        if (jti == null || ttl <= 0) return;
+
+        redisTemplate.opsForValue().set(KEY_PREFIX + jti, "1", Duration.ofMillis(ttl));
+        addToFilter(jti);
+        redisTemplate.convertAndSend(CHANNEL, jti);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) return false;
+
+        if (!filter.mightContain(jti)) {
+            bloomNegatives.increment();
+            return false;
+        }
+
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + jti))) {
+                revokedHits.increment();
+                return true;
+            }
+            falsePositives.increment();
+            return false;
+        } catch (Exception e) {
+            // cannot confirm, reject the token rather than accept a possibly revoked one
+            log.warn("Token revocation lookup failed for a filter positive: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    // pub/sub: jti revoked by another instance
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        addToFilter(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.token-revocation.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.token-revocation.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        BloomFilter rebuilt = new BloomFilter(expectedEntries, falsePositiveRate);
+        long count = 0;
+        rebuilding = true;
+        try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions()
+                .match(KEY_PREFIX + "*")
+                .count(1000)
+                .build())) {
+            while (keys.hasNext()) {
+                rebuilt.add(keys.next().substring(KEY_PREFIX.length()));
+                count++;
+            }
+            filter = rebuilt;
+        } catch (Exception e) {
+            log.warn("Token revocation filter rebuild failed, keeping current filter: {}", e.getMessage());
+        } finally {
+            rebuilding = false;
+        }
+
+        String jti;
+        while ((jti = addedDuringRebuild.poll()) != null) {
+            filter.add(jti);
+        }
+        log.debug("Token revocation filter rebuilt with {} entries", count);
+    }
+
+    // the Redis key is always written before this runs, so a jti missed here is found by the next scan
+    private void addToFilter(String jti) {
+        if (rebuilding) {
+            addedDuringRebuild.add(jti);
+        }
+        filter.add(jti);
+    }
+}
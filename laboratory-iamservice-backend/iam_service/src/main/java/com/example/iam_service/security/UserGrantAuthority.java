@@ -1,43 +1,29 @@
 package com.example.iam_service.security;
 
 import com.example.iam_service.entity.User;
-import com.example.iam_service.repository.RoleRepository;
-import com.example.iam_service.util.PrivilegesConverter;
 import lombok.AllArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 @Component
 @AllArgsConstructor
 public class UserGrantAuthority {
 
-    private final PrivilegesConverter privilegesConverter;
-    private final RoleRepository roleRepo;
+    private final RoleAuthorityRegistry roleAuthorityRegistry;
 
+    // role code + privileges of the user's role, ex: [ROLE_ADMIN, READ_ONLY, ...]
+    // the returned list is shared and immutable
     public List<GrantedAuthority> getAuthorityByUser(User user) {
+        return roleAuthorityRegistry.getAuthorities(user.getRoleCode());
+    }
 
-        try {
-            String[] privileges = privilegesConverter.convertToDatabaseColumn(roleRepo.findPrivilegesByCode(user.getRoleCode())
-                    .getPrivileges()).split(",");
-            List<GrantedAuthority> authorities = new ArrayList<>();
-
-            // Add role code
-            // ex: ROLE_ADMIN
-            authorities.add(new SimpleGrantedAuthority(user.getRoleCode()));
+    public long getPrivilegeMaskByUser(User user) {
+        return roleAuthorityRegistry.getPrivilegeMask(user.getRoleCode());
+    }
 
-            // Add authorities
-            // ex: READ_ONLY
-            Arrays.stream(privileges).forEach(p -> {
-                authorities.add(new SimpleGrantedAuthority(p.trim()));
-            });
-            return authorities;
-        } catch (RuntimeException e) {
-            throw new RuntimeException(e);
-        }
+    public long getPrivilegeMaskByRole(String roleCode) {
+        return roleAuthorityRegistry.getPrivilegeMask(roleCode);
     }
 }
@@ -1,50 +1,37 @@
 package com.example.iam_service.service;
 
+import com.example.iam_service.entity.EmailOutbox;
 import com.example.iam_service.exception.InvalidOtpException;
-import com.example.iam_service.security.OtpDetails;
-import com.example.iam_service.security.StoreOtp;
+import com.example.iam_service.repository.EmailOutboxRepository;
+import com.example.iam_service.security.OtpStore;
 import lombok.RequiredArgsConstructor;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.beans.factory.annotation.Value;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+// Mail is only written to the outbox here, EmailOutboxWorker delivers it.
+// Inside a transaction the mail is enqueued together with the change that caused it.
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository outboxRepository;
 
-    private final StoreOtp storeOtp;
+    private final OtpStore otpStore;
 
-    @Value("${app.email.from}")
-    private String fromAddress;
-
-    @Async
     public void sendPasswordEmail(String to, String password) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromAddress);
-        message.setTo(to);
-        message.setSubject("Your Laboratory Account Password");
-        message.setText("Hello,\n\nYour patient account has been created successfully.\n\n" +
+        String text = "Hello,\n\nYour patient account has been created successfully.\n\n" +
                 "Your temporary password is: " + password + "\n\n" +
                 "Please log in and change it immediately for security purposes.\n\n" +
-                "Best regards,\nLaboratory IAM Service");
-        mailSender.send(message);
+                "Best regards,\nLaboratory IAM Service";
+        enqueue(to, "Your Laboratory Account Password", text);
     }
 
     public void sendOtp(String email) {
         String otp = generateOtp();
-        storeOtp.storeOtp(email, otp);
+        otpStore.storeOtp(email, otp);
 
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(fromAddress);
-        message.setTo(email);
-        message.setSubject("Your Laboratory OTP Code");
         String text = """
                 Dear User,
                 
@@ -58,21 +45,29 @@ public class EmailService {
                 Thank you,
                 Laboratory Support Team
                 """.formatted(otp);
-        message.setText(text);
-        mailSender.send(message);
+        enqueue(email, "Your Laboratory OTP Code", text);
     }
 
     public String verifyOtp(String email, String otp) {
-        OtpDetails details = storeOtp.getOtpDetails(email);
-
-        if (details == null || !details.getOtp().equals(otp))
-            throw new InvalidOtpException("OTP not found or invalid");
-
-        if (details.getExpiration().isBefore(LocalDateTime.now()))
-            throw new InvalidOtpException("OTP expired");
+        return switch (otpStore.verifyOtp(email, otp)) {
+            case VALID -> email;
+            case EXPIRED -> throw new InvalidOtpException("OTP expired");
+            case LOCKED -> throw new InvalidOtpException("Too many invalid attempts, please request a new OTP");
+            default -> throw new InvalidOtpException("OTP not found or invalid");
+        };
+    }
 
-        storeOtp.removeOtp(email);
-        return email;
+    private void enqueue(String to, String subject, String text) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.save(EmailOutbox.builder()
+                .recipient(to)
+                .subject(subject)
+                .body(text)
+                .status(EmailOutbox.Status.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
     }
 
     private String generateOtp() {
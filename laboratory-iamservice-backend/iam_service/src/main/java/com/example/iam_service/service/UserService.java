@@ -1,10 +1,12 @@
 package com.example.iam_service.service;
 
+import com.example.iam_service.dto.response.CursorPageResponse;
 import com.example.iam_service.dto.user.AdminUpdateUserDTO;
 import com.example.iam_service.dto.user.UpdateUserProfileDTO;
 import com.example.iam_service.entity.User;
 
 import javax.swing.text.html.Option;
+import java.time.LocalDate;
 import java.util.Optional;
 import java.util.List;
 import java.util.UUID;
@@ -14,8 +16,11 @@ public interface UserService {
     Optional<User> getUserByEmail(String email);
     List<User> getAllUsers();
     List<User> getInactiveUsers();
+    CursorPageResponse<User> getUsersPage(String role, String status, LocalDate fromDate, LocalDate toDate,
+                                          String cursor, int size);
     void activateUserByEmail(String email);
     Optional<User> getUserById(UUID id);
+    Optional<User> getUserByPhoneNumber(String phoneNumber);
     User updateOwnProfile(UUID id, UpdateUserProfileDTO dto);
     User adminUpdateUser(UUID id, AdminUpdateUserDTO dto);
     void requestDeletion(UUID userId);
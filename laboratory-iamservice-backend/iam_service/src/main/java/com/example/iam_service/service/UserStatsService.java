@@ -0,0 +1,155 @@
+package com.example.iam_service.service;
+
+import com.example.iam_service.dto.user.UserStatsDTO;
+import com.example.iam_service.entity.User;
+import com.example.iam_service.repository.UserStatsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// User counts for the dashboard, kept in the "UserStats" table instead of scanning "User".
+// Every user change passes its before/after buckets here inside its own transaction, so the
+// counters commit or roll back with the change. UserStatsReconciler recounts periodically
+// to repair drift from writes that bypass this service (bulk updates, the data seeder).
+@Service
+public class UserStatsService {
+    public static final String ROLE_PREFIX = "role:";
+    public static final String ACTIVE = "status:active";
+    public static final String INACTIVE = "status:inactive";
+    public static final String PENDING_DELETION = "status:pending_deletion";
+    public static final String DELETED = "status:deleted";
+
+    private final UserStatsRepository statsRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final TransactionTemplate swapTransaction;
+
+    public UserStatsService(UserStatsRepository statsRepository, PlatformTransactionManager transactionManager) {
+        this.statsRepository = statsRepository;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTransaction.setReadOnly(true);
+        this.swapTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    // the buckets a user is counted in, take it before changing the user
+    public static List<String> buckets(User user) {
+        List<String> buckets = new ArrayList<>(2);
+        if (Boolean.TRUE.equals(user.getIsDeleted())) {
+            buckets.add(DELETED);
+            return buckets;
+        }
+        if (user.getRoleCode() != null) {
+            buckets.add(ROLE_PREFIX + user.getRoleCode());
+        }
+        if (user.getDeletedAt() != null) {
+            buckets.add(PENDING_DELETION);
+        } else {
+            buckets.add(Boolean.TRUE.equals(user.getIsActive()) ? ACTIVE : INACTIVE);
+        }
+        return buckets;
+    }
+
+    @Transactional
+    public void recordCreated(List<User> users) {
+        Map<String, Long> deltas = new TreeMap<>();
+        users.forEach(user -> buckets(user).forEach(bucket -> deltas.merge(bucket, 1L, Long::sum)));
+        apply(deltas);
+    }
+
+    @Transactional
+    public void recordChanged(List<String> before, User after) {
+        recordChanged(List.of(before), List.of(after));
+    }
+
+    // before.get(i) holds the buckets of after.get(i) prior to the change
+    @Transactional
+    public void recordChanged(List<List<String>> before, List<User> after) {
+        Map<String, Long> deltas = new TreeMap<>();
+        before.forEach(buckets -> buckets.forEach(bucket -> deltas.merge(bucket, -1L, Long::sum)));
+        after.forEach(user -> buckets(user).forEach(bucket -> deltas.merge(bucket, 1L, Long::sum)));
+        apply(deltas);
+    }
+
+    // after a bulk role reassignment, the moved row count is not known per bucket
+    @Transactional
+    public void recountRoles(String... roleCodes) {
+        for (String roleCode : roleCodes) {
+            statsRepository.setCount(ROLE_PREFIX + roleCode, statsRepository.countUsersInRole(roleCode));
+        }
+    }
+
+    // sorted buckets: concurrent transactions lock the counter rows in the same order
+    private void apply(Map<String, Long> deltas) {
+        deltas.forEach((bucket, delta) -> {
+            if (delta != 0) statsRepository.increment(bucket, delta);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public UserStatsDTO getStats() {
+        Map<String, Long> counts = new HashMap<>();
+        statsRepository.findAll().forEach(stat -> counts.put(stat.getBucket(), stat.getCount()));
+
+        Map<String, Long> roles = new TreeMap<>();
+        counts.forEach((bucket, count) -> {
+            if (!bucket.startsWith(ROLE_PREFIX) || count <= 0) return;
+            String roleCode = bucket.substring(ROLE_PREFIX.length());
+            roles.put(roleCode.startsWith("ROLE_") ? roleCode.substring(5) : roleCode, count);
+        });
+
+        UserStatsDTO stats = new UserStatsDTO();
+        stats.setRoles(roles);
+        stats.setActive(counts.getOrDefault(ACTIVE, 0L));
+        stats.setInactive(counts.getOrDefault(INACTIVE, 0L));
+        stats.setPendingDeletion(counts.getOrDefault(PENDING_DELETION, 0L));
+        stats.setDeleted(counts.getOrDefault(DELETED, 0L));
+        return stats;
+    }
+
+    // Brings every counter to the exact count. The scans run lock free in one snapshot with
+    // the counters, so their difference is the drift as of that snapshot. Writers committing
+    // after it moved both sides alike, so the drift is added to the counters rather than
+    // overwriting them, and the counter rows are locked only for that short swap.
+    public Map<String, Long> reconcile() {
+        Map<String, Long> drift = snapshotTransaction.execute(status -> drift());
+        swapTransaction.executeWithoutResult(status -> {
+            statsRepository.lockAll();
+            apply(drift);
+        });
+        return drift;
+    }
+
+    private Map<String, Long> drift() {
+        Map<String, Long> current = new HashMap<>();
+        statsRepository.findAll().forEach(stat -> current.put(stat.getBucket(), stat.getCount()));
+
+        Map<String, Long> exact = new TreeMap<>();
+        for (Object[] row : statsRepository.countUsersByRole()) {
+            exact.put(ROLE_PREFIX + row[0], ((Number) row[1]).longValue());
+        }
+        for (String status : List.of(ACTIVE, INACTIVE, PENDING_DELETION, DELETED)) {
+            exact.put(status, 0L);
+        }
+        for (Object[] row : statsRepository.countUsersByStatus()) {
+            exact.put("status:" + row[0], ((Number) row[1]).longValue());
+        }
+
+        Map<String, Long> drift = new TreeMap<>();
+        current.forEach((bucket, count) -> {
+            if (!exact.containsKey(bucket) && count != 0) drift.put(bucket, -count);
+        });
+        exact.forEach((bucket, count) -> {
+            long diff = count - current.getOrDefault(bucket, 0L);
+            if (diff != 0) drift.put(bucket, diff);
+        });
+        return drift;
+    }
+}
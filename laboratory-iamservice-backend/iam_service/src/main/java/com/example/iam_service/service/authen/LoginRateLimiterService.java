@@ -1,5 +1,7 @@
 package com.example.iam_service.service.authen;
 
+import java.time.ZonedDateTime;
+
 public interface LoginRateLimiterService {
 
     // key for token bucket (client ip)
@@ -8,4 +10,7 @@ public interface LoginRateLimiterService {
     void recordFailedAttempt(String key);
 
     void resetAttempt(String key);
+
+    // end of the current ban, null when not banned
+    ZonedDateTime getBanUntil(String key);
 }
@@ -0,0 +1,5 @@
+package com.example.iam_service.service.authen;
+
+public interface LogoutService {
+    void revokeAccessToken(String accessToken);
+}
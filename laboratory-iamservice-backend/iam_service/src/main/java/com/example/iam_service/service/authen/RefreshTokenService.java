@@ -3,6 +3,8 @@ package com.example.iam_service.service.authen;
 import com.example.iam_service.entity.Token;
 import com.example.iam_service.entity.User;
 
+import java.util.Map;
+
 public interface RefreshTokenService {
     long expiration = 7 * 24 * 60 * 60;
 
@@ -13,4 +15,7 @@ public interface RefreshTokenService {
     Token generateRefreshToken(User user);
 
     Token verifyRefreshToken(String tokenId);
+
+    // consume the refresh token and issue a new access + refresh token pair, null when rejected
+    Map<String, String> rotateTokens(String tokenId);
 }
@@ -4,15 +4,22 @@ import com.example.iam_service.audit.AuditEvent;
 import com.example.iam_service.audit.AuditPublisher;
 import com.example.iam_service.entity.Token;
 import com.example.iam_service.entity.User;
-import com.example.iam_service.repository.RefreshTokenRepository;
+import com.example.iam_service.repository.RefreshTokenStore;
+import com.example.iam_service.repository.UserCredentials;
 import com.example.iam_service.repository.UserRepository;
+import com.example.iam_service.security.PasswordVerifier;
+import com.example.iam_service.security.PrincipalCache;
+import com.example.iam_service.security.TokenRevocationService;
 import com.example.iam_service.service.authen.*;
 import com.example.iam_service.util.JwtUtil;
+import com.example.iam_service.util.JwtVerifier;
+import io.jsonwebtoken.JwtException;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.BadRequestException;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -22,49 +29,86 @@ import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.util.*;
 
+@Slf4j
 @Service
 @AllArgsConstructor
-public class AuthenticationServiceImpl implements LoginService, GoogleService, RefreshTokenService, ResetPassWordService {
+public class AuthenticationServiceImpl implements LoginService, GoogleService, RefreshTokenService, ResetPassWordService, LogoutService {
     private final BCryptPasswordEncoder encoder;
     private final UserRepository userRepository;
-    private final RefreshTokenRepository refreshRepo;
+    private final RefreshTokenStore refreshTokenStore;
     private final GoogleIdTokenVerifier googleIdTokenVerifier;
     private final JwtUtil jwtUtil;
     private final AuditPublisher auditPublisher;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final PasswordVerifier passwordVerifier;
 
     // helper function for verification
-    private User authenticate(String email, String password) {
-        Optional<User> userFound = userRepository.findByEmail(email);
+    private UserCredentials authenticate(String email, String password) {
+        Optional<UserCredentials> userFound = findCredentialsByEmail(email);
 
         if (userFound.isEmpty())
             throw new UsernameNotFoundException("Email not found");
 
-        User user = userFound.get();
-        if (!user.getIsActive())
+        UserCredentials user = userFound.get();
+        if (!user.isActive())
             throw new BadRequestException("User is deleted");
 
-        if (!encoder.matches(password, user.getPassword()))
+        // bcrypt runs on the login pool, not on the request thread
+        PasswordVerifier.Result result = passwordVerifier.verify(password, user.password());
+        if (!result.matches())
             throw new BadCredentialsException("Password is invalid");
 
+        if (result.rehashed() != null)
+            upgradePasswordHash(user, result.rehashed());
+
         return user;
     }
 
-    public Map<String, String> getTokens(User user) {
+    // stored hash used another bcrypt cost, swap it without bumping the user version
+    private void upgradePasswordHash(UserCredentials user, String rehashed) {
+        try {
+            userRepository.updatePasswordHash(user.userId(), rehashed);
+        } catch (Exception e) {
+            log.warn("Could not rehash password of user {}: {}", user.userId(), e.getMessage());
+        }
+    }
+
+    // the compact token only needs the credential columns, the full profile token is the
+    // one case that loads (and decrypts) the whole user row, in the same single query
+    private Optional<UserCredentials> findCredentialsByEmail(String email) {
+        return jwtUtil.needsProfile()
+                ? userRepository.findByEmail(email).map(UserCredentials::of)
+                : userRepository.findCredentialsByEmail(email);
+    }
+
+    private Optional<UserCredentials> findCredentialsById(UUID userId) {
+        return jwtUtil.needsProfile()
+                ? userRepository.findById(userId).map(UserCredentials::of)
+                : userRepository.findCredentialsById(userId);
+    }
+
+    private String generateAccessToken(UserCredentials user) {
+        if (!jwtUtil.needsProfile())
+            return jwtUtil.generateToken(user);
+
+        User profile = user.profile() != null
+                ? user.profile()
+                : userRepository.findById(user.userId())
+                        .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return jwtUtil.generateToken(profile);
+    }
+
+    public Map<String, String> getTokens(UserCredentials user) {
         Map<String, String> tokens = new HashMap<>();
-        tokens.put("accessToken", jwtUtil.generateToken(user));
-        tokens.put("refreshToken", generateRefreshToken(user).getTokenId());
+        tokens.put("accessToken", generateAccessToken(user));
+        tokens.put("refreshToken", issueRefreshToken(user.userId()).getTokenId());
         return tokens;
     }
 
     @Override
     public Map<String, String> login(String email, String password) {
-        User authenticatedUser = authenticate(email, password);
-        Map<String, String> tokens = new HashMap<>();
-
-        tokens.put("accessToken", jwtUtil.generateToken(authenticatedUser));
-        tokens.put("refreshToken",
-                generateRefreshToken(authenticatedUser).getTokenId());
-        return tokens;
+        return getTokens(authenticate(email, password));
     }
 
     //    Google services
@@ -83,9 +127,8 @@ public class AuthenticationServiceImpl implements LoginService, GoogleService, R
         }
     }
 
-    @Transactional
-    public User loadUserByLoginGoogle(GoogleIdToken.Payload payload) {
-        Optional<User> optUser = userRepository.findByEmail(payload.getEmail());
+    public UserCredentials loadUserByLoginGoogle(GoogleIdToken.Payload payload) {
+        Optional<UserCredentials> optUser = findCredentialsByEmail(payload.getEmail());
         if (optUser.isEmpty()) {
             throw new UsernameNotFoundException("Email not found");
         }
@@ -94,10 +137,9 @@ public class AuthenticationServiceImpl implements LoginService, GoogleService, R
 
     //    Refresh token services
     @Override
-    @Transactional
     public void deleteToken(String tokenId) {
         try {
-            refreshRepo.deleteByTokenId(tokenId);
+            refreshTokenStore.delete(tokenId);
         } catch (Exception e) {
             throw new RuntimeException("Error delete refresh token " + e);
         }
@@ -105,25 +147,39 @@ public class AuthenticationServiceImpl implements LoginService, GoogleService, R
 
     @Override
     public Token findByToken(String tokenId) {
-        return refreshRepo.findByTokenId(tokenId).orElse(null);
+        Optional<RefreshTokenStore.StoredToken> stored = refreshTokenStore.find(tokenId);
+        if (stored.isEmpty()) return null;
+
+        Token token = new Token();
+        token.setTokenId(tokenId);
+        token.setExpiredAt(stored.get().expiredAt());
+        userRepository.findById(stored.get().userId()).ifPresent(token::setUser);
+        return token;
     }
 
     @Override
     public Token generateRefreshToken(User user) {
+        Token refreshToken = issueRefreshToken(user.getUserId());
+        refreshToken.setUser(user);
+        return refreshToken;
+    }
+
+    private Token issueRefreshToken(UUID userId) {
         LocalDateTime now = LocalDateTime.now();
 
         Token refreshToken = new Token();
-        refreshToken.setUser(user);
         refreshToken.setTokenId(UUID.randomUUID().toString());
         refreshToken.setExpiredAt(now.plusSeconds(expiration)); // expiration from refresh token service
 
-        return refreshRepo.save(refreshToken);
+        refreshTokenStore.save(refreshToken.getTokenId(), userId, refreshToken.getExpiredAt());
+        return refreshToken;
     }
 
     @Override
     public Token verifyRefreshToken(String tokenId) {
         Token tokenFound = findByToken(tokenId);
         if (tokenFound == null ||
+                tokenFound.getUser() == null ||
                 LocalDateTime.now().isAfter(tokenFound.getExpiredAt())) {
             return null;
         }
@@ -131,6 +187,48 @@ public class AuthenticationServiceImpl implements LoginService, GoogleService, R
         return tokenFound;
     }
 
+    @Override
+    public Map<String, String> rotateTokens(String tokenId) {
+        String newTokenId = UUID.randomUUID().toString();
+        RefreshTokenStore.Rotation rotation = refreshTokenStore.rotate(
+                tokenId, newTokenId, LocalDateTime.now().plusSeconds(expiration));
+
+        if (rotation.status() == RefreshTokenStore.RotationStatus.REUSED) {
+            auditPublisher.publish(AuditEvent.builder()
+                    .type("REFRESH_TOKEN_REUSE")
+                    .userId(rotation.userId().toString())
+                    .target(rotation.userId().toString())
+                    .timestamp(OffsetDateTime.now())
+                    .details("Rotated refresh token presented again, token family revoked")
+                    .build());
+            return null;
+        }
+        if (rotation.status() != RefreshTokenStore.RotationStatus.ROTATED) return null;
+
+        Optional<UserCredentials> user = findCredentialsById(rotation.userId());
+        if (user.isEmpty()) {
+            refreshTokenStore.delete(newTokenId);
+            return null;
+        }
+
+        Map<String, String> tokens = new HashMap<>();
+        tokens.put("accessToken", generateAccessToken(user.get()));
+        tokens.put("refreshToken", newTokenId);
+        return tokens;
+    }
+
+    //    Logout services
+    @Override
+    public void revokeAccessToken(String accessToken) {
+        JwtVerifier.TokenClaims claims;
+        try {
+            claims = jwtUtil.verify(accessToken);
+        } catch (JwtException e) {
+            return; // expired or invalid, nothing to revoke
+        }
+        tokenRevocationService.revoke(claims.jti(), claims.expiresAt());
+    }
+
     @Override
     public User searchUserByEmail(String data) {
         return userRepository.findByEmail(data).orElse(null);
@@ -178,6 +276,8 @@ public class AuthenticationServiceImpl implements LoginService, GoogleService, R
 
         // save new password directly if option "reset"
         user.setPassword(encoder.encode(password));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.invalidate(saved);
+        return saved;
     }
 }
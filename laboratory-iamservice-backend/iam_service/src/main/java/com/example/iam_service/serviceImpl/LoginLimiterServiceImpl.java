@@ -1,70 +1,102 @@
 package com.example.iam_service.serviceImpl;
 
 import com.example.iam_service.service.authen.LoginRateLimiterService;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 
+// Failed login attempts per key (client ip), capped at max-tracked-keys so spoofed
+// X-Forwarded-For values cannot grow the heap. Buckets are immutable and replaced
+// atomically through compute, isBanned is a plain map read.
+// Eviction order lives in two lock-free queues, keys in the order they were first tracked
+// and keys in the order they were banned. Only makeRoom reads them: a new key over the cap
+// evicts the oldest unbanned key, or the oldest ban when only bans are left. Entries of keys
+// that were removed or banned since are skipped there and pruned by the sweep.
 @Service
-@AllArgsConstructor
+@Profile("!redis-limiter") // default: per instance limits
 public class LoginLimiterServiceImpl implements LoginRateLimiterService {
     private static final int MAX_ATTEMPT = 5; // max number of login attempt
     private static final long BAN_DURATION = 2 * 60 * 60;
     private static final int REFILL_MINUTE = 1; // attempt counter reset after 1 minutes
 
-    // helper class to store user login attempts
-    private static class Bucket {
-        double failedAttempts;
-        LocalDateTime lastFailedAttempt;
-        LocalDateTime banUntil;
+    private static final long BAN_MILLIS = BAN_DURATION * 1000;
+    private static final long REFILL_MILLIS = REFILL_MINUTE * 60 * 1000L;
 
-        public Bucket(double failedAttempts, LocalDateTime lastFailedAttempt, LocalDateTime banUntil) {
-            this.failedAttempts = failedAttempts;
-            this.lastFailedAttempt = lastFailedAttempt;
-            this.banUntil = banUntil;
+    // epoch millis, banUntil == 0 when never banned
+    private record Bucket(int failedAttempts, long lastFailedAt, long banUntil) {
+        boolean isBanned(long now) {
+            return now < banUntil;
+        }
+
+        // neither banned nor inside the refill window, dropping it changes nothing
+        boolean isExpired(long now) {
+            return !isBanned(now) && now - lastFailedAt >= REFILL_MILLIS;
         }
     }
 
     private final ConcurrentMap<String, Bucket> userBuckets = new ConcurrentHashMap<>();
+    private final Queue<String> trackedOrder = new ConcurrentLinkedQueue<>();
+    private final Queue<String> bannedOrder = new ConcurrentLinkedQueue<>();
+    // taken only by threads adding a new key at the cap
+    private final Object evictionLock = new Object();
+    private final int maxTrackedKeys;
+
+    private final Counter bans;
+    private final Counter evictions;
+
+    public LoginLimiterServiceImpl(
+            MeterRegistry meterRegistry,
+            @Value("${app.login-limiter.max-tracked-keys:100000}") int maxTrackedKeys) {
+        this.maxTrackedKeys = maxTrackedKeys;
+
+        this.bans = Counter.builder("iam.login.limiter.bans")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("iam.login.limiter.evictions")
+                .register(meterRegistry);
+        Gauge.builder("iam.login.limiter.tracked.keys", userBuckets, Map::size)
+                .register(meterRegistry);
+    }
 
     @Override
     public boolean isBanned(String key) {
         Bucket currentBucket = userBuckets.get(key);
-        LocalDateTime now = LocalDateTime.now();
-        if (currentBucket == null || currentBucket.banUntil == null) return false;
-
-        return now.isBefore(currentBucket.banUntil);
+        return currentBucket != null && currentBucket.isBanned(System.currentTimeMillis());
     }
 
     @Override
     public void recordFailedAttempt(String key) {
-        Bucket currentBucket = userBuckets.get(key);
-        LocalDateTime now = LocalDateTime.now();
-        if (currentBucket == null) {
-            userBuckets.put(key, new Bucket(1, now, null));
-            return;
-        }
-
-        long minutePassed = ChronoUnit.SECONDS.between(currentBucket.lastFailedAttempt, now);
-        if (minutePassed >= REFILL_MINUTE * 60) {
-            currentBucket.failedAttempts = 0;
-        }
-
-        currentBucket.failedAttempts++;
-        currentBucket.lastFailedAttempt = now;
-
-        if (currentBucket.failedAttempts >= MAX_ATTEMPT) {
-            currentBucket.banUntil = now.plusSeconds(BAN_DURATION);
-            currentBucket.failedAttempts = 0;
+        long now = System.currentTimeMillis();
+        if (!userBuckets.containsKey(key) && userBuckets.size() >= maxTrackedKeys) {
+            makeRoom(now);
         }
 
-        userBuckets.put(key, currentBucket);
+        userBuckets.compute(key, (k, current) -> {
+            if (current == null) {
+                trackedOrder.add(k);
+                return new Bucket(1, now, 0);
+            }
+
+            int attempts = now - current.lastFailedAt() >= REFILL_MILLIS ? 1 : current.failedAttempts() + 1;
+            if (attempts >= MAX_ATTEMPT) {
+                bans.increment();
+                bannedOrder.add(k);
+                return new Bucket(0, now, now + BAN_MILLIS);
+            }
+            return new Bucket(attempts, now, current.banUntil());
+        });
     }
 
     @Override
@@ -72,10 +104,56 @@ public class LoginLimiterServiceImpl implements LoginRateLimiterService {
         userBuckets.remove(key);
     }
 
+    @Override
     public ZonedDateTime getBanUntil(String ip) {
         Bucket bucket = userBuckets.get(ip);
-        ZonedDateTime systemTime = bucket.banUntil.atZone(ZoneId.systemDefault());
-        return systemTime.withZoneSameInstant(ZoneId.of("Asia/Ho_Chi_Minh"));
+        if (bucket == null) return null;
+
+        return Instant.ofEpochMilli(bucket.banUntil()).atZone(ZoneId.of("Asia/Ho_Chi_Minh"));
     }
 
+    public int trackedKeys() {
+        return userBuckets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.login-limiter.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        evictExpired(System.currentTimeMillis());
+        trackedOrder.removeIf(key -> !userBuckets.containsKey(key));
+        bannedOrder.removeIf(key -> !userBuckets.containsKey(key));
+    }
+
+    private void evictExpired(long now) {
+        userBuckets.forEach((key, bucket) -> {
+            if (bucket.isExpired(now)) evict(key, bucket);
+        });
+    }
+
+    // the oldest unbanned key first, then the oldest ban; one queue entry per step, so a
+    // stale entry costs a poll, never a scan
+    private void makeRoom(long now) {
+        synchronized (evictionLock) {
+            while (userBuckets.size() >= maxTrackedKeys) {
+                String key = trackedOrder.poll();
+                Bucket bucket = key == null ? null : userBuckets.get(key);
+                if (key != null) {
+                    // gone already, or banned and queued in bannedOrder
+                    if (bucket != null && !bucket.isBanned(now)) evict(key, bucket);
+                    continue;
+                }
+
+                key = bannedOrder.poll();
+                if (key == null) return;
+                bucket = userBuckets.get(key);
+                if (bucket != null) evict(key, bucket);
+            }
+        }
+    }
+
+    // only if unchanged, a concurrent failure for the key wins
+    private void evict(String key, Bucket bucket) {
+        if (userBuckets.remove(key, bucket)) {
+            evictions.increment();
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package com.example.iam_service.serviceImpl;
+
+import com.example.iam_service.service.authen.LoginRateLimiterService;
+import com.example.iam_service.util.RedisAttemptLimiter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+// Login limiter shared by all replicas, active with the "redis-limiter" profile.
+// Same rule as LoginLimiterServiceImpl: failures less than a minute apart add up, a minute
+// without failures starts over, the 5th failure bans the key for 2 hours.
+@Service
+@Profile("redis-limiter")
+public class RedisLoginLimiterServiceImpl implements LoginRateLimiterService {
+    private static final int MAX_ATTEMPT = 5;
+    private static final long BAN_DURATION = 2 * 60 * 60;
+    private static final int RESET_MINUTE = 1;
+
+    private final RedisAttemptLimiter limiter;
+
+    public RedisLoginLimiterServiceImpl(StringRedisTemplate redisTemplate,
+                                        RedisMessageListenerContainer listenerContainer) {
+        this.limiter = new RedisAttemptLimiter(redisTemplate, "ratelimit:login:", MAX_ATTEMPT,
+                RESET_MINUTE * 60 * 1000L, BAN_DURATION * 1000);
+        listenerContainer.addMessageListener(limiter, new ChannelTopic(limiter.channel()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.rate-limit.ban-reload-ms:60000}",
+            initialDelayString = "${app.rate-limit.ban-reload-ms:60000}")
+    public void loadBans() {
+        limiter.loadBans();
+    }
+
+    @Override
+    public boolean isBanned(String key) {
+        return limiter.banUntil(key) > 0;
+    }
+
+    @Override
+    public void recordFailedAttempt(String key) {
+        limiter.record(key);
+    }
+
+    @Override
+    public void resetAttempt(String key) {
+        limiter.reset(key);
+    }
+
+    @Override
+    public ZonedDateTime getBanUntil(String key) {
+        long banUntil = limiter.banUntil(key);
+        if (banUntil == 0) return null;
+
+        return Instant.ofEpochMilli(banUntil).atZone(ZoneId.of("Asia/Ho_Chi_Minh"));
+    }
+}
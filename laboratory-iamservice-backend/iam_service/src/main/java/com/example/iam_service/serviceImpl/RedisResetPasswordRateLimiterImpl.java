@@ -0,0 +1,57 @@
+package com.example.iam_service.serviceImpl;
+
+import com.example.iam_service.service.authen.ResetPasswordRateLimiterService;
+import com.example.iam_service.util.RedisAttemptLimiter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+// Reset password limiter shared by all replicas, active with the "redis-limiter" profile.
+// Same rule as ResetPasswordRateLimiterImpl: attempts less than an hour apart add up, an hour
+// without attempts starts over, the 3rd attempt bans the ip for 2 hours.
+@Service
+@Profile("redis-limiter")
+public class RedisResetPasswordRateLimiterImpl implements ResetPasswordRateLimiterService {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RESET_SECONDS = 60 * 60;
+    private static final long BAN_DURATION = 2 * 60 * 60;
+
+    private final RedisAttemptLimiter limiter;
+
+    public RedisResetPasswordRateLimiterImpl(StringRedisTemplate redisTemplate,
+                                             RedisMessageListenerContainer listenerContainer) {
+        this.limiter = new RedisAttemptLimiter(redisTemplate, "ratelimit:reset-password:", MAX_ATTEMPTS,
+                RESET_SECONDS * 1000, BAN_DURATION * 1000);
+        listenerContainer.addMessageListener(limiter, new ChannelTopic(limiter.channel()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.rate-limit.ban-reload-ms:60000}",
+            initialDelayString = "${app.rate-limit.ban-reload-ms:60000}")
+    public void loadBans() {
+        limiter.loadBans();
+    }
+
+    @Override
+    public boolean isBannedFromResetPassword(String ip) {
+        return limiter.banUntil(ip) > 0;
+    }
+
+    @Override
+    public void recordResetPassAttempt(String ip) {
+        limiter.record(ip);
+    }
+
+    @Override
+    public Instant getUserBanUntil(String ip) {
+        long banUntil = limiter.banUntil(ip);
+        return banUntil > 0 ? Instant.ofEpochMilli(banUntil) : null;
+    }
+}
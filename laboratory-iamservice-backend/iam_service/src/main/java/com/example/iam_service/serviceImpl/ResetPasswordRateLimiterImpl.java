@@ -1,6 +1,7 @@
 package com.example.iam_service.serviceImpl;
 
 import com.example.iam_service.service.authen.ResetPasswordRateLimiterService;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
@@ -9,6 +10,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
+@Profile("!redis-limiter") // default: per instance limits
 public class ResetPasswordRateLimiterImpl implements ResetPasswordRateLimiterService {
     private final int MAX_ATTEMPTS = 3;
     private final long REFILL_SECONDS = 60 * 60;
@@ -68,6 +70,7 @@ public class ResetPasswordRateLimiterImpl implements ResetPasswordRateLimiterSer
         userBuckets.put(ip, bucket);
     }
 
+    @Override
     public Instant getUserBanUntil(String ip) {
         return userBuckets.get(ip) != null ? userBuckets.get(ip).banUntil : null;
     }
@@ -14,8 +14,11 @@ import com.example.iam_service.exception.RoleNotFoundException;
 import com.example.iam_service.mapper.RoleMapper;
 import com.example.iam_service.repository.RoleRepository;
 import com.example.iam_service.repository.UserRepository;
+import com.example.iam_service.security.PrincipalCache;
 import com.example.iam_service.security.PrivilegesRequired;
+import com.example.iam_service.security.RoleAuthorityRegistry;
 import com.example.iam_service.service.RoleService;
+import com.example.iam_service.service.UserStatsService;
 import com.example.iam_service.util.SecurityUtil;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.Predicate;
@@ -49,6 +52,9 @@ public class RoleServiceImp implements RoleService {
     private final RoleMapper mapper;
     private final UserRepository userRepository;
     private final EntityManager entityManager;
+    private final PrincipalCache principalCache;
+    private final RoleAuthorityRegistry roleAuthorityRegistry;
+    private final UserStatsService userStatsService;
 
 //    @Autowired
 //    private RoleRepository roleRepository;
@@ -180,7 +186,9 @@ public class RoleServiceImp implements RoleService {
                         .collect(Collectors.joining(", ")))
                 .build());
 
-        return  mapper.toDto(roleRepository.save(role));
+        Role saved = roleRepository.save(role);
+        roleAuthorityRegistry.register(saved);
+        return  mapper.toDto(saved);
     }
 
     @Transactional
@@ -198,6 +206,8 @@ public class RoleServiceImp implements RoleService {
         //Privileges is also mapped in mapper
         Role result = mapper.updateEntityFromDto(dto,this.returnByCode(roleCode));
         Role saved = roleRepository.save(result);
+        roleAuthorityRegistry.register(saved);
+        principalCache.invalidateRole(roleCode);
 
         auditPublisher.publish(AuditEvent.builder()
                 .type("ROLE_UPDATED")
@@ -230,12 +240,15 @@ public class RoleServiceImp implements RoleService {
         log.info("Starting roleCode update from {} to {}", "ROLE_DEFAULT", roleCode);
 
         int updatedCount = userRepository.batchUpdateUser("ROLE_DEFAULT", roleCode);
+        userStatsService.recountRoles("ROLE_DEFAULT", roleCode);
 
         log.info("RoleCode update completed successfully. Total records updated: {}", updatedCount);
 
         entityManager.flush();
         entityManager.clear();
         roleRepository.delete(returnByCode(roleCode));
+        roleAuthorityRegistry.unregister(roleCode);
+        principalCache.invalidateRole(roleCode);
 
         auditPublisher.publish(AuditEvent.builder()
                 .type("ROLE_DELETED")
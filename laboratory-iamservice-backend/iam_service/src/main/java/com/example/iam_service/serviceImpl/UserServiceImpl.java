@@ -2,6 +2,7 @@ package com.example.iam_service.serviceImpl;
 
 import com.example.iam_service.audit.AuditEvent;
 import com.example.iam_service.audit.AuditPublisher;
+import com.example.iam_service.dto.response.CursorPageResponse;
 import com.example.iam_service.dto.user.AdminUpdateUserDTO;
 import com.example.iam_service.dto.user.PatientCreateRequest;
 import com.example.iam_service.dto.user.PatientDTO;
@@ -10,13 +11,21 @@ import com.example.iam_service.entity.User;
 import com.example.iam_service.external.PatientVerificationService;
 import com.example.iam_service.mapper.UserMapper;
 import com.example.iam_service.repository.UserRepository;
+import com.example.iam_service.security.PasswordHashPool;
+import com.example.iam_service.security.PrincipalCache;
 import com.example.iam_service.service.EmailService;
 import com.example.iam_service.service.UserService;
+import com.example.iam_service.service.UserStatsService;
 import com.example.iam_service.util.AuditDiffUtil;
+import com.example.iam_service.util.BlindIndex;
 import com.example.iam_service.util.PasswordGenerator;
 import com.example.iam_service.util.SecurityUtil;
+import com.example.iam_service.util.UserCursor;
+import com.example.iam_service.util.UserSpecification;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +34,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
@@ -32,14 +42,18 @@ import org.springframework.http.HttpHeaders;
 
 import java.time.*;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Sort PAGE_ORDER = Sort.by(Sort.Direction.DESC, "createdAt", "userId");
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
@@ -49,12 +63,18 @@ public class UserServiceImpl implements UserService {
     private final PatientVerificationService patientVerificationService;
     private final SecurityUtil securityUtil;
     private final RestTemplate restTemplate;
+    private final PrincipalCache principalCache;
+    private final PasswordHashPool passwordHashPool;
+    private final TransactionTemplate transactionTemplate;
+    private final UserStatsService userStatsService;
+    private final BlindIndex blindIndex;
 
     @Override
     @Transactional
     public User createUser(User user) {
         User actor = securityUtil.getCurrentUser();
         validateUniqueEmail(user.getEmail());
+        validateUniqueIdentityNumber(user.getIdentityNumber(), null);
 
         // Automatically calculate age if not provided
         if (user.getBirthdate() != null && user.getAge() == null) {
@@ -74,6 +94,7 @@ public class UserServiceImpl implements UserService {
             if ("ROLE_PATIENT".equalsIgnoreCase(user.getRoleCode()) && plainPassword != null) {
                 synchronizePatientData(user);
                 savedUser = userRepository.save(user);
+                userStatsService.recordCreated(List.of(savedUser));
                 emailService.sendPasswordEmail(savedUser.getEmail(), plainPassword);
                 auditPublisher.publish(AuditEvent.builder()
                         .type("PATIENT_CREATED")
@@ -85,6 +106,7 @@ public class UserServiceImpl implements UserService {
                         .build());
             } else {
                 savedUser = userRepository.save(user);
+                userStatsService.recordCreated(List.of(savedUser));
             }
             return savedUser;
         } catch (Exception e) {
@@ -111,6 +133,46 @@ public class UserServiceImpl implements UserService {
         return userRepository.findByIsActiveFalseAndIsDeletedFalse();
     }
 
+    // keyset page: seeks past the cursor on the (createdAt, userId) index instead of
+    // counting and skipping rows, so every page costs the same whatever the table size
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<User> getUsersPage(String role, String status, LocalDate fromDate, LocalDate toDate,
+                                                 String cursor, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        Specification<User> spec = statusSpecification(status);
+        if (role != null && !role.isBlank()) {
+            String roleCode = role.toUpperCase().startsWith("ROLE_") ? role.toUpperCase() : "ROLE_" + role.toUpperCase();
+            spec = spec.and(UserSpecification.getByRole(roleCode));
+        }
+        if (fromDate != null) spec = spec.and(UserSpecification.createdFrom(fromDate));
+        if (toDate != null) spec = spec.and(UserSpecification.createdTo(toDate));
+        if (cursor != null && !cursor.isBlank()) spec = spec.and(UserSpecification.after(UserCursor.decode(cursor)));
+
+        // one extra row tells whether another page follows, without a count query
+        List<User> rows = userRepository.findBy(spec, query -> query.sortBy(PAGE_ORDER).limit(limit + 1).all());
+        boolean hasMore = rows.size() > limit;
+        List<User> page = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            User last = page.get(page.size() - 1);
+            nextCursor = new UserCursor(last.getCreatedAt(), last.getUserId()).encode();
+        }
+        return new CursorPageResponse<>(page, nextCursor, hasMore);
+    }
+
+    private Specification<User> statusSpecification(String status) {
+        if (status == null || status.isBlank()) return UserSpecification.notDeleted();
+        return switch (status.toLowerCase()) {
+            case "active" -> UserSpecification.isActive();
+            case "inactive" -> UserSpecification.isInactive();
+            case "deleted" -> UserSpecification.isDeleted();
+            default -> throw new IllegalArgumentException("Unknown status: " + status);
+        };
+    }
+
     @Override
     @Transactional
     public void activateUserByEmail(String email) {
@@ -127,8 +189,11 @@ public class UserServiceImpl implements UserService {
             throw new IllegalStateException("Cannot activate a deleted user: " + email);
         }
 
+        List<String> statsBefore = UserStatsService.buckets(target);
         target.setIsActive(true);
-        userRepository.save(target);
+        User activated = userRepository.save(target);
+        userStatsService.recordChanged(statsBefore, activated);
+        principalCache.invalidate(activated);
 
         auditPublisher.publish(AuditEvent.builder()
                 .type("ACCOUNT_ACTIVATED")
@@ -144,6 +209,13 @@ public class UserServiceImpl implements UserService {
         return userRepository.findById(id);
     }
 
+    @Override
+    public Optional<User> getUserByPhoneNumber(String phoneNumber) {
+        String phoneNumberIndex = blindIndex.phoneNumber(phoneNumber);
+        if (phoneNumberIndex == null) return Optional.empty();
+        return userRepository.findByPhoneNumberIndex(phoneNumberIndex);
+    }
+
     @Override
     public User updateOwnProfile(UUID id, UpdateUserProfileDTO dto) {
         User actor = securityUtil.getCurrentUser();
@@ -165,6 +237,7 @@ public class UserServiceImpl implements UserService {
         }
 
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(updatedUser);
 
         // build human-readable diff string
         String diffDetails = AuditDiffUtil.generateDiff(beforeUpdate, updatedUser);
@@ -184,6 +257,7 @@ public class UserServiceImpl implements UserService {
 
 
     @Override
+    @Transactional
     public User adminUpdateUser(UUID id, AdminUpdateUserDTO dto) {
         User actor = securityUtil.getCurrentUser();
         User user = userRepository.findById(id)
@@ -196,6 +270,7 @@ public class UserServiceImpl implements UserService {
         User beforeUpdate = new User();
         BeanUtils.copyProperties(user, beforeUpdate);
 
+        validateUniqueIdentityNumber(dto.getIdentityNumber(), user.getUserId());
         userMapper.updateUserFromAdminDto(dto, user);
 
         if (dto.getBirthdate() != null) {
@@ -203,6 +278,8 @@ public class UserServiceImpl implements UserService {
         }
 
         User updatedUser = userRepository.save(user);
+        userStatsService.recordChanged(UserStatsService.buckets(beforeUpdate), updatedUser);
+        principalCache.invalidate(updatedUser);
 
         // build human-readable diff string
         String diffDetails = AuditDiffUtil.generateDiff(beforeUpdate, updatedUser);
@@ -220,6 +297,7 @@ public class UserServiceImpl implements UserService {
         return updatedUser;
     }
 
+    @Transactional
     public void requestDeletion(UUID userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found."));
@@ -241,9 +319,12 @@ public class UserServiceImpl implements UserService {
                 .withNano(0)
                 .toLocalDateTime();
 
+        List<String> statsBefore = UserStatsService.buckets(user);
         user.setDeletedAt(deletionTime);
 
-        userRepository.save(user);
+        User saved = userRepository.save(user);
+        userStatsService.recordChanged(statsBefore, saved);
+        principalCache.invalidate(saved);
 
         auditPublisher.publish(AuditEvent.builder()
                 .type("USER_SELF_DELETION")
@@ -255,6 +336,7 @@ public class UserServiceImpl implements UserService {
                 .build());
     }
 
+    @Transactional
     public void adminDeleteUser(UUID userId) {
         User actor = securityUtil.getCurrentUser();
         User user = userRepository.findById(userId)
@@ -268,10 +350,13 @@ public class UserServiceImpl implements UserService {
             throw new IllegalStateException("User is already deleted.");
         }
 
+        List<String> statsBefore = UserStatsService.buckets(user);
         user.setIsDeleted(true);
         user.setIsActive(false);
         user.setDeletedAt(LocalDateTime.now());
-        userRepository.save(user);
+        User saved = userRepository.save(user);
+        userStatsService.recordChanged(statsBefore, saved);
+        principalCache.invalidate(saved);
 
         auditPublisher.publish(AuditEvent.builder()
                 .type("USER_DELETE")
@@ -287,6 +372,7 @@ public class UserServiceImpl implements UserService {
     public void deactivateAndAnonymizeExpiredUsers() {
         List<User> expired = userRepository.findAllByIsDeletedFalseAndDeletedAtBefore(LocalDateTime.now());
 
+        List<List<String>> statsBefore = expired.stream().map(UserStatsService::buckets).toList();
         for (User user : expired) {
             user.setIsActive(false);
             user.setIsDeleted(true);
@@ -302,6 +388,8 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.saveAll(expired);
+        userStatsService.recordChanged(statsBefore, expired);
+        expired.forEach(principalCache::invalidate);
 
         if (!expired.isEmpty()) {
             auditPublisher.publish(AuditEvent.builder()
@@ -343,11 +431,14 @@ public class UserServiceImpl implements UserService {
         }
 
         // bring them back
+        List<String> statsBefore = UserStatsService.buckets(user);
         user.setIsDeleted(false);
         user.setDeletedAt(null);
         user.setIsActive(true);
 
-        userRepository.save(user);
+        User saved = userRepository.save(user);
+        userStatsService.recordChanged(statsBefore, saved);
+        principalCache.invalidate(saved);
 
         auditPublisher.publish(AuditEvent.builder()
                 .type("USER_RESTORED")
@@ -375,12 +466,15 @@ public class UserServiceImpl implements UserService {
         BeanUtils.copyProperties(user, beforeUpdate);
 
         // apply updates
+        validateUniqueIdentityNumber(dto.getIdentityNumber(), user.getUserId());
         userMapper.updateUserFromAdminDto(dto, user);
         if (dto.getBirthdate() != null) {
             user.setAge(calculateAge(dto.getBirthdate()));
         }
 
         User updatedUser = userRepository.save(user);
+        userStatsService.recordChanged(UserStatsService.buckets(beforeUpdate), updatedUser);
+        principalCache.invalidate(updatedUser);
 
         // build diff
         String diffDetails = AuditDiffUtil.generateDiff(beforeUpdate, updatedUser);
@@ -399,18 +493,22 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Transactional
     public List<User> batchCreatePatientUsers(List<User> users) {
         User actor = securityUtil.getCurrentUser();
 
         List<User> validUsers = new ArrayList<>();
-        List<String> plainPasswords = new ArrayList<>();
         List<String> skippedUsers = new ArrayList<>();
+        Set<String> batchIdentityNumbers = new HashSet<>();
 
         for (User user : users) {
             try {
                 // validate unique email
                 validateUniqueEmail(user.getEmail());
+                // unique in the table and within this batch, the unique index would fail the whole saveAll
+                String identityIndex = validateUniqueIdentityNumber(user.getIdentityNumber(), null);
+                if (identityIndex != null && !batchIdentityNumbers.add(identityIndex)) {
+                    throw new IllegalArgumentException("Identity number repeated in this batch");
+                }
 
                 // calculate age if birthdate provided
                 if (user.getBirthdate() != null && user.getAge() == null) {
@@ -420,25 +518,34 @@ public class UserServiceImpl implements UserService {
                 // force patient role
                 user.setRoleCode("ROLE_PATIENT");
 
-                // prepare patient (verify + encode + generate password)
-                String plainPassword = preparePatientUser(user);
-
                 validUsers.add(user);
-                plainPasswords.add(plainPassword);
 
             } catch (Exception e) {
                 skippedUsers.add(user.getEmail() + " (" + e.getMessage() + ")");
             }
         }
 
-        // save all valid users at once
-        List<User> savedUsers = userRepository.saveAll(validUsers);
-
-        // send emails
-        for (int i = 0; i < savedUsers.size(); i++) {
-            emailService.sendPasswordEmail(savedUsers.get(i).getEmail(), plainPasswords.get(i));
+        // hash on the bcrypt pool before opening the transaction,
+        // so no connection is held while the cores are busy hashing
+        List<String> plainPasswords = validUsers.stream()
+                .map(user -> PasswordGenerator.generateRandomPassword())
+                .toList();
+        List<String> encodedPasswords = passwordHashPool.encodeAll(plainPasswords);
+        for (int i = 0; i < validUsers.size(); i++) {
+            validUsers.get(i).setPassword(encodedPasswords.get(i));
+            validUsers.get(i).setIsActive(true); // patient active right away
         }
 
+        // save all valid users at once (JDBC batched), their emails are enqueued in the same transaction
+        List<User> savedUsers = transactionTemplate.execute(status -> {
+            List<User> saved = userRepository.saveAll(validUsers);
+            userStatsService.recordCreated(saved);
+            for (int i = 0; i < saved.size(); i++) {
+                emailService.sendPasswordEmail(saved.get(i).getEmail(), plainPasswords.get(i));
+            }
+            return saved;
+        });
+
         // publish audit log for created users
         if (!savedUsers.isEmpty()) {
             String ids = savedUsers.stream()
@@ -470,9 +577,11 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public User createUserByPatientService(User user) {
         User actor = securityUtil.getCurrentUser();
         validateUniqueEmail(user.getEmail());
+        validateUniqueIdentityNumber(user.getIdentityNumber(), null);
 
         // Automatically calculate age if not provided
         if (user.getBirthdate() != null && user.getAge() == null) {
@@ -483,6 +592,7 @@ public class UserServiceImpl implements UserService {
 
         try {
             User savedUser = userRepository.save(user);
+            userStatsService.recordCreated(List.of(savedUser));
             emailService.sendPasswordEmail(savedUser.getEmail(), plainPassword);
             auditPublisher.publish(AuditEvent.builder()
                     .type("PATIENT_CREATED")
@@ -506,6 +616,20 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    // point lookup on the blind index, the column itself is encrypted. userId is the user being
+    // updated (null on create), it may keep its own number. Returns the index, null when no number
+    private String validateUniqueIdentityNumber(String identityNumber, UUID userId) {
+        String index = blindIndex.identityNumber(identityNumber);
+        if (index == null) return null;
+        boolean taken = userId == null
+                ? userRepository.existsByIdentityNumberIndex(index)
+                : userRepository.existsByIdentityNumberIndexAndUserIdNot(index, userId);
+        if (taken) {
+            throw new IllegalArgumentException("Identity number already exists");
+        }
+        return index;
+    }
+
     private String preparePatientUser(User user) {
 //        boolean exists = patientVerificationService.verifyPatientExists(user.getEmail());
 //        if (!exists) {
@@ -0,0 +1,77 @@
+package com.example.iam_service.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+// Keyed HMAC-SHA256 of a normalized value, stored next to the ciphertext of an encrypted
+// column so equality lookups hit a B-tree index instead of decrypting every row.
+// Each column hashes under its own prefix, equal values in two columns do not match.
+@Component
+public class BlindIndex {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final ThreadLocal<Mac> mac;
+
+    public BlindIndex(
+            @Value("${app.blind-index.key:}") String key,
+            @Value("${APP_ENCRYPTION_KEY:}") String encryptionKey,
+            @Value("${app.field-crypto.active-key-id:0}") String activeKeyId) {
+        SecretKeySpec spec = new SecretKeySpec(resolveKey(key, encryptionKey, activeKeyId), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(spec);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+        });
+    }
+
+    public String phoneNumber(String value) {
+        if (value == null) return null;
+        return hash("phone:", value.replaceAll("[\\s.()-]", ""));
+    }
+
+    public String identityNumber(String value) {
+        if (value == null) return null;
+        return hash("identity:", value.replaceAll("\\s", "").toUpperCase());
+    }
+
+    private String hash(String column, String normalized) {
+        if (normalized.isEmpty()) return null;
+        byte[] digest = mac.get().doFinal((column + normalized).getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    private static byte[] resolveKey(String key, String encryptionKey, String activeKeyId) {
+        if (key != null && !key.isBlank()) {
+            if (key.length() < 32) {
+                throw new IllegalStateException("app.blind-index.key must be at least 32 characters long");
+            }
+            return key.getBytes(StandardCharsets.UTF_8);
+        }
+
+        // no dedicated key: derive one from the encryption key, never hash with it directly.
+        // Not once a key rotation started, APP_ENCRYPTION_KEY has to be retired at its end
+        if (activeKeyId != null && !activeKeyId.isBlank() && !FieldCrypto.LEGACY_KEY_ID.equals(activeKeyId.trim())) {
+            throw new IllegalStateException("APP_BLIND_INDEX_KEY must be set before rotating the encryption key");
+        }
+        if (encryptionKey == null || encryptionKey.isBlank()) {
+            throw new IllegalStateException("APP_BLIND_INDEX_KEY or APP_ENCRYPTION_KEY must be set in environment variables");
+        }
+        try {
+            Mac derive = Mac.getInstance(ALGORITHM);
+            derive.init(new SecretKeySpec(encryptionKey.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            return derive.doFinal("iam-blind-index".getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.iam_service.util;
+
+import com.example.iam_service.entity.User;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+
+// keeps the blind index columns of a User in step with its encrypted values.
+// Created through Spring's bean container by Hibernate, hence the injected BlindIndex
+@RequiredArgsConstructor
+public class BlindIndexListener {
+
+    private final BlindIndex blindIndex;
+
+    @PrePersist
+    @PreUpdate
+    public void refresh(User user) {
+        user.setPhoneNumberIndex(blindIndex.phoneNumber(user.getPhoneNumber()));
+        user.setIdentityNumberIndex(blindIndex.identityNumber(user.getIdentityNumber()));
+    }
+}
@@ -2,19 +2,24 @@ package com.example.iam_service.util;
 
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
 
+// created through Spring's bean container by Hibernate, hence the injected FieldCrypto
 @Converter
+@RequiredArgsConstructor
 public class EncryptDecryptConverter implements AttributeConverter<String, String> {
 
+    private final FieldCrypto fieldCrypto;
+
     @Override
     public String convertToDatabaseColumn(String attribute) {
         if (attribute == null) return null;
-        return EncryptionUtil.encrypt(attribute);
+        return fieldCrypto.encrypt(attribute);
     }
 
     @Override
     public String convertToEntityAttribute(String dbData) {
         if (dbData == null) return null;
-        return EncryptionUtil.decrypt(dbData);
+        return fieldCrypto.decrypt(dbData);
     }
 }
@@ -0,0 +1,218 @@
+package com.example.iam_service.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+// Column encryption for EncryptDecryptConverter. Keys are read once and every thread
+// keeps its own Cipher, a field costs one init + doFinal instead of a provider lookup.
+// Key ring: APP_ENCRYPTION_KEY is key id "0", app.field-crypto.keys adds more, writes use
+// the active one and store its id, "v2:<id>:" + base64(iv | ciphertext | tag), the id is
+// also the GCM associated data. Older formats are still read with key "0":
+// "v1:" + base64(iv | ciphertext | tag), and unprefixed AES/ECB from before GCM.
+// FieldKeyRotationJob moves existing rows onto the active key, old formats included, so
+// key "0" can be retired once the job reports complete (see application.yml).
+@Slf4j
+@Component
+public class FieldCrypto {
+    public static final String VERSION_PREFIX = "v2:";
+    public static final String LEGACY_KEY_ID = "0";
+
+    private static final String V1_PREFIX = "v1:";
+    private static final Pattern KEY_ID = Pattern.compile("[A-Za-z0-9-]{1,16}");
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final Map<String, SecretKeySpec> keys;
+    private final String activeKeyId;
+    private final SecretKeySpec activeKey;
+    private final String activePrefix;
+    private final ThreadLocal<Cipher> gcm;
+    private final ThreadLocal<Cipher> ecb;
+    private final ThreadLocal<SecureRandom> random = ThreadLocal.withInitial(SecureRandom::new);
+    private final Counter plaintextNotBase64;
+    private final Counter plaintextNotEcb;
+    private final AtomicBoolean plaintextWarned = new AtomicBoolean();
+
+    public FieldCrypto(
+            @Value("${APP_ENCRYPTION_KEY:}") String encryptionKey,
+            @Value("${app.field-crypto.keys:}") String keyRing,
+            @Value("${app.field-crypto.active-key-id:0}") String activeKeyId,
+            MeterRegistry meterRegistry) {
+        this.keys = resolveKeys(encryptionKey, keyRing);
+        this.activeKeyId = activeKeyId == null || activeKeyId.isBlank() ? LEGACY_KEY_ID : activeKeyId.trim();
+        this.activeKey = keys.get(this.activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalStateException("Active encryption key id " + this.activeKeyId + " is not configured");
+        }
+        this.activePrefix = VERSION_PREFIX + this.activeKeyId + ":";
+        this.gcm = ThreadLocal.withInitial(() -> cipher("AES/GCM/NoPadding"));
+        this.ecb = ThreadLocal.withInitial(() -> cipher("AES/ECB/PKCS5Padding"));
+        this.plaintextNotBase64 = plaintextCounter(meterRegistry, "not-base64");
+        this.plaintextNotEcb = plaintextCounter(meterRegistry, "not-ecb");
+    }
+
+    // reads that returned the stored value as is, should reach zero once every row is rotated
+    private static Counter plaintextCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("iam.crypto.legacy.plaintext")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    public String activeKeyId() {
+        return activeKeyId;
+    }
+
+    // every value written under the active key starts with this
+    public String activePrefix() {
+        return activePrefix;
+    }
+
+    public boolean isCurrent(String stored) {
+        return stored == null || stored.startsWith(activePrefix);
+    }
+
+    public String encrypt(String value) {
+        if (value == null) return null;
+
+        byte[] iv = new byte[IV_LENGTH];
+        random.get().nextBytes(iv);
+        try {
+            Cipher cipher = gcm.get();
+            cipher.init(Cipher.ENCRYPT_MODE, activeKey, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(activeKeyId.getBytes(StandardCharsets.UTF_8));
+            byte[] plain = value.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer out = ByteBuffer.allocate(IV_LENGTH + cipher.getOutputSize(plain.length));
+            out.put(iv);
+            cipher.doFinal(ByteBuffer.wrap(plain), out);
+            return activePrefix + Base64.getEncoder().encodeToString(out.array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error while encrypting", e);
+        }
+    }
+
+    public String decrypt(String value) {
+        if (value == null) return null;
+        if (value.startsWith(VERSION_PREFIX)) {
+            int separator = value.indexOf(':', VERSION_PREFIX.length());
+            if (separator < 0) throw new IllegalStateException("Encrypted value has no key id");
+            String keyId = value.substring(VERSION_PREFIX.length(), separator);
+            return decryptGcm(key(keyId), keyId, value.substring(separator + 1));
+        }
+        if (value.startsWith(V1_PREFIX)) {
+            return decryptGcm(key(LEGACY_KEY_ID), null, value.substring(V1_PREFIX.length()));
+        }
+        return decryptLegacy(value);
+    }
+
+    private String decryptGcm(SecretKeySpec key, String keyId, String encoded) {
+        try {
+            byte[] data = Base64.getDecoder().decode(encoded);
+            Cipher cipher = gcm.get();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, IV_LENGTH));
+            if (keyId != null) cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            return new String(cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH), StandardCharsets.UTF_8);
+        } catch (AEADBadTagException e) {
+            // wrong key or tampered row, never hand it out as plaintext
+            throw new IllegalStateException("Encrypted value failed authentication", e);
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            throw new IllegalStateException("Error while decrypting", e);
+        }
+    }
+
+    private String decryptLegacy(String value) {
+        byte[] decoded;
+        try {
+            decoded = Base64.getDecoder().decode(value);
+        } catch (IllegalArgumentException e) {
+            return plaintext(value, plaintextNotBase64); // not base64, a plaintext row written before encryption
+        }
+        try {
+            Cipher cipher = ecb.get();
+            cipher.init(Cipher.DECRYPT_MODE, key(LEGACY_KEY_ID));
+            return new String(cipher.doFinal(decoded), StandardCharsets.UTF_8);
+        } catch (IllegalBlockSizeException | BadPaddingException e) {
+            return plaintext(value, plaintextNotEcb); // base64-looking plaintext
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error while decrypting", e);
+        }
+    }
+
+    // could also be a corrupted or foreign ciphertext, hence the meter. Warns once, never with the value
+    private String plaintext(String value, Counter counter) {
+        counter.increment();
+        if (plaintextWarned.compareAndSet(false, true)) {
+            log.warn("Unencrypted legacy value read from an encrypted column, "
+                    + "further reads are counted in iam.crypto.legacy.plaintext");
+        }
+        return value;
+    }
+
+    private SecretKeySpec key(String keyId) {
+        SecretKeySpec key = keys.get(keyId);
+        if (key == null) {
+            // a retired key still has rows under it, keep it in the ring until rotation is done
+            throw new IllegalStateException("Encryption key id " + keyId + " is not configured");
+        }
+        return key;
+    }
+
+    private static Cipher cipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(transformation + " not available", e);
+        }
+    }
+
+    // "id:key,id:key", keys of 16, 24 or 32 characters (AES-128/192/256)
+    private static Map<String, SecretKeySpec> resolveKeys(String encryptionKey, String keyRing) {
+        Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+        if (encryptionKey != null && !encryptionKey.isBlank()) {
+            if (encryptionKey.length() != 16) {
+                throw new IllegalStateException("APP_ENCRYPTION_KEY must be 16 characters long for AES-128");
+            }
+            keys.put(LEGACY_KEY_ID, new SecretKeySpec(encryptionKey.getBytes(StandardCharsets.UTF_8), "AES"));
+        }
+
+        if (keyRing != null && !keyRing.isBlank()) {
+            for (String entry : keyRing.split(",")) {
+                int separator = entry.indexOf(':');
+                String id = separator < 0 ? "" : entry.substring(0, separator).trim();
+                String key = separator < 0 ? "" : entry.substring(separator + 1).trim();
+                if (!KEY_ID.matcher(id).matches()) {
+                    throw new IllegalStateException("Invalid encryption key id in app.field-crypto.keys: " + id);
+                }
+                if (key.length() != 16 && key.length() != 24 && key.length() != 32) {
+                    throw new IllegalStateException("Encryption key " + id + " must be 16, 24 or 32 characters long");
+                }
+                if (keys.putIfAbsent(id, new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "AES")) != null) {
+                    throw new IllegalStateException("Duplicate encryption key id " + id);
+                }
+            }
+        }
+
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("APP_ENCRYPTION_KEY is not set in environment variables");
+        }
+        return keys;
+    }
+}
@@ -2,6 +2,9 @@ package com.example.iam_service.util;
 
 
 import com.example.iam_service.entity.User;
+import com.example.iam_service.repository.UserCredentials;
+import com.example.iam_service.security.JwtKeyRing;
+import com.example.iam_service.security.TokenRevocationService;
 import com.example.iam_service.security.UserGrantAuthority;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
@@ -12,39 +15,93 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.*;
 
 @Component
 public class JwtUtil {
     private final SecretKey key;
+    private final JwtVerifier verifier;
     private final long expiration = 2 * 60 * 60 * 1000;
     private final UserGrantAuthority grantAuthority;
-
-
-    public JwtUtil(@Value("${jwt.secret}") String secret, UserGrantAuthority grantAuthority) {
+    private final JwtKeyRing keyRing;
+    private final TokenRevocationService tokenRevocation;
+    // full: legacy token with profile claims (PII), compact: sub, role, prv, ver, iat, exp only
+    private final boolean compactProfile;
+
+
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   UserGrantAuthority grantAuthority,
+                   @Value("${jwt.profile:full}") String profile,
+                   JwtKeyRing keyRing,
+                   TokenRevocationService tokenRevocation,
+                   @Value("${jwt.hmac-transition:false}") boolean hmacTransition) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.grantAuthority = grantAuthority;
+        this.keyRing = keyRing;
+        this.tokenRevocation = tokenRevocation;
+        this.compactProfile = "compact".equalsIgnoreCase(profile);
+
+        // ES256 tokens carry a kid, tokens without one are legacy HMAC tokens, accepted only
+        // while signing with HMAC or during the transition to the key ring
+        boolean acceptHmac = !keyRing.isEnabled() || hmacTransition;
+        this.verifier = new JwtVerifier(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                if (header.getKeyId() != null) return keyRing.publicKey(header.getKeyId());
+                if (!acceptHmac) throw new UnsupportedJwtException("Token without kid is not accepted");
+                return key;
+            }
+        });
     }
 
     public String generateToken(User user) {
-        Date now = new Date();
-        Date expired = new Date(now.getTime() + expiration);
-        Map<String, String> payload = setClaims(user);
+        Map<String, String> payload = compactProfile ? null : setClaims(user);
+        return buildToken(user.getUserId(), user.getRoleCode(),
+                grantAuthority.getPrivilegeMaskByUser(user), user.getVersion(), payload);
+    }
 
-        List<GrantedAuthority> authorities = grantAuthority.getAuthorityByUser(user);
+    // compact profile straight from the credential projection, no profile columns needed
+    public String generateToken(UserCredentials credentials) {
+        if (!compactProfile) {
+            throw new IllegalStateException("The full token profile needs the user profile");
+        }
+        return buildToken(credentials.userId(), credentials.roleCode(),
+                grantAuthority.getPrivilegeMaskByRole(credentials.roleCode()), credentials.version(), null);
+    }
+
+    // full profile tokens carry the decrypted profile fields
+    public boolean needsProfile() {
+        return !compactProfile;
+    }
 
-        // transfer authority object to string name
-        List<String> authorityNames = authorities.stream()
-                .map(GrantedAuthority::getAuthority)
-                .toList();
+    private String buildToken(UUID userId, String roleCode, long privilegeMask, Long version,
+                              Map<String, String> payload) {
+        Date now = new Date();
+        Date expired = new Date(now.getTime() + expiration);
 
-        return Jwts.builder()
-                .subject(user.getUserId().toString())
+        JwtBuilder builder = Jwts.builder()
+                .subject(userId.toString())
+                .id(UUID.randomUUID().toString()) // jti, used to revoke the token on logout
                 .expiration(expired)
                 .issuedAt(now)
-                .claims(payload)
-                .signWith(key)
-                .compact();
+                .claim("role", roleCode)
+                .claim("prv", privilegeMask) // privileges bitmask for downstream checks
+                .claim("ver", version != null ? version : 0L);
+
+        if (payload != null) {
+            builder.claims(payload);
+        }
+
+        if (keyRing.isEnabled()) {
+            JwtKeyRing.SigningKey signingKey = keyRing.signingKey();
+            builder.header().keyId(signingKey.kid()).and()
+                    .signWith(signingKey.privateKey(), Jwts.SIG.ES256);
+        } else {
+            builder.signWith(key);
+        }
+
+        return builder.compact();
     }
 
     public String getSubject(String token) {
@@ -70,21 +127,25 @@ public class JwtUtil {
         return grantAuthority.getAuthorityByUser(user);
     }
 
+    // usable token: valid signature, not expired and not revoked
     public String validate(String token) {
+        JwtVerifier.TokenClaims claims = verify(token);
+        if (tokenRevocation.isRevoked(claims.jti())) {
+            throw new JwtException("JWT validation failed: token revoked");
+        }
+        return claims.subject();
+    }
+
+    public JwtVerifier.TokenClaims verify(String token) {
         try {
-            Claims payload = parseClaim(token);
-            return payload.getSubject();
+            return verifier.verify(token);
         } catch (Exception e) {
             throw new JwtException("JWT validation failed: " + e.getMessage());
         }
     }
 
     private Claims parseClaim(String token) {
-        return Jwts.parser()
-                .verifyWith(key)  // verify signature of the given token
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return verifier.parseClaims(token);
     }
 
     private Map<String, String> setClaims(User user) {
@@ -0,0 +1,113 @@
+package com.example.iam_service.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Locator;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+
+// Verifies signed tokens against one key. The parser is immutable and thread-safe,
+// so it is built once and shared instead of per token.
+public final class JwtVerifier {
+
+    // typed view of the claims every consumer reads
+    // privileges: bitmask of the role privileges (prv claim), 0 when absent
+    // jti: token id used for revocation, null for tokens issued before it was added
+    public record TokenClaims(String subject, String jti, String role, long privileges,
+                              long issuedAt, long expiresAt, Claims claims) {
+    }
+
+    private final JwtParser parser;
+
+    public JwtVerifier(SecretKey key) {
+        this.parser = Jwts.parser()
+                .verifyWith(key)  // verify signature of the given token
+                .build();
+    }
+
+    // key picked per token from its header, ex: by kid
+    public JwtVerifier(Locator<Key> keyLocator) {
+        this.parser = Jwts.parser()
+                .keyLocator(keyLocator)
+                .build();
+    }
+
+    public TokenClaims verify(String token) {
+        Claims claims = parseClaims(token);
+        return new TokenClaims(
+                claims.getSubject(),
+                claims.getId(),
+                claims.get("role", String.class),
+                claims.get("prv") instanceof Number prv ? prv.longValue() : 0L,
+                toMillis(claims.getIssuedAt()),
+                toMillis(claims.getExpiration()),
+                claims);
+    }
+
+    public Claims parseClaims(String token) {
+        precheck(token);
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    // Cheap rejection of malformed, unsigned (or not HMAC/ECDSA) or expired tokens before
+    // paying for the MAC and the full JSON parse.
+    static void precheck(String token) {
+        if (token == null) {
+            throw new MalformedJwtException("Token is empty");
+        }
+
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        if (first <= 0 || second <= first + 1 || second == token.length() - 1
+                || token.indexOf('.', second + 1) >= 0) {
+            throw new MalformedJwtException("Token is not a signed JWT");
+        }
+
+        String header = decode(token, 0, first).replace(" ", "");
+        if (!header.contains("\"alg\":\"HS") && !header.contains("\"alg\":\"ES")) {
+            throw new UnsupportedJwtException("Unsupported token algorithm");
+        }
+
+        long exp = readNumber(decode(token, first + 1, second), "\"exp\":");
+        if (exp > 0 && exp * 1000 <= System.currentTimeMillis()) {
+            throw new ExpiredJwtException(null, null, "Token expired");
+        }
+    }
+
+    private static String decode(String token, int from, int to) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(token.substring(from, to)), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("Token is not base64url encoded");
+        }
+    }
+
+    // returns -1 when the claim is missing, the parser then decides
+    private static long readNumber(String json, String name) {
+        int i = json.indexOf(name);
+        if (i < 0) return -1;
+
+        i += name.length();
+        while (i < json.length() && json.charAt(i) == ' ') i++;
+
+        long value = 0;
+        int start = i;
+        while (i < json.length() && i - start < 18 && Character.isDigit(json.charAt(i))) {
+            value = value * 10 + (json.charAt(i) - '0');
+            i++;
+        }
+        return i > start ? value : -1;
+    }
+
+    private static long toMillis(Date date) {
+        return date != null ? date.getTime() : 0L;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.iam_service.util;
+
+import com.example.iam_service.entity.Enum.Privileges;
+
+import java.util.EnumSet;
+
+// Packs a set of privileges into a long, one bit per Privileges ordinal.
+// Masks travel outside this service, so new privileges must only be appended to the enum.
+public final class PrivilegeMask {
+
+    static {
+        if (Privileges.values().length > Long.SIZE) {
+            throw new IllegalStateException("Privileges no longer fit in a 64-bit mask");
+        }
+    }
+
+    private PrivilegeMask() {
+    }
+
+    public static long of(Iterable<Privileges> privileges) {
+        long mask = 0L;
+        if (privileges == null) return mask;
+        for (Privileges privilege : privileges) {
+            mask |= bit(privilege);
+        }
+        return mask;
+    }
+
+    public static long of(Privileges... privileges) {
+        long mask = 0L;
+        if (privileges == null) return mask;
+        for (Privileges privilege : privileges) {
+            mask |= bit(privilege);
+        }
+        return mask;
+    }
+
+    public static long bit(Privileges privilege) {
+        return 1L << privilege.ordinal();
+    }
+
+    public static boolean containsAll(long granted, long required) {
+        return (granted & required) == required;
+    }
+
+    public static boolean containsAny(long granted, long required) {
+        return (granted & required) != 0L;
+    }
+
+    public static EnumSet<Privileges> toSet(long mask) {
+        EnumSet<Privileges> privileges = EnumSet.noneOf(Privileges.class);
+        for (Privileges privilege : Privileges.values()) {
+            if ((mask & bit(privilege)) != 0L) {
+                privileges.add(privilege);
+            }
+        }
+        return privileges;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.iam_service.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Failed attempts per key shared by every instance through Redis, counted like the in-memory
+// limiters: attempts less than a window apart add up, a quiet window starts over at one,
+// the max-th attempt bans the key for banMillis.
+// Recording checks the ban and counts in one Lua script, a single round trip. The script
+// publishes every new ban and each instance keeps the bans in a local map until they end,
+// so isBanned never asks Redis. Bans already set are loaded at startup and reloaded
+// periodically for messages missed while disconnected. Redis failures fail open.
+@Slf4j
+public final class RedisAttemptLimiter implements MessageListener {
+
+    // KEYS: attempts, ban   ARGV: now, max attempts, window millis, ban millis, channel, key
+    // returns the ban end in epoch millis, 0 when not banned
+    public static final RedisScript<Long> RECORD = RedisScript.of("""
+            local now = tonumber(ARGV[1])
+            local ban = tonumber(redis.call('GET', KEYS[2]))
+            if ban and ban > now then return ban end
+            local attempts = redis.call('HMGET', KEYS[1], 'count', 'last')
+            local count = tonumber(attempts[1]) or 0
+            local last = tonumber(attempts[2])
+            if not last or now - last >= tonumber(ARGV[3]) then count = 0 end
+            count = count + 1
+            if count >= tonumber(ARGV[2]) then
+              local banUntil = now + tonumber(ARGV[4])
+              redis.call('SET', KEYS[2], banUntil, 'PX', ARGV[4])
+              redis.call('DEL', KEYS[1])
+              redis.call('PUBLISH', ARGV[5], banUntil .. ' ' .. ARGV[6])
+              return banUntil
+            end
+            redis.call('HSET', KEYS[1], 'count', count, 'last', now)
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return 0
+            """, Long.class);
+
+    private static final int MAX_CACHED_BANS = 10_000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final String prefix;
+    private final String channel;
+    private final int maxAttempts;
+    private final long windowMillis;
+    private final long banMillis;
+
+    // key -> ban end in epoch millis
+    private final ConcurrentMap<String, Long> bans = new ConcurrentHashMap<>();
+    // a ban did not fit the map, misses have to be confirmed in Redis until the next reload
+    private volatile boolean overflowed;
+
+    public RedisAttemptLimiter(StringRedisTemplate redisTemplate, String prefix, int maxAttempts,
+                               long windowMillis, long banMillis) {
+        this.redisTemplate = redisTemplate;
+        this.prefix = prefix;
+        this.channel = prefix + "bans";
+        this.maxAttempts = maxAttempts;
+        this.windowMillis = windowMillis;
+        this.banMillis = banMillis;
+    }
+
+    public String channel() {
+        return channel;
+    }
+
+    // ban end in epoch millis, 0 when the key is not banned
+    public long banUntil(String key) {
+        long now = System.currentTimeMillis();
+        Long banUntil = bans.get(key);
+        if (banUntil != null) {
+            if (now < banUntil) return banUntil;
+            bans.remove(key, banUntil);
+        }
+        if (!overflowed) return 0;
+
+        try {
+            String value = redisTemplate.opsForValue().get(banKey(key));
+            long stored = value != null ? Long.parseLong(value) : 0;
+            return stored > now ? stored : 0;
+        } catch (RuntimeException e) {
+            log.warn("Rate limit lookup failed for {}, allowing: {}", prefix, e.getMessage());
+            return 0;
+        }
+    }
+
+    // counts one attempt, returns the ban end when the key is (now) banned, else 0
+    public long record(String key) {
+        long now = System.currentTimeMillis();
+        try {
+            Long banUntil = redisTemplate.execute(RECORD, List.of(attemptsKey(key), banKey(key)),
+                    String.valueOf(now), String.valueOf(maxAttempts), String.valueOf(windowMillis),
+                    String.valueOf(banMillis), channel, key);
+            if (banUntil == null || banUntil <= now) return 0;
+            cacheBan(key, banUntil, now);
+            return banUntil;
+        } catch (RuntimeException e) {
+            log.warn("Rate limit update failed for {}: {}", prefix, e.getMessage());
+            return 0;
+        }
+    }
+
+    public void reset(String key) {
+        try {
+            redisTemplate.delete(attemptsKey(key));
+        } catch (RuntimeException e) {
+            log.warn("Rate limit reset failed for {}: {}", prefix, e.getMessage());
+        }
+    }
+
+    // pub/sub: "<ban end> <key>", published by the script on any instance
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(' ');
+        try {
+            cacheBan(body.substring(separator + 1), Long.parseLong(body.substring(0, separator)),
+                    System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.warn("Malformed ban message on {}: {}", channel, e.getMessage());
+        }
+    }
+
+    // the bans currently in Redis, they expire there when they end
+    public void loadBans() {
+        long now = System.currentTimeMillis();
+        String banPrefix = banKey("");
+        boolean full = false;
+        try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions().match(banPrefix + "*").count(1000).build())) {
+            while (keys.hasNext()) {
+                String banKey = keys.next();
+                String value = redisTemplate.opsForValue().get(banKey);
+                if (value != null && cacheBan(banKey.substring(banPrefix.length()), Long.parseLong(value), now) == 0) {
+                    full = true;
+                }
+            }
+            overflowed = full;
+        } catch (RuntimeException e) {
+            log.warn("Loading bans for {} failed: {}", prefix, e.getMessage());
+        }
+    }
+
+    // returns banUntil, 0 when it ended already or did not fit
+    private long cacheBan(String key, long banUntil, long now) {
+        if (banUntil <= now) return 0;
+        if (bans.size() >= MAX_CACHED_BANS && !bans.containsKey(key)) {
+            bans.values().removeIf(end -> end <= now);
+            if (bans.size() >= MAX_CACHED_BANS) {
+                overflowed = true;
+                return 0;
+            }
+        }
+        bans.merge(key, banUntil, Math::max);
+        return banUntil;
+    }
+
+    private String attemptsKey(String key) {
+        return prefix + key;
+    }
+
+    private String banKey(String key) {
+        return prefix + "ban:" + key;
+    }
+}
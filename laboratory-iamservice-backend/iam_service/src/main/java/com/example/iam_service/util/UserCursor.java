@@ -0,0 +1,31 @@
+package com.example.iam_service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+// Seek position of the user listing, the (createdAt, userId) of the last row on a page.
+// Handed out as an opaque base64url string so clients do not build cursors themselves.
+public record UserCursor(LocalDate createdAt, UUID userId) {
+    private static final String NO_DATE = "-";
+
+    public String encode() {
+        String raw = (createdAt != null ? createdAt.toString() : NO_DATE) + "|" + userId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static UserCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            String date = raw.substring(0, separator);
+            return new UserCursor(
+                    NO_DATE.equals(date) ? null : LocalDate.parse(date),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,11 +1,68 @@
 package com.example.iam_service.util;
 
 import com.example.iam_service.entity.User;
+import jakarta.persistence.criteria.Path;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDate;
+import java.util.UUID;
+
 public class UserSpecification {
     public static Specification<User> getByRole(String roleCode)
     {
         return ((root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("roleCode"),roleCode));
     }
+
+    public static Specification<User> notDeleted()
+    {
+        return ((root, query, criteriaBuilder) -> criteriaBuilder.isFalse(root.get("isDeleted")));
+    }
+
+    public static Specification<User> isActive()
+    {
+        return notDeleted().and((root, query, criteriaBuilder) -> criteriaBuilder.isTrue(root.get("isActive")));
+    }
+
+    public static Specification<User> isInactive()
+    {
+        return notDeleted().and((root, query, criteriaBuilder) -> criteriaBuilder.isFalse(root.get("isActive")));
+    }
+
+    // same rows as findAllByIsDeletedTrueOrDeletedAtIsNotNull
+    public static Specification<User> isDeleted()
+    {
+        return ((root, query, criteriaBuilder) -> criteriaBuilder.or(
+                criteriaBuilder.isTrue(root.get("isDeleted")),
+                criteriaBuilder.isNotNull(root.get("deletedAt"))));
+    }
+
+    public static Specification<User> createdFrom(LocalDate fromDate)
+    {
+        return ((root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), fromDate));
+    }
+
+    public static Specification<User> createdTo(LocalDate toDate)
+    {
+        return ((root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get("createdAt"), toDate));
+    }
+
+    // keyset predicate for ORDER BY createdAt DESC, userId DESC: the rows after the cursor.
+    // Postgres sorts NULL first in DESC order, so null createdAt rows come before dated ones.
+    public static Specification<User> after(UserCursor cursor)
+    {
+        return ((root, query, criteriaBuilder) -> {
+            Path<LocalDate> createdAt = root.get("createdAt");
+            Path<UUID> userId = root.get("userId");
+            if (cursor.createdAt() == null) {
+                return criteriaBuilder.or(
+                        criteriaBuilder.isNotNull(createdAt),
+                        criteriaBuilder.lessThan(userId, cursor.userId()));
+            }
+            return criteriaBuilder.or(
+                    criteriaBuilder.lessThan(createdAt, cursor.createdAt()),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(createdAt, cursor.createdAt()),
+                            criteriaBuilder.lessThan(userId, cursor.userId())));
+        });
+    }
 }
@@ -0,0 +1,94 @@
+package com.example.iam_service.benchmark;
+
+import com.example.iam_service.util.FieldCrypto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Per-row cost of the encrypted user columns (phoneNumber, identityNumber, address):
+// old EncryptionUtil (key spec + Cipher.getInstance per field, ECB) vs FieldCrypto
+// (cached key, per-thread Cipher, GCM). A list endpoint page pays decodeRow per user.
+// Run: mvn test-compile exec:java -Dexec.classpathScope=test
+//      -Dexec.mainClass=com.example.iam_service.benchmark.FieldCryptoBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldCryptoBenchmark {
+
+    private static final String KEY = "0123456789abcdef";
+
+    private final String[] row = {"0901234567", "079203001234", "12 Nguyen Hue, District 1, Ho Chi Minh City"};
+
+    private FieldCrypto fieldCrypto;
+    private String[] legacyRow;
+    private String[] gcmRow;
+
+    @Setup
+    public void setUp() throws Exception {
+        fieldCrypto = new FieldCrypto(KEY, "", "0", new SimpleMeterRegistry());
+        legacyRow = new String[row.length];
+        gcmRow = new String[row.length];
+        for (int i = 0; i < row.length; i++) {
+            legacyRow[i] = legacyEncrypt(row[i]);
+            gcmRow[i] = fieldCrypto.encrypt(row[i]);
+        }
+    }
+
+    @Benchmark
+    public void encodeRowPerCallCipher(Blackhole bh) throws Exception {
+        for (String value : row) bh.consume(legacyEncrypt(value));
+    }
+
+    @Benchmark
+    public void encodeRowFieldCrypto(Blackhole bh) {
+        for (String value : row) bh.consume(fieldCrypto.encrypt(value));
+    }
+
+    @Benchmark
+    public void decodeRowPerCallCipher(Blackhole bh) throws Exception {
+        for (String value : legacyRow) bh.consume(legacyDecrypt(value));
+    }
+
+    @Benchmark
+    public void decodeRowFieldCrypto(Blackhole bh) {
+        for (String value : gcmRow) bh.consume(fieldCrypto.decrypt(value));
+    }
+
+    // rows not yet rewritten, through the ECB read path
+    @Benchmark
+    public void decodeLegacyRowFieldCrypto(Blackhole bh) {
+        for (String value : legacyRow) bh.consume(fieldCrypto.decrypt(value));
+    }
+
+    // the old EncryptionUtil, minus the System.getenv lookup
+    private static String legacyEncrypt(String value) throws Exception {
+        SecretKeySpec key = new SecretKeySpec(KEY.getBytes(), "AES");
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, key);
+        return Base64.getEncoder().encodeToString(cipher.doFinal(value.getBytes()));
+    }
+
+    private static String legacyDecrypt(String value) throws Exception {
+        SecretKeySpec key = new SecretKeySpec(KEY.getBytes(), "AES");
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.DECRYPT_MODE, key);
+        return new String(cipher.doFinal(Base64.getDecoder().decode(value)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FieldCryptoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.iam_service.benchmark;
+
+import com.example.iam_service.util.JwtVerifier;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Verification throughput: parser built per token (old JwtUtil.parseClaim)
+// vs the shared JwtVerifier.
+// Run: mvn test-compile exec:java -Dexec.classpathScope=test
+//      -Dexec.mainClass=com.example.iam_service.benchmark.JwtVerifierBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerifierBenchmark {
+
+    private SecretKey key;
+    private JwtVerifier verifier;
+    private String token;
+    private String expiredToken;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor("benchmark-secret-key-that-is-long-enough".getBytes(StandardCharsets.UTF_8));
+        verifier = new JwtVerifier(key);
+
+        long now = System.currentTimeMillis();
+        token = Jwts.builder()
+                .subject("8f1c6a9e-7a0b-4c55-9a53-2f8f6e0c1d2b")
+                .claim("role", "ROLE_ADMIN")
+                .claim("email", "admin@example.com")
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + 3_600_000))
+                .signWith(key)
+                .compact();
+        expiredToken = Jwts.builder()
+                .subject("8f1c6a9e-7a0b-4c55-9a53-2f8f6e0c1d2b")
+                .expiration(new Date(now - 60_000))
+                .signWith(key)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims parserPerToken() {
+        return parserPerToken(token);
+    }
+
+    @Benchmark
+    public JwtVerifier.TokenClaims sharedVerifier() {
+        return verifier.verify(token);
+    }
+
+    @Benchmark
+    public Object parserPerTokenExpired() {
+        try {
+            return parserPerToken(expiredToken);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object sharedVerifierExpired() {
+        try {
+            return verifier.verify(expiredToken);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    private Claims parserPerToken(String jwt) {
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(jwt).getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerifierBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.iam_service.benchmark;
+
+import com.example.iam_service.security.PasswordHashPool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Hashing time of a batch patient import at bcrypt cost 10: serial encode
+// (old batchCreatePatientUsers) vs PasswordHashPool, per batch size and pool size.
+// Expect the pool to scale with threads up to the physical core count and flatten after.
+// Run: mvn test-compile exec:java -Dexec.classpathScope=test
+//      -Dexec.mainClass=com.example.iam_service.benchmark.PasswordHashBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({"100", "500", "1000"})
+    public int batchSize;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private BCryptPasswordEncoder encoder;
+    private PasswordHashPool pool;
+    private List<String> passwords;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder();
+        pool = new PasswordHashPool(encoder, new SimpleMeterRegistry(), threads, batchSize);
+        passwords = IntStream.range(0, batchSize)
+                .mapToObj(i -> "Patient#" + i + "-temp")
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<String> serial() {
+        return passwords.stream().map(encoder::encode).toList();
+    }
+
+    @Benchmark
+    public List<String> pooled() {
+        return pool.encodeAll(passwords);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PasswordHashBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.iam_service.benchmark;
+
+import com.example.iam_service.repository.RedisRefreshTokenStore;
+import com.example.iam_service.repository.RefreshTokenStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Login (issue) and refresh (single step rotation) latency of the refresh token stores,
+// sampled so JMH reports p50/p99/p999, refresh runs with 16 concurrent threads.
+// "redis" runs RedisRefreshTokenStore, "jpa" runs the statements the Token table store
+// issues (insert, rotate CTE) over plain JDBC, one connection per thread.
+// Needs live instances, configured with -Dbench.redis.host, -Dbench.redis.port,
+// -Dbench.jdbc.url, -Dbench.jdbc.user, -Dbench.jdbc.password.
+// Run: mvn test-compile exec:java -Dexec.classpathScope=test
+//      -Dexec.mainClass=com.example.iam_service.benchmark.RefreshTokenStoreBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RefreshTokenStoreBenchmark {
+
+    @Param({"redis", "jpa"})
+    private String store;
+
+    private LettuceConnectionFactory connectionFactory;
+    private RefreshTokenStore redisStore;
+    private UUID userId;
+
+    @State(Scope.Thread)
+    public static class Session {
+        private Connection connection;
+        private RefreshTokenStore tokenStore;
+        private String current;
+
+        @Setup
+        public void setUp(RefreshTokenStoreBenchmark benchmark) throws SQLException {
+            if ("redis".equals(benchmark.store)) {
+                tokenStore = benchmark.redisStore;
+            } else {
+                connection = benchmark.openConnection();
+                tokenStore = new JdbcTokenTableStore(connection);
+            }
+            current = benchmark.issue(tokenStore);
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            if (connection != null) connection.close();
+        }
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        if ("redis".equals(store)) {
+            connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(
+                    System.getProperty("bench.redis.host", "localhost"),
+                    Integer.getInteger("bench.redis.port", 6379)));
+            connectionFactory.afterPropertiesSet();
+            connectionFactory.start();
+            redisStore = new RedisRefreshTokenStore(new StringRedisTemplate(connectionFactory));
+            userId = UUID.randomUUID();
+        } else {
+            try (Connection connection = openConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT userId FROM \"User\" LIMIT 1")) {
+                rs.next();
+                userId = rs.getObject(1, UUID.class);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (connectionFactory != null) connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public String login(Session session) {
+        return issue(session.tokenStore);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public RefreshTokenStore.Rotation refresh(Session session) {
+        String next = UUID.randomUUID().toString();
+        RefreshTokenStore.Rotation rotation =
+                session.tokenStore.rotate(session.current, next, LocalDateTime.now().plusDays(7));
+        session.current = next;
+        return rotation;
+    }
+
+    private String issue(RefreshTokenStore tokenStore) {
+        String tokenId = UUID.randomUUID().toString();
+        tokenStore.save(tokenId, userId, LocalDateTime.now().plusDays(7));
+        return tokenId;
+    }
+
+    private Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/iam"),
+                System.getProperty("bench.jdbc.user", "postgres"),
+                System.getProperty("bench.jdbc.password", "postgres"));
+    }
+
+    // same SQL JpaRefreshTokenStore ends up running, without booting a persistence context
+    private record JdbcTokenTableStore(Connection connection) implements RefreshTokenStore {
+        @Override
+        public void save(String tokenId, UUID userId, LocalDateTime expiredAt) {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO \"Token\" (userId, tokenId, expiredAt, familyId) VALUES (?, ?, ?, ?)")) {
+                ps.setObject(1, userId);
+                ps.setString(2, tokenId);
+                ps.setTimestamp(3, Timestamp.valueOf(expiredAt));
+                ps.setString(4, tokenId);
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Optional<StoredToken> find(String tokenId) {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT userId, expiredAt FROM \"Token\" WHERE tokenId = ? AND usedAt IS NULL")) {
+                ps.setString(1, tokenId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next()
+                            ? Optional.of(new StoredToken(rs.getObject(1, UUID.class), rs.getTimestamp(2).toLocalDateTime()))
+                            : Optional.empty();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Rotation rotate(String oldTokenId, String newTokenId, LocalDateTime newExpiredAt) {
+            try (PreparedStatement ps = connection.prepareStatement("""
+                    WITH used AS (
+                        UPDATE "Token" SET usedAt = ?
+                        WHERE tokenId = ? AND usedAt IS NULL AND expiredAt > ?
+                        RETURNING userId, COALESCE(familyId, tokenId) AS familyId
+                    )
+                    INSERT INTO "Token" (userId, tokenId, expiredAt, familyId)
+                    SELECT userId, ?, ?, familyId FROM used
+                    RETURNING userId
+                    """)) {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                ps.setTimestamp(1, now);
+                ps.setString(2, oldTokenId);
+                ps.setTimestamp(3, now);
+                ps.setString(4, newTokenId);
+                ps.setTimestamp(5, Timestamp.valueOf(newExpiredAt));
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next()
+                            ? new Rotation(RotationStatus.ROTATED, rs.getObject(1, UUID.class))
+                            : Rotation.of(RotationStatus.NOT_FOUND);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void delete(String tokenId) {
+            try (PreparedStatement ps = connection.prepareStatement("DELETE FROM \"Token\" WHERE tokenId = ?")) {
+                ps.setString(1, tokenId);
+                ps.executeUpdate();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RefreshTokenStoreBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
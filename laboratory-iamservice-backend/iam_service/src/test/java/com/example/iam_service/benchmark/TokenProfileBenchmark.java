@@ -0,0 +1,90 @@
+package com.example.iam_service.benchmark;
+
+import com.example.iam_service.entity.Enum.Privileges;
+import com.example.iam_service.entity.Role;
+import com.example.iam_service.entity.User;
+import com.example.iam_service.repository.RoleRepository;
+import com.example.iam_service.security.JwtKeyRing;
+import com.example.iam_service.security.RoleAuthorityRegistry;
+import com.example.iam_service.security.TokenRevocationService;
+import com.example.iam_service.security.UserGrantAuthority;
+import com.example.iam_service.util.JwtUtil;
+import com.example.iam_service.util.JwtVerifier;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Sign/verify cost of the full (PII claims) vs compact access token profile.
+// Header sizes are printed once in setUp.
+// Run: mvn test-compile exec:java -Dexec.classpathScope=test
+//      -Dexec.mainClass=com.example.iam_service.benchmark.TokenProfileBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenProfileBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-long-enough";
+
+    @Param({"full", "compact"})
+    private String profile;
+
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        Role role = new Role();
+        role.setCode("ROLE_ADMIN");
+        role.setPrivileges(EnumSet.allOf(Privileges.class));
+        RoleRepository roleRepository = Mockito.mock(RoleRepository.class);
+        Mockito.when(roleRepository.findPrivilegesByCode("ROLE_ADMIN")).thenReturn(role);
+
+        jwtUtil = new JwtUtil(SECRET, new UserGrantAuthority(new RoleAuthorityRegistry(roleRepository, 30_000)), profile,
+                new JwtKeyRing("HS256", "", ""), Mockito.mock(TokenRevocationService.class), false);
+
+        user = new User();
+        user.setUserId(UUID.randomUUID());
+        user.setRoleCode("ROLE_ADMIN");
+        user.setFullName("Nguyen Van Administrator");
+        user.setEmail("administrator@laboratory.example.com");
+        user.setGender("MALE");
+        user.setIdentityNumber("079203001234");
+        user.setAge(30);
+        user.setBirthdate(LocalDate.of(1995, 5, 10));
+        user.setAddress("123 Nguyen Hue Street, District 1, Ho Chi Minh City");
+        user.setPhoneNumber("+84901234567");
+        user.setIsActive(true);
+        user.setIsDeleted(false);
+        user.setVersion(1L);
+
+        token = jwtUtil.generateToken(user);
+        System.out.printf("%n[%s] Authorization header: %d bytes%n", profile, ("Bearer " + token).length());
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public JwtVerifier.TokenClaims verify() {
+        return jwtUtil.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenProfileBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -5,14 +5,14 @@ import com.example.iam_service.dto.user.UserDTO;
 import com.example.iam_service.dto.request.*;
 import com.example.iam_service.dto.response.ApiResponse;
 import com.example.iam_service.dto.response.auth.TokenResponse;
-import com.example.iam_service.entity.Token;
 import com.example.iam_service.entity.User;
 import com.example.iam_service.mapper.UserMapper;
+import com.example.iam_service.repository.UserCredentials;
 import com.example.iam_service.repository.UserRepository;
 import com.example.iam_service.service.EmailService;
+import com.example.iam_service.service.authen.LoginRateLimiterService;
+import com.example.iam_service.service.authen.ResetPasswordRateLimiterService;
 import com.example.iam_service.serviceImpl.AuthenticationServiceImpl;
-import com.example.iam_service.serviceImpl.LoginLimiterServiceImpl;
-import com.example.iam_service.serviceImpl.ResetPasswordRateLimiterImpl;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
 import jakarta.servlet.http.HttpServletRequest;
@@ -49,7 +49,7 @@ public class AuthControllerTest {
     AuthenticationServiceImpl authService;
 
     @Mock
-    LoginLimiterServiceImpl loginLimiterService;
+    LoginRateLimiterService loginLimiterService;
 
     @Mock
     private HttpServletRequest servletRequest;
@@ -61,7 +61,7 @@ public class AuthControllerTest {
     private EmailService emailService;
 
     @Mock
-    private ResetPasswordRateLimiterImpl resetPasswordRateLimiterService;
+    private ResetPasswordRateLimiterService resetPasswordRateLimiterService;
 
     @Mock
     private GoogleIdTokenVerifier googleIdTokenVerifier;
@@ -166,8 +166,7 @@ public class AuthControllerTest {
 
             GoogleIdToken.Payload payload = mock(GoogleIdToken.Payload.class);
 
-            User user = new User();
-            user.setEmail("user@gmail.com");
+            UserCredentials user = new UserCredentials(UUID.randomUUID(), "hash", true, false, "ROLE_PATIENT", 0L);
 
             Map<String, String> tokens = Map.of(
                     "accessToken", "google-access-token",
@@ -266,8 +265,7 @@ public class AuthControllerTest {
 
             GoogleIdToken.Payload payload = mock(GoogleIdToken.Payload.class);
 
-            User user = new User();
-            user.setEmail("user@gmail.com");
+            UserCredentials user = new UserCredentials(UUID.randomUUID(), "hash", true, false, "ROLE_PATIENT", 0L);
 
             when(loginLimiterService.isBanned("100.100.100.100")).thenReturn(false);
             when(authService.getPayload("valid-token")).thenReturn(payload);
@@ -297,18 +295,12 @@ public class AuthControllerTest {
         void refresh_ValidToken_ShouldReturnNewTokens() {
             // Given
             String refreshToken = "valid-refresh-token";
-            Token validToken = new Token();
-            User user = new User();
-            user.setUserId(UUID.randomUUID());
-            validToken.setUser(user);
-            validToken.setTokenId("token123");
 
             Map<String, String> newTokens = new HashMap<>();
             newTokens.put("accessToken", "new-access-token");
             newTokens.put("refreshToken", "new-refresh-token");
 
-            when(authService.verifyRefreshToken(refreshToken)).thenReturn(validToken);
-            when(authService.getTokens(user)).thenReturn(newTokens);
+            when(authService.rotateTokens(refreshToken)).thenReturn(newTokens);
 
             // When
             ResponseEntity<ApiResponse<TokenResponse>> response =
@@ -323,9 +315,8 @@ public class AuthControllerTest {
             assertEquals("new-refresh-token", response.getBody().getData().getRefreshToken());
             assertTrue(response.getHeaders().containsKey("Set-cookie"));
 
-            verify(authService, times(1)).verifyRefreshToken(refreshToken);
-            verify(authService, times(1)).deleteToken("token123");
-            verify(authService, times(1)).getTokens(user);
+            verify(authService, times(1)).rotateTokens(refreshToken);
+            verify(authService, never()).deleteToken(any());
         }
 
         @Test
@@ -340,14 +331,14 @@ public class AuthControllerTest {
             assertEquals("Error", response.getBody().getStatus());
             assertEquals("Invalid refresh token", response.getBody().getMessage());
 
-            verify(authService, never()).verifyRefreshToken(any());
+            verify(authService, never()).rotateTokens(any());
         }
 
         @Test
         void refresh_InvalidToken_ShouldReturn400() {
             // Given
             String invalidToken = "invalid-refresh-token";
-            when(authService.verifyRefreshToken(invalidToken)).thenReturn(null);
+            when(authService.rotateTokens(invalidToken)).thenReturn(null);
 
             // When
             ResponseEntity<ApiResponse<TokenResponse>> response =
@@ -359,15 +350,15 @@ public class AuthControllerTest {
             assertEquals("Error", response.getBody().getStatus());
             assertEquals("Not found or expired refresh token", response.getBody().getMessage());
 
-            verify(authService, times(1)).verifyRefreshToken(invalidToken);
-            verify(authService, never()).deleteToken(any());
+            verify(authService, times(1)).rotateTokens(invalidToken);
+            verify(authService, never()).getTokens(any());
         }
 
         @Test
         void refresh_ExpiredToken_ShouldReturn400() {
             // Given
             String expiredToken = "expired-refresh-token";
-            when(authService.verifyRefreshToken(expiredToken)).thenReturn(null);
+            when(authService.rotateTokens(expiredToken)).thenReturn(null);
 
             // When
             ResponseEntity<ApiResponse<TokenResponse>> response =
@@ -389,7 +380,7 @@ public class AuthControllerTest {
 
             // When
             ResponseEntity<ApiResponse<?>> response =
-                    authController.logout(refreshToken);
+                    authController.logout(refreshToken, null);
 
             // Then
             assertEquals(200, response.getStatusCode().value());
@@ -401,6 +392,21 @@ public class AuthControllerTest {
             verify(authService, times(1)).deleteToken(refreshToken);
         }
 
+        @Test
+        void logout_WithAccessToken_ShouldRevokeIt() {
+            // Given
+            String refreshToken = "valid-refresh-token";
+
+            // When
+            ResponseEntity<ApiResponse<?>> response =
+                    authController.logout(refreshToken, "Bearer access-token");
+
+            // Then
+            assertEquals(200, response.getStatusCode().value());
+            verify(authService, times(1)).deleteToken(refreshToken);
+            verify(authService, times(1)).revokeAccessToken("access-token");
+        }
+
         @Test
         void logout_EmptyToken_ShouldStillReturnSuccess() {
             // Given
@@ -408,7 +414,7 @@ public class AuthControllerTest {
 
             // When
             ResponseEntity<ApiResponse<?>> response =
-                    authController.logout(emptyToken);
+                    authController.logout(emptyToken, null);
 
             // Then
             assertEquals(200, response.getStatusCode().value());
@@ -428,7 +434,7 @@ public class AuthControllerTest {
 
             // When
             ResponseEntity<ApiResponse<?>> response =
-                    authController.logout(refreshToken);
+                    authController.logout(refreshToken, null);
 
             // Then
             assertEquals(400, response.getStatusCode().value());
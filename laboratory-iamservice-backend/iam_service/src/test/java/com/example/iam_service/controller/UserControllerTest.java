@@ -1,9 +1,11 @@
 package com.example.iam_service.controller;
 
+import com.example.iam_service.dto.response.CursorPageResponse;
 import com.example.iam_service.dto.user.*;
 import com.example.iam_service.entity.User;
 import com.example.iam_service.mapper.UserMapper;
 import com.example.iam_service.service.UserService;
+import com.example.iam_service.service.UserStatsService;
 import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,11 +16,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -35,6 +39,7 @@ class UserControllerTest {
 
     @Mock private UserService userService;
     @Mock private UserMapper userMapper;
+    @Mock private UserStatsService userStatsService;
     @InjectMocks private UserController userController;
 
     private MockMvc mockMvc;
@@ -120,6 +125,27 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[0].email").value("test@list.com"));
     }
 
+    // ========== GET USERS PAGED ==========
+    @Test
+    void getUsersPaged_ShouldReturnItemsAndCursor() throws Exception {
+        User user = new User();
+        UserDTO dto = new UserDTO();
+        dto.setEmail("paged@user.com");
+
+        when(userService.getUsersPage("ROLE_PATIENT", "active", null, null, null, 2))
+                .thenReturn(new CursorPageResponse<>(List.of(user), "next-cursor", true));
+        when(userMapper.toDto(any(User.class))).thenReturn(dto);
+
+        mockMvc.perform(get(BASE_PATH + "/paged")
+                        .param("size", "2")
+                        .param("role", "ROLE_PATIENT")
+                        .param("status", "active"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].email").value("paged@user.com"))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+
     // ========== GET INACTIVE USERS ==========
     @Test
     void getInactiveUsers_ShouldReturn200_WithList() throws Exception {
@@ -225,6 +251,31 @@ class UserControllerTest {
         }
     }
 
+    // ========== CURRENT USER ==========
+    @Test
+    void getCurrentUser_ShouldReturnPrincipalProfile() {
+        User currentUser = new User();
+        currentUser.setUserId(UUID.randomUUID());
+        currentUser.setEmail("me@example.com");
+        DetailUserDTO dto = new DetailUserDTO();
+        dto.setEmail("me@example.com");
+
+        SecurityContextHolder.setContext(new SecurityContextImpl(
+                new TestingAuthenticationToken(currentUser, null)
+        ));
+        when(userMapper.toDetailDto(currentUser)).thenReturn(dto);
+
+        try {
+            var response = userController.getCurrentUser();
+
+            assertEquals(200, response.getStatusCode().value());
+            assertEquals("me@example.com", response.getBody().getEmail());
+            verifyNoInteractions(userService);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
     // ========== ADMIN UPDATE USER ==========
     @Test
     void updateUserByAdmin_ShouldReturn200_WhenUpdated() throws Exception {
@@ -373,24 +424,24 @@ class UserControllerTest {
     // ========== GET ROLES BY USERS ==========
     @Test
     void getAllRolesByUsers_ShouldReturn200_WithRoleCounts() throws Exception {
-        User admin = new User();
-        admin.setRoleCode("ROLE_ADMIN");
-        User patient = new User();
-        patient.setRoleCode("ROLE_PATIENT");
-
-        when(userService.getAllUsers()).thenReturn(List.of(admin, patient));
+        UserStatsDTO stats = new UserStatsDTO();
+        stats.setRoles(Map.of("ADMIN", 1L, "PATIENT", 3L));
+        when(userStatsService.getStats()).thenReturn(stats);
 
         mockMvc.perform(get(BASE_PATH + "/roles"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value("success"))
                 .andExpect(jsonPath("$.message").value("Fetched all roles in system"))
                 .andExpect(jsonPath("$.data.ADMIN").value(1))
-                .andExpect(jsonPath("$.data.PATIENT").value(1));
+                .andExpect(jsonPath("$.data.PATIENT").value(3));
+        verify(userService, never()).getAllUsers();
     }
 
     @Test
     void getAllRolesByUsers_ShouldReturn404_WhenNoUsers() throws Exception {
-        when(userService.getAllUsers()).thenReturn(List.of());
+        UserStatsDTO stats = new UserStatsDTO();
+        stats.setRoles(Map.of());
+        when(userStatsService.getStats()).thenReturn(stats);
 
         mockMvc.perform(get(BASE_PATH + "/roles"))
                 .andExpect(status().isNotFound())
@@ -398,6 +449,23 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.message").value("No user found"));
     }
 
+    // ========== GET USER STATS ==========
+    @Test
+    void getUserStats_ShouldReturn200_WithCounters() throws Exception {
+        UserStatsDTO stats = new UserStatsDTO();
+        stats.setRoles(Map.of("PATIENT", 5L));
+        stats.setActive(4);
+        stats.setPendingDeletion(1);
+        when(userStatsService.getStats()).thenReturn(stats);
+
+        mockMvc.perform(get(BASE_PATH + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.roles.PATIENT").value(5))
+                .andExpect(jsonPath("$.data.active").value(4))
+                .andExpect(jsonPath("$.data.pendingDeletion").value(1))
+                .andExpect(jsonPath("$.data.deleted").value(0));
+    }
+
     // ========== CREATE USER BY PATIENT SERVICE ==========
     @Test
     void createUserByPatientService_ShouldReturn201_WhenValidRequest() throws Exception {
@@ -5,6 +5,7 @@ import com.example.iam_service.dto.response.ApiResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.validation.BindingResult;
@@ -118,4 +119,36 @@ public class GlobalExceptionHandlerTest {
         assertTrue(body.containsKey("timestamp"));
         assertTrue(body.get("timestamp") instanceof LocalDateTime);
     }
+
+    // -------------------------------------------------------------------------
+    // 6. PasswordHashBusyException handler test
+    // -------------------------------------------------------------------------
+    @Test
+    void testHandlePasswordHashBusy() {
+        PasswordHashBusyException ex =
+                new PasswordHashBusyException("Too many concurrent logins, please retry");
+
+        ResponseEntity<ApiResponse<String>> response =
+                handler.handlePasswordHashBusy(ex);
+
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        assertEquals("Too many concurrent logins, please retry", response.getBody().getMessage());
+    }
+
+    // -------------------------------------------------------------------------
+    // 7. AccessDeniedException handler test
+    // -------------------------------------------------------------------------
+    @Test
+    void testHandleAccessDenied() {
+        AccessDeniedException ex =
+                new AccessDeniedException("Only admins can list inactive or deleted users");
+
+        ResponseEntity<Map<String, Object>> response =
+                handler.handleAccessDenied(ex);
+
+        assertEquals(403, response.getStatusCode().value());
+        assertEquals("Forbidden", response.getBody().get("error"));
+        assertEquals("Only admins can list inactive or deleted users", response.getBody().get("message"));
+    }
 }
@@ -0,0 +1,155 @@
+package com.example.iam_service.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+@ExtendWith(MockitoExtension.class)
+class RedisRefreshTokenStoreTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private RedisRefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new RedisRefreshTokenStore(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should issue under the hashed token id with a new family and a native TTL")
+    void save_ShouldStoreHashedKeyWithTtl() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        LocalDateTime expiredAt = LocalDateTime.now().plusDays(7);
+
+        // Act
+        store.save("token-1", userId, expiredAt);
+
+        // Assert
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(eq(RedisRefreshTokenStore.ISSUE), keys.capture(), args.capture());
+        assertEquals(RedisRefreshTokenStore.key("token-1"), keys.getValue().get(0));
+        assertFalse(keys.getValue().get(0).contains("token-1"));
+        assertTrue(keys.getValue().get(1).startsWith("refresh:family:"));
+
+        String value = (String) args.getValue()[0];
+        String familyId = keys.getValue().get(1).substring("refresh:family:".length());
+        assertTrue(value.startsWith(userId + "|"));
+        assertTrue(value.endsWith("|" + familyId));
+        assertTrue(Long.parseLong((String) args.getValue()[1]) > Duration.ofDays(6).toMillis());
+    }
+
+    @Test
+    @DisplayName("Should not store a token that is already expired")
+    void save_ShouldSkipExpiredToken() {
+        store.save("token-1", UUID.randomUUID(), LocalDateTime.now().minusSeconds(1));
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should read back owner and expiry of a stored token")
+    void find_ShouldReturnStoredToken() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        UUID userId = UUID.randomUUID();
+        LocalDateTime expiredAt = LocalDateTime.now().plusDays(7).truncatedTo(ChronoUnit.MILLIS);
+        long expiresAt = expiredAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        when(valueOperations.get(RedisRefreshTokenStore.key("token-1")))
+                .thenReturn(userId + "|" + expiresAt + "|family-1");
+
+        // Act
+        Optional<RefreshTokenStore.StoredToken> found = store.find("token-1");
+
+        // Assert
+        assertTrue(found.isPresent());
+        assertEquals(userId, found.get().userId());
+        assertEquals(expiredAt, found.get().expiredAt());
+    }
+
+    @Test
+    @DisplayName("Should rotate through a single script call and map its result")
+    void rotate_ShouldRunScriptOnce() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        when(redisTemplate.execute(eq(RedisRefreshTokenStore.ROTATE), anyList(), any(Object[].class)))
+                .thenReturn(List.of("ROTATED", userId.toString()));
+
+        // Act
+        RefreshTokenStore.Rotation rotation = store.rotate("old", "new", LocalDateTime.now().plusDays(7));
+
+        // Assert
+        assertEquals(RefreshTokenStore.RotationStatus.ROTATED, rotation.status());
+        assertEquals(userId, rotation.userId());
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate, times(1)).execute(eq(RedisRefreshTokenStore.ROTATE), keys.capture(), any(Object[].class));
+        assertEquals(RedisRefreshTokenStore.key("old"), keys.getValue().get(0));
+        assertTrue(keys.getValue().get(1).startsWith("refresh:used:"));
+        assertEquals(RedisRefreshTokenStore.key("new"), keys.getValue().get(2));
+    }
+
+    @Test
+    @DisplayName("Should report reuse and unknown tokens from the script")
+    void rotate_ShouldMapReuseAndNotFound() {
+        UUID userId = UUID.randomUUID();
+        when(redisTemplate.execute(eq(RedisRefreshTokenStore.ROTATE), anyList(), any(Object[].class)))
+                .thenReturn(List.of("REUSED", userId.toString()))
+                .thenReturn(List.of("NOT_FOUND"));
+
+        RefreshTokenStore.Rotation reused = store.rotate("used", "new", LocalDateTime.now().plusDays(7));
+        RefreshTokenStore.Rotation missing = store.rotate("missing", "new", LocalDateTime.now().plusDays(7));
+
+        assertEquals(RefreshTokenStore.RotationStatus.REUSED, reused.status());
+        assertEquals(userId, reused.userId());
+        assertEquals(RefreshTokenStore.RotationStatus.NOT_FOUND, missing.status());
+        assertNull(missing.userId());
+    }
+
+    @Test
+    @DisplayName("Should return empty for a missing or malformed entry")
+    void find_ShouldReturnEmpty_WhenMissingOrMalformed() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(RedisRefreshTokenStore.key("missing"))).thenReturn(null);
+        when(valueOperations.get(RedisRefreshTokenStore.key("broken"))).thenReturn("not-a-uuid|abc");
+
+        // Act & Assert
+        assertTrue(store.find("missing").isEmpty());
+        assertTrue(store.find("broken").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should delete the hashed key with its family pointer")
+    void delete_ShouldRemoveHashedKey() {
+        store.delete("token-1");
+
+        verify(redisTemplate).execute(RedisRefreshTokenStore.DELETE,
+                List.of(RedisRefreshTokenStore.key("token-1")), "refresh:family:");
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.iam_service.scheduler;
+
+import com.example.iam_service.entity.EmailOutbox;
+import com.example.iam_service.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxWorkerTest {
+
+    @Mock
+    private EmailOutboxRepository outboxRepository;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EmailOutboxWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // batch of 2, at most 3 batches, 3 attempts, 30s backoff capped at 100s
+        worker = new EmailOutboxWorker(outboxRepository, mailSender, meterRegistry,
+                "no-reply@lab.com", 2, 3, 300, 3, 30, 100);
+    }
+
+    @Test
+    @DisplayName("Should send a claimed batch in one call and delete the delivered rows")
+    void deliverBatch_ShouldSendBatchAndDeleteDelivered() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> batch = List.of(mail(1L, "a@example.com", 0), mail(2L, "b@example.com", 0));
+        when(outboxRepository.claimBatch(now, now.plusSeconds(300), 2)).thenReturn(List.of(1L, 2L));
+        when(outboxRepository.findAllById(List.of(1L, 2L))).thenReturn(batch);
+
+        // Act
+        int claimed = worker.deliverBatch(now);
+
+        // Assert
+        ArgumentCaptor<SimpleMailMessage[]> messages = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(mailSender, times(1)).send(messages.capture());
+        assertEquals(2, claimed);
+        assertEquals(2, messages.getValue().length);
+        assertEquals("no-reply@lab.com", messages.getValue()[0].getFrom());
+        assertEquals("b@example.com", messages.getValue()[1].getTo()[0]);
+        verify(outboxRepository).deleteAllInBatch(batch);
+        verify(outboxRepository, never()).saveAll(anyList());
+        assertEquals(2.0, meterRegistry.counter("iam.email.outbox.sent").count());
+    }
+
+    @Test
+    @DisplayName("Should reschedule only the messages the server rejected")
+    void deliverBatch_ShouldRescheduleFailedMessages() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutbox ok = mail(1L, "a@example.com", 0);
+        EmailOutbox rejected = mail(2L, "b@example.com", 0);
+        when(outboxRepository.claimBatch(any(), any(), anyInt())).thenReturn(List.of(1L, 2L));
+        when(outboxRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(ok, rejected));
+
+        doAnswer(invocation -> {
+            SimpleMailMessage second = invocation.getArgument(1);
+            throw new MailSendException(Map.of(second, new RuntimeException("mailbox unavailable")));
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+
+        // Act
+        worker.deliverBatch(now);
+
+        // Assert
+        verify(outboxRepository).deleteAllInBatch(List.of(ok));
+        ArgumentCaptor<List<EmailOutbox>> saved = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).saveAll(saved.capture());
+        EmailOutbox retried = saved.getValue().get(0);
+        assertEquals(2L, retried.getId());
+        assertEquals(1, retried.getAttempts());
+        assertEquals(EmailOutbox.Status.PENDING, retried.getStatus());
+        assertEquals(now.plusSeconds(30), retried.getNextAttemptAt());
+        assertEquals("mailbox unavailable", retried.getLastError());
+    }
+
+    @Test
+    @DisplayName("Should give up after max attempts and drop the body")
+    void deliverBatch_ShouldMarkFailedAfterMaxAttempts() {
+        // Arrange
+        EmailOutbox mail = mail(1L, "a@example.com", 2);
+        when(outboxRepository.claimBatch(any(), any(), anyInt())).thenReturn(List.of(1L));
+        when(outboxRepository.findAllById(List.of(1L))).thenReturn(List.of(mail));
+        doThrow(new MailAuthenticationException("bad credentials"))
+                .when(mailSender).send(any(SimpleMailMessage[].class));
+
+        // Act
+        worker.deliverBatch(LocalDateTime.now());
+
+        // Assert
+        verify(outboxRepository, never()).deleteAllInBatch(anyList());
+        assertEquals(EmailOutbox.Status.FAILED, mail.getStatus());
+        assertEquals(3, mail.getAttempts());
+        assertNull(mail.getBody());
+        assertEquals(1.0, meterRegistry.counter("iam.email.outbox.failed").count());
+    }
+
+    @Test
+    @DisplayName("Should give up on a mail whose body cannot be decrypted and send the rest")
+    void deliverBatch_ShouldMarkFailed_WhenBodyUnreadable() {
+        // Arrange
+        EmailOutbox readable = mail(1L, "a@example.com", 0);
+        when(outboxRepository.claimBatch(any(), any(), anyInt())).thenReturn(List.of(1L, 2L));
+        when(outboxRepository.findAllById(List.of(1L, 2L)))
+                .thenThrow(new IllegalStateException("No encryption key with id k9"));
+        when(outboxRepository.findById(1L)).thenReturn(Optional.of(readable));
+        when(outboxRepository.findById(2L)).thenThrow(new IllegalStateException("No encryption key with id k9"));
+
+        // Act
+        int claimed = worker.deliverBatch(LocalDateTime.now());
+
+        // Assert
+        assertEquals(2, claimed);
+        verify(outboxRepository).markFailed(2L, EmailOutbox.Status.FAILED, "No encryption key with id k9");
+        ArgumentCaptor<SimpleMailMessage[]> messages = ArgumentCaptor.forClass(SimpleMailMessage[].class);
+        verify(mailSender).send(messages.capture());
+        assertEquals(1, messages.getValue().length);
+        verify(outboxRepository).deleteAllInBatch(List.of(readable));
+        assertEquals(1.0, meterRegistry.counter("iam.email.outbox.failed").count());
+    }
+
+    @Test
+    @DisplayName("Should keep draining full batches and publish the queue depth")
+    void deliver_ShouldDrainFullBatchesAndUpdatePending() {
+        // Arrange
+        when(outboxRepository.claimBatch(any(), any(), anyInt())).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(outboxRepository.findAllById(anyIterable())).thenReturn(
+                new ArrayList<>(List.of(mail(1L, "a@example.com", 0), mail(2L, "b@example.com", 0))),
+                new ArrayList<>(List.of(mail(3L, "c@example.com", 0))));
+        when(outboxRepository.countByStatus(EmailOutbox.Status.PENDING)).thenReturn(7L);
+
+        // Act
+        worker.deliver();
+
+        // Assert
+        verify(outboxRepository, times(2)).claimBatch(any(), any(), anyInt());
+        verify(mailSender, times(2)).send(any(SimpleMailMessage[].class));
+        assertEquals(7.0, meterRegistry.get("iam.email.outbox.pending").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should double the backoff per attempt up to the cap")
+    void backoff_ShouldGrowExponentiallyUpToCap() {
+        assertEquals(30, worker.backoff(1));
+        assertEquals(60, worker.backoff(2));
+        assertEquals(100, worker.backoff(3));
+        assertEquals(100, worker.backoff(40));
+    }
+
+    private EmailOutbox mail(Long id, String recipient, int attempts) {
+        return EmailOutbox.builder()
+                .id(id)
+                .recipient(recipient)
+                .subject("Subject " + id)
+                .body("Body " + id)
+                .status(EmailOutbox.Status.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
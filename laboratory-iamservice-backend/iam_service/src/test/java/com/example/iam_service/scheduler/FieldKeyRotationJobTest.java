@@ -0,0 +1,204 @@
+package com.example.iam_service.scheduler;
+
+import com.example.iam_service.repository.EmailOutboxCiphertextRepository;
+import com.example.iam_service.repository.EmailOutboxCiphertextRepository.OutboxCiphertext;
+import com.example.iam_service.repository.UserCiphertextRepository;
+import com.example.iam_service.repository.UserCiphertextRepository.UserCiphertext;
+import com.example.iam_service.util.FieldCrypto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FieldKeyRotationJobTest {
+
+    private static final String OLD_KEY = "0123456789abcdef";
+    private static final UUID START = new UUID(0L, 0L);
+
+    @Mock
+    private UserCiphertextRepository ciphertextRepository;
+
+    @Mock
+    private EmailOutboxCiphertextRepository outboxCiphertextRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private FieldCrypto oldCrypto;
+    private FieldCrypto newCrypto;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        oldCrypto = new FieldCrypto(OLD_KEY, "", "0", new SimpleMeterRegistry());
+        newCrypto = new FieldCrypto(OLD_KEY, "k2:0123456789abcdef0123456789abcdef", "k2", new SimpleMeterRegistry());
+    }
+
+    private FieldKeyRotationJob job(int chunkSize, int maxChunks) {
+        return new FieldKeyRotationJob(ciphertextRepository, outboxCiphertextRepository, newCrypto, meterRegistry,
+                chunkSize, 0, maxChunks);
+    }
+
+    private UserCiphertext oldRow(UUID userId) {
+        return new UserCiphertext(userId, oldCrypto.encrypt("0901234567"), oldCrypto.encrypt("079203001234"), null);
+    }
+
+    private double rows(String result) {
+        return meterRegistry.get("iam.crypto.rotation.rows").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should re-encrypt stale rows under the active key and complete after a clean pass")
+    void rotate_ShouldReencryptAndComplete() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        UserCiphertext row = oldRow(userId);
+        when(ciphertextRepository.findNotUnderKey(START, "v2:k2:", 10))
+                .thenReturn(List.of(row), List.of());
+        when(ciphertextRepository.replace(eq(row), any(UserCiphertext.class))).thenReturn(true);
+        FieldKeyRotationJob job = job(10, 5);
+
+        // Act
+        job.rotate();
+
+        // Assert
+        ArgumentCaptor<UserCiphertext> captor = ArgumentCaptor.forClass(UserCiphertext.class);
+        verify(ciphertextRepository).replace(eq(row), captor.capture());
+        UserCiphertext replacement = captor.getValue();
+        assertEquals(userId, replacement.userId());
+        assertTrue(replacement.phoneNumber().startsWith("v2:k2:"));
+        assertEquals("0901234567", newCrypto.decrypt(replacement.phoneNumber()));
+        assertEquals("079203001234", newCrypto.decrypt(replacement.identityNumber()));
+        assertNull(replacement.address());
+
+        assertTrue(job.isComplete());
+        assertEquals(1.0, rows("rotated"));
+        assertEquals(1.0, meterRegistry.get("iam.crypto.rotation.complete").gauge().value());
+        verify(ciphertextRepository, times(2)).findNotUnderKey(START, "v2:k2:", 10);
+    }
+
+    @Test
+    @DisplayName("Should continue from the last userId and bound a run to max-chunks")
+    void rotate_ShouldResumeFromCursor() {
+        // Arrange
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(ciphertextRepository.findNotUnderKey(START, "v2:k2:", 1)).thenReturn(List.of(oldRow(first)));
+        when(ciphertextRepository.findNotUnderKey(first, "v2:k2:", 1)).thenReturn(List.of(oldRow(second)));
+        when(ciphertextRepository.replace(any(UserCiphertext.class), any(UserCiphertext.class))).thenReturn(true);
+        FieldKeyRotationJob job = job(1, 1);
+
+        // Act
+        job.rotate();
+        job.rotate();
+
+        // Assert
+        verify(ciphertextRepository).findNotUnderKey(START, "v2:k2:", 1);
+        verify(ciphertextRepository).findNotUnderKey(first, "v2:k2:", 1);
+        assertEquals(2.0, rows("rotated"));
+        assertFalse(job.isComplete());
+    }
+
+    @Test
+    @DisplayName("Should count a row changed meanwhile as a conflict")
+    void rotate_ShouldCountConflict() {
+        // Arrange
+        UserCiphertext row = oldRow(UUID.randomUUID());
+        when(ciphertextRepository.findNotUnderKey(START, "v2:k2:", 10)).thenReturn(List.of(row), List.of());
+        when(ciphertextRepository.replace(eq(row), any(UserCiphertext.class))).thenReturn(false);
+
+        // Act
+        job(10, 5).rotate();
+
+        // Assert
+        assertEquals(1.0, rows("conflict"));
+        assertEquals(0.0, rows("rotated"));
+    }
+
+    @Test
+    @DisplayName("Should skip rows under a key outside the ring and never report complete")
+    void rotate_ShouldSkipUndecryptableRows() {
+        // Arrange
+        FieldCrypto foreign = new FieldCrypto("", "k9:fedcba9876543210", "k9", new SimpleMeterRegistry());
+        UserCiphertext row = new UserCiphertext(UUID.randomUUID(), foreign.encrypt("0901234567"), null, null);
+        when(ciphertextRepository.findNotUnderKey(START, "v2:k2:", 10)).thenReturn(List.of(row));
+        FieldKeyRotationJob job = job(10, 5);
+
+        // Act
+        job.rotate();
+
+        // Assert - one failure per pass, every pass of the run
+        assertEquals(5.0, rows("failed"));
+        verify(ciphertextRepository, never()).replace(any(), any());
+        assertFalse(job.isComplete());
+    }
+
+    @Test
+    @DisplayName("Should re-encrypt outbox bodies at the end of the pass before completing")
+    void rotate_ShouldReencryptOutboxBodies() {
+        // Arrange
+        OutboxCiphertext mail = new OutboxCiphertext(7L, oldCrypto.encrypt("Temporary password: x1"));
+        when(ciphertextRepository.findNotUnderKey(START, "v2:k2:", 10)).thenReturn(List.of());
+        when(outboxCiphertextRepository.findNotUnderKey(0L, "v2:k2:", 10)).thenReturn(List.of(mail), List.of());
+        when(outboxCiphertextRepository.replace(eq(mail), anyString())).thenReturn(true);
+        FieldKeyRotationJob job = job(10, 5);
+
+        // Act
+        job.rotate();
+
+        // Assert
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(outboxCiphertextRepository).replace(eq(mail), body.capture());
+        assertTrue(body.getValue().startsWith("v2:k2:"));
+        assertEquals("Temporary password: x1", newCrypto.decrypt(body.getValue()));
+        assertEquals(1.0, rows("rotated"));
+        // the pass that rotated the mail is confirmed by a clean one
+        verify(outboxCiphertextRepository, times(2)).findNotUnderKey(0L, "v2:k2:", 10);
+        assertTrue(job.isComplete());
+    }
+
+    @Test
+    @DisplayName("Should not complete while an outbox body cannot be re-encrypted")
+    void rotate_ShouldNotComplete_WhenOutboxBodyUndecryptable() {
+        // Arrange
+        FieldCrypto foreign = new FieldCrypto("", "k9:fedcba9876543210", "k9", new SimpleMeterRegistry());
+        OutboxCiphertext mail = new OutboxCiphertext(7L, foreign.encrypt("Temporary password: x1"));
+        when(ciphertextRepository.findNotUnderKey(START, "v2:k2:", 10)).thenReturn(List.of());
+        when(outboxCiphertextRepository.findNotUnderKey(0L, "v2:k2:", 10)).thenReturn(List.of(mail));
+        FieldKeyRotationJob job = job(10, 2);
+
+        // Act
+        job.rotate();
+
+        // Assert
+        assertEquals(2.0, rows("failed"));
+        verify(outboxCiphertextRepository, never()).replace(any(), any());
+        assertFalse(job.isComplete());
+    }
+
+    @Test
+    @DisplayName("Should do nothing once complete")
+    void rotate_ShouldStop_WhenComplete() {
+        // Arrange
+        when(ciphertextRepository.findNotUnderKey(START, "v2:k2:", 10)).thenReturn(List.of());
+        FieldKeyRotationJob job = job(10, 5);
+
+        // Act
+        job.rotate();
+        job.rotate();
+
+        // Assert
+        verify(ciphertextRepository, times(1)).findNotUnderKey(any(), anyString(), anyInt());
+        assertTrue(job.isComplete());
+    }
+}
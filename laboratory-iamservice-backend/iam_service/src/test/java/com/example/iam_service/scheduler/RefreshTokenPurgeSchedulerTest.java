@@ -0,0 +1,106 @@
+package com.example.iam_service.scheduler;
+
+import com.example.iam_service.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenPurgeSchedulerTest {
+
+    @Mock
+    private RefreshTokenRepository refreshRepo;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private RefreshTokenPurgeScheduler scheduler(int maxBatches, boolean partitioned) {
+        return new RefreshTokenPurgeScheduler(refreshRepo, jdbcTemplate, meterRegistry, 100, 0, maxBatches, partitioned);
+    }
+
+    @Test
+    @DisplayName("Should delete in batches until a short batch and count purged rows")
+    void purge_ShouldStopOnShortBatch() {
+        // Arrange
+        when(refreshRepo.deleteExpiredBatch(any(LocalDateTime.class), eq(100)))
+                .thenReturn(100, 100, 42);
+
+        // Act
+        scheduler(10, false).purgeExpiredTokens();
+
+        // Assert
+        verify(refreshRepo, times(3)).deleteExpiredBatch(any(LocalDateTime.class), eq(100));
+        assertEquals(242.0, meterRegistry.get("iam.refresh.purge.rows").counter().count());
+        assertEquals(1, meterRegistry.get("iam.refresh.purge.duration").timer().count());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should bound a single run to max-batches")
+    void purge_ShouldRespectMaxBatches() {
+        when(refreshRepo.deleteExpiredBatch(any(LocalDateTime.class), eq(100))).thenReturn(100);
+
+        long purged = scheduler(3, false).purgeInBatches(LocalDateTime.now());
+
+        assertEquals(300, purged);
+        verify(refreshRepo, times(3)).deleteExpiredBatch(any(LocalDateTime.class), eq(100));
+    }
+
+    @Test
+    @DisplayName("Should drop partitions of past months and create the coming ones")
+    void maintainPartitions_ShouldDropPastAndCreateAhead() {
+        // Arrange
+        YearMonth current = YearMonth.of(2026, 10);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("Token_p2026_08", "Token_p2026_09", "Token_p2026_10", "Token_legacy"));
+
+        // Act
+        scheduler(1, true).maintainPartitions(current);
+
+        // Assert
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS \"Token_p2026_08\"");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS \"Token_p2026_09\"");
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS \"Token_p2026_10\"");
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS \"Token_p2026_12\" PARTITION OF \"Token\""
+                + " FOR VALUES FROM ('2026-12-01') TO ('2027-01-01')");
+        assertEquals(2.0, meterRegistry.get("iam.refresh.purge.partitions.dropped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should count a failed drop as failed, not dropped")
+    void maintainPartitions_ShouldCountFailedDrop() {
+        // Arrange
+        YearMonth current = YearMonth.of(2026, 10);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("Token_p2026_09"));
+        doThrow(new DataAccessResourceFailureException("lock timeout"))
+                .when(jdbcTemplate).execute("DROP TABLE IF EXISTS \"Token_p2026_09\"");
+
+        // Act
+        scheduler(1, true).maintainPartitions(current);
+
+        // Assert
+        assertEquals(0.0, meterRegistry.get("iam.refresh.purge.partitions.dropped").counter().count());
+        assertEquals(1.0, meterRegistry.get("iam.refresh.purge.partitions.failed").counter().count());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.iam_service.security;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentityAssertionVerifierTest {
+
+    static final String SECRET = "internal-identity-secret-for-tests-only";
+
+    private final IdentityAssertionVerifier verifier = new IdentityAssertionVerifier(SECRET);
+
+    // same format the api gateway mints
+    static String assertion(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            return encoder.encodeToString(bytes) + "." + encoder.encodeToString(mac.doFinal(bytes));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Should return identity for a valid assertion")
+    void verify_ShouldReturnIdentity_WhenValid() {
+        // Arrange
+        UUID userId = UUID.randomUUID();
+        long exp = System.currentTimeMillis() + 60_000;
+
+        // Act
+        IdentityAssertionVerifier.Identity identity =
+                verifier.verify(assertion(userId + "|ROLE_ADMIN|5|" + exp));
+
+        // Assert
+        assertEquals(userId, identity.userId());
+        assertEquals("ROLE_ADMIN", identity.roleCode());
+        assertEquals(5L, identity.privileges());
+        assertEquals(exp, identity.expiresAt());
+    }
+
+    @Test
+    @DisplayName("Should reject tampered, expired and malformed assertions")
+    void verify_ShouldReject_WhenInvalid() {
+        UUID userId = UUID.randomUUID();
+        long exp = System.currentTimeMillis() + 60_000;
+        String valid = assertion(userId + "|ROLE_PATIENT|1|" + exp);
+        String tampered = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((userId + "|ROLE_ADMIN|1|" + exp).getBytes(StandardCharsets.UTF_8))
+                + valid.substring(valid.indexOf('.'));
+
+        assertThrows(JwtException.class, () -> verifier.verify(tampered));
+        assertThrows(JwtException.class, () -> verifier.verify(assertion(userId + "|ROLE_ADMIN|1|1000")));
+        assertThrows(JwtException.class, () -> verifier.verify(assertion("not-a-uuid|ROLE_ADMIN|1|" + exp)));
+        assertThrows(JwtException.class, () -> verifier.verify("garbage"));
+    }
+
+    @Test
+    @DisplayName("Should be disabled without secret and reject short secrets")
+    void constructor_ShouldHandleSecretConfiguration() {
+        assertFalse(new IdentityAssertionVerifier("").isEnabled());
+        assertThrows(IllegalStateException.class, () -> new IdentityAssertionVerifier("too-short"));
+    }
+}
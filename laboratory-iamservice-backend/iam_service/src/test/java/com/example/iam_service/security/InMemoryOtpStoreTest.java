@@ -0,0 +1,166 @@
+package com.example.iam_service.security;
+
+
+import com.example.iam_service.security.OtpStore.VerifyResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryOtpStoreTest {
+    private InMemoryOtpStore storeOtp;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong now;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        now = new AtomicLong(System.currentTimeMillis());
+        // 5 minute ttl, 1 second ticks, 3 attempts, 3 pending OTPs at most
+        storeOtp = new InMemoryOtpStore(meterRegistry, 300, 1000, 3, 3, now::get);
+    }
+
+    @Test
+    void storeOtp_ShouldStoreVerifiableOtp() {
+        String email = "user@example.com";
+        String otp = "123456";
+
+        storeOtp.storeOtp(email, otp);
+
+        assertEquals(1, storeOtp.size());
+        assertEquals(VerifyResult.VALID, storeOtp.verifyOtp(email, otp));
+    }
+
+    @Test
+    void verifyOtp_ShouldReturnNotFoundIfNotStored() {
+        String email = "unknown@example.com";
+        assertEquals(VerifyResult.NOT_FOUND, storeOtp.verifyOtp(email, "123456"));
+    }
+
+    @Test
+    void removeOtp_ShouldRemoveStoredOtp() {
+        String email = "user@example.com";
+        String otp = "123456";
+
+        // store and check existence
+        storeOtp.storeOtp(email, otp);
+        assertEquals(1, storeOtp.size());
+
+        // remove and check removal
+        storeOtp.removeOtp(email);
+        assertEquals(0, storeOtp.size());
+        assertEquals(VerifyResult.NOT_FOUND, storeOtp.verifyOtp(email, otp));
+    }
+
+    @Test
+    void storeOtp_ShouldOverwriteExistingOtp() {
+        String email = "user@example.com";
+
+        storeOtp.storeOtp(email, "111111");
+        storeOtp.storeOtp(email, "222222");
+
+        assertEquals(1, storeOtp.size());
+        assertEquals(VerifyResult.INVALID, storeOtp.verifyOtp(email, "111111"));
+        assertEquals(VerifyResult.VALID, storeOtp.verifyOtp(email, "222222"));
+    }
+
+    @Test
+    void verifyOtp_ShouldConsumeValidOtp() {
+        String email = "user@example.com";
+        storeOtp.storeOtp(email, "123456");
+
+        assertEquals(VerifyResult.VALID, storeOtp.verifyOtp(email, "123456"));
+        assertEquals(VerifyResult.NOT_FOUND, storeOtp.verifyOtp(email, "123456"));
+    }
+
+    @Test
+    void verifyOtp_ShouldLockAfterMaxAttempts() {
+        String email = "user@example.com";
+        storeOtp.storeOtp(email, "123456");
+
+        assertEquals(VerifyResult.INVALID, storeOtp.verifyOtp(email, "000000"));
+        assertEquals(VerifyResult.INVALID, storeOtp.verifyOtp(email, "000000"));
+        assertEquals(VerifyResult.LOCKED, storeOtp.verifyOtp(email, "000000"));
+
+        // the right code no longer helps once locked
+        assertEquals(VerifyResult.NOT_FOUND, storeOtp.verifyOtp(email, "123456"));
+    }
+
+    @Test
+    void storeOtp_ShouldResetAttempts() {
+        String email = "user@example.com";
+        storeOtp.storeOtp(email, "123456");
+        storeOtp.verifyOtp(email, "000000");
+        storeOtp.verifyOtp(email, "000000");
+
+        storeOtp.storeOtp(email, "654321");
+
+        assertEquals(VerifyResult.INVALID, storeOtp.verifyOtp(email, "000000"));
+        assertEquals(VerifyResult.VALID, storeOtp.verifyOtp(email, "654321"));
+    }
+
+    @Test
+    void verifyOtp_ShouldReportExpiredBeforeTheWheelTicks() {
+        String email = "user@example.com";
+        storeOtp.storeOtp(email, "123456");
+
+        now.addAndGet(301_000);
+
+        assertEquals(VerifyResult.EXPIRED, storeOtp.verifyOtp(email, "123456"));
+    }
+
+    @Test
+    void tick_ShouldRemoveExpiredEntries() {
+        storeOtp.storeOtp("a@example.com", "111111");
+        now.addAndGet(100_000);
+        storeOtp.storeOtp("b@example.com", "222222");
+
+        // only the first one is due
+        now.addAndGet(202_000);
+        storeOtp.tick();
+
+        assertEquals(1, storeOtp.size());
+        assertEquals(VerifyResult.VALID, storeOtp.verifyOtp("b@example.com", "222222"));
+        assertEquals(1.0, meterRegistry.counter("iam.otp.store.expirations").count());
+    }
+
+    @Test
+    void tick_ShouldKeepOtpRestoredAfterItWasScheduled() {
+        String email = "user@example.com";
+        storeOtp.storeOtp(email, "111111");
+        now.addAndGet(200_000);
+        storeOtp.storeOtp(email, "222222");
+
+        // the first expiry slot is drained, the re-stored OTP lives on
+        now.addAndGet(102_000);
+        storeOtp.tick();
+
+        assertEquals(1, storeOtp.size());
+        assertEquals(VerifyResult.INVALID, storeOtp.verifyOtp(email, "111111"));
+
+        now.addAndGet(200_000);
+        storeOtp.tick();
+
+        assertEquals(0, storeOtp.size());
+    }
+
+    @Test
+    void storeOtp_ShouldEvictClosestToExpiryWhenFull() {
+        storeOtp.storeOtp("a@example.com", "111111");
+        now.addAndGet(2_000);
+        storeOtp.storeOtp("b@example.com", "222222");
+        now.addAndGet(2_000);
+        storeOtp.storeOtp("c@example.com", "333333");
+        now.addAndGet(2_000);
+
+        storeOtp.storeOtp("d@example.com", "444444");
+
+        assertEquals(3, storeOtp.size());
+        assertEquals(1.0, meterRegistry.counter("iam.otp.store.evictions").count());
+        assertEquals(VerifyResult.NOT_FOUND, storeOtp.verifyOtp("a@example.com", "111111"));
+        assertEquals(VerifyResult.VALID, storeOtp.verifyOtp("d@example.com", "444444"));
+    }
+}
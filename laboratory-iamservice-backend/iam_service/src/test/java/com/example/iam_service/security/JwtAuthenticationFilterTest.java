@@ -5,6 +5,7 @@ import com.example.iam_service.entity.User;
 import com.example.iam_service.repository.UserRepository;
 import com.example.iam_service.util.JwtUtil;
 import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -53,6 +55,16 @@ public class JwtAuthenticationFilterTest {
     @Mock
     private FilterChain filterChain;
 
+    @Spy
+    private PrincipalCache principalCache = new PrincipalCache(new SimpleMeterRegistry(), 60, 100);
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Spy
+    private IdentityAssertionVerifier identityAssertionVerifier =
+            new IdentityAssertionVerifier(IdentityAssertionVerifierTest.SECRET);
+
     @InjectMocks
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -537,4 +549,127 @@ public class JwtAuthenticationFilterTest {
         assertEquals(5, auth.getAuthorities().size());
     }
 
+    // ==================== PRINCIPAL CACHE ====================
+
+    @Test
+    @DisplayName("Should serve repeat requests from principal cache without DB lookups")
+    void doFilterInternal_repeatRequest_shouldUseCachedPrincipal() throws ServletException, IOException {
+        // Arrange
+        when(request.getRequestURI()).thenReturn("/api/users");
+        when(request.getHeader("X-Auth-Token")).thenReturn(null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtUtil.validate(validToken)).thenReturn(testUserId.toString());
+        when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUser));
+        when(jwtUtil.getUserAuthoritiesV2(testUser)).thenReturn(List.of(
+                new SimpleGrantedAuthority("ROLE_ADMIN")
+        ));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(userRepository, times(1)).findById(testUserId);
+        verify(jwtUtil, times(1)).getUserAuthoritiesV2(testUser);
+        verify(filterChain, times(2)).doFilter(request, response);
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(auth);
+        assertEquals(testUser, auth.getPrincipal());
+        assertEquals(1, auth.getAuthorities().size());
+    }
+
+    @Test
+    @DisplayName("Should reload principal after it has been invalidated")
+    void doFilterInternal_invalidatedPrincipal_shouldReloadFromDatabase() throws ServletException, IOException {
+        // Arrange
+        when(request.getRequestURI()).thenReturn("/api/users");
+        when(request.getHeader("X-Auth-Token")).thenReturn(null);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtUtil.validate(validToken)).thenReturn(testUserId.toString());
+        when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUser));
+        when(jwtUtil.getUserAuthoritiesV2(testUser)).thenReturn(List.of(
+                new SimpleGrantedAuthority("ROLE_ADMIN")
+        ));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        principalCache.invalidate(testUser);
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(userRepository, times(2)).findById(testUserId);
+    }
+
+    // ==================== GATEWAY IDENTITY ASSERTION ====================
+
+    @Test
+    @DisplayName("Should authenticate from gateway identity assertion without parsing the JWT")
+    void doFilterInternal_identityAssertion_shouldSkipJwtValidation() throws ServletException, IOException {
+        // Arrange
+        String assertion = IdentityAssertionVerifierTest.assertion(
+                testUserId + "|ROLE_ADMIN|3|" + (System.currentTimeMillis() + 60_000));
+        when(request.getRequestURI()).thenReturn("/api/users");
+        when(request.getHeader("X-Auth-Token")).thenReturn(null);
+        when(request.getHeader("Authorization")).thenReturn(null);
+        when(request.getHeader(IdentityAssertionVerifier.HEADER)).thenReturn(assertion);
+        when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUser));
+        when(jwtUtil.getUserAuthoritiesV2(testUser)).thenReturn(List.of(
+                new SimpleGrantedAuthority("ROLE_ADMIN")
+        ));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(jwtUtil, never()).validate(anyString());
+        verify(filterChain).doFilter(request, response);
+        assertEquals(testUser, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
+    @Test
+    @DisplayName("Should return 401 when gateway identity assertion is forged")
+    void doFilterInternal_forgedIdentityAssertion_shouldReturn401() throws ServletException, IOException {
+        // Arrange
+        String assertion = IdentityAssertionVerifierTest.assertion(
+                testUserId + "|ROLE_ADMIN|3|" + (System.currentTimeMillis() + 60_000));
+        String forged = assertion.substring(0, assertion.indexOf('.') + 1) + "AAAA";
+        StringWriter stringWriter = new StringWriter();
+        when(request.getRequestURI()).thenReturn("/api/users");
+        when(request.getHeader("X-Auth-Token")).thenReturn(null);
+        when(request.getHeader("Authorization")).thenReturn(null);
+        when(request.getHeader(IdentityAssertionVerifier.HEADER)).thenReturn(forged);
+        when(response.getWriter()).thenReturn(new PrintWriter(stringWriter));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(response).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        verify(filterChain, never()).doFilter(request, response);
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should return 401 when the token behind the identity assertion is revoked")
+    void doFilterInternal_revokedIdentityAssertion_shouldReturn401() throws ServletException, IOException {
+        // Arrange
+        String assertion = IdentityAssertionVerifierTest.assertion(
+                testUserId + "|ROLE_ADMIN|3|" + (System.currentTimeMillis() + 60_000) + "|jti-1");
+        StringWriter stringWriter = new StringWriter();
+        when(request.getRequestURI()).thenReturn("/api/users");
+        when(request.getHeader("X-Auth-Token")).thenReturn(null);
+        when(request.getHeader("Authorization")).thenReturn(null);
+        when(request.getHeader(IdentityAssertionVerifier.HEADER)).thenReturn(assertion);
+        when(tokenRevocationService.isRevoked("jti-1")).thenReturn(true);
+        when(response.getWriter()).thenReturn(new PrintWriter(stringWriter));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(response).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        verify(filterChain, never()).doFilter(request, response);
+    }
 }
@@ -0,0 +1,95 @@
+package com.example.iam_service.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashPoolTest {
+
+    private PasswordHashPool pool;
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should hash every password and keep the input order")
+    void encodeAll_ShouldKeepInputOrder() {
+        // Arrange
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        pool = new PasswordHashPool(encoder, new SimpleMeterRegistry(), 4, 100);
+        List<String> raw = IntStream.range(0, 20).mapToObj(i -> "password-" + i).toList();
+
+        // Act
+        List<String> hashes = pool.encodeAll(raw);
+
+        // Assert
+        assertEquals(raw.size(), hashes.size());
+        for (int i = 0; i < raw.size(); i++) {
+            assertTrue(encoder.matches(raw.get(i), hashes.get(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should hash on the pool threads")
+    void encodeAll_ShouldRunOnPoolThreads() {
+        // Arrange
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        PasswordEncoder encoder = recordingEncoder(threads);
+        pool = new PasswordHashPool(encoder, new SimpleMeterRegistry(), 2, 100);
+
+        // Act
+        pool.encodeAll(List.of("a", "b", "c", "d"));
+
+        // Assert
+        assertFalse(threads.isEmpty());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("PasswordHash-")));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the caller when the queue is full")
+    void encodeAll_ShouldRunOnCallerWhenSaturated() {
+        // Arrange
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        pool = new PasswordHashPool(recordingEncoder(threads), new SimpleMeterRegistry(), 1, 1);
+        List<String> raw = IntStream.range(0, 50).mapToObj(i -> "password-" + i).toList();
+
+        // Act
+        List<String> hashes = pool.encodeAll(raw);
+
+        // Assert
+        assertEquals(50, hashes.size());
+        assertTrue(threads.contains(Thread.currentThread().getName()));
+    }
+
+    private PasswordEncoder recordingEncoder(Set<String> threads) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                threads.add(Thread.currentThread().getName());
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hashed:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals("hashed:" + rawPassword);
+            }
+        };
+    }
+}
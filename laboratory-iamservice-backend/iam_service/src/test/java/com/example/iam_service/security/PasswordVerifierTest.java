@@ -0,0 +1,162 @@
+package com.example.iam_service.security;
+
+import com.example.iam_service.exception.PasswordHashBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordVerifierTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordVerifier verifier;
+    private ExecutorService callers;
+
+    @AfterEach
+    void tearDown() {
+        if (verifier != null) verifier.shutdown();
+        if (callers != null) callers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should match on the pool without rehashing a hash of the configured cost")
+    void verify_SameCost_ShouldNotRehash() {
+        // Arrange
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+        verifier = new PasswordVerifier(encoder, meterRegistry, 4, 2, 10, 1000);
+        String hash = encoder.encode("secret");
+
+        // Act
+        PasswordVerifier.Result ok = verifier.verify("secret", hash);
+        PasswordVerifier.Result wrong = verifier.verify("other", hash);
+
+        // Assert
+        assertTrue(ok.matches());
+        assertNull(ok.rehashed());
+        assertFalse(wrong.matches());
+        assertEquals(2, meterRegistry.get("iam.password.hash.duration").tag("op", "matches").timer().count());
+        assertEquals(2, meterRegistry.get("iam.password.hash.queue.wait").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should rehash with the configured cost after a successful match")
+    void verify_OtherCost_ShouldRehash() {
+        // Arrange
+        String oldHash = new BCryptPasswordEncoder(4).encode("secret");
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(5);
+        verifier = new PasswordVerifier(encoder, meterRegistry, 5, 1, 10, 1000);
+
+        // Act
+        PasswordVerifier.Result result = verifier.verify("secret", oldHash);
+
+        // Assert
+        assertTrue(result.matches());
+        assertNotNull(result.rehashed());
+        assertTrue(result.rehashed().startsWith("$2a$05$"));
+        assertTrue(encoder.matches("secret", result.rehashed()));
+    }
+
+    @Test
+    @DisplayName("Should not rehash on a wrong password")
+    void verify_WrongPasswordOtherCost_ShouldNotRehash() {
+        // Arrange
+        String oldHash = new BCryptPasswordEncoder(4).encode("secret");
+        verifier = new PasswordVerifier(new BCryptPasswordEncoder(5), meterRegistry, 5, 1, 10, 1000);
+
+        // Act
+        PasswordVerifier.Result result = verifier.verify("other", oldHash);
+
+        // Assert
+        assertFalse(result.matches());
+        assertNull(result.rehashed());
+    }
+
+    @Test
+    @DisplayName("Should refuse right away when the queue is full")
+    void verify_QueueFull_ShouldFailFast() throws Exception {
+        // Arrange: one thread, one queue slot, both taken
+        CountDownLatch release = new CountDownLatch(1);
+        verifier = new PasswordVerifier(blockingEncoder(release), meterRegistry, 10, 1, 1, 5000);
+        callers = Executors.newFixedThreadPool(2);
+        Future<?> running = callers.submit(() -> verifier.verify("a", "hash"));
+        Future<?> queued = callers.submit(() -> verifier.verify("b", "hash"));
+        waitForQueue(1);
+
+        // Act & Assert
+        assertThrows(PasswordHashBusyException.class, () -> verifier.verify("c", "hash"));
+        assertEquals(1.0, meterRegistry.get("iam.password.hash.rejected").tag("reason", "queue_full").counter().count());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should give up when the check waited too long in the queue")
+    void verify_QueueWaitExceeded_ShouldTimeOut() throws Exception {
+        // Arrange: the only thread is busy longer than the allowed wait
+        CountDownLatch release = new CountDownLatch(1);
+        verifier = new PasswordVerifier(blockingEncoder(release), meterRegistry, 10, 1, 10, 50);
+        callers = Executors.newSingleThreadExecutor();
+        Future<?> running = callers.submit(() -> verifier.verify("a", "hash"));
+        Thread.sleep(20);
+
+        // Act & Assert
+        assertThrows(PasswordHashBusyException.class, () -> verifier.verify("b", "hash"));
+        assertEquals(1.0, meterRegistry.get("iam.password.hash.rejected").tag("reason", "queue_timeout").counter().count());
+
+        // the check already hashing is still answered, the dropped one never runs
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        Thread.sleep(20);
+        assertEquals(1, meterRegistry.get("iam.password.hash.duration").tag("op", "matches").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should read the bcrypt cost from the hash")
+    void needsRehash_ShouldCompareCost() {
+        verifier = new PasswordVerifier(new BCryptPasswordEncoder(10), meterRegistry, 10, 1, 1, 100);
+
+        assertFalse(verifier.needsRehash("$2a$10$jLVqx5vmeuOtYV7YpKuw9OuSQ085oaEThI42F9pkws/1aEYoixnZi"));
+        assertTrue(verifier.needsRehash("$2a$12$jLVqx5vmeuOtYV7YpKuw9OuSQ085oaEThI42F9pkws/1aEYoixnZi"));
+        assertFalse(verifier.needsRehash("plain"));
+        assertFalse(verifier.needsRehash(null));
+    }
+
+    private void waitForQueue(int size) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (meterRegistry.get("iam.password.hash.queue.size").gauge().value() >= size) return;
+            Thread.sleep(10);
+        }
+        fail("queue never reached " + size);
+    }
+
+    private PasswordEncoder blockingEncoder(CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+    }
+}
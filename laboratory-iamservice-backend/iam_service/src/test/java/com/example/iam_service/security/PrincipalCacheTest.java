@@ -0,0 +1,112 @@
+package com.example.iam_service.security;
+
+import com.example.iam_service.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalCache principalCache;
+
+    private final List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(meterRegistry, 60, 3);
+    }
+
+    private User user(String roleCode, long version) {
+        User user = new User();
+        user.setUserId(UUID.randomUUID());
+        user.setRoleCode(roleCode);
+        user.setVersion(version);
+        return user;
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("iam.principal.cache.requests").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should return cached principal and count hits and misses")
+    void get_ShouldCountHitsAndMisses() {
+        User user = user("ROLE_ADMIN", 0);
+
+        assertNull(principalCache.get(user.getUserId()));
+        principalCache.put(user, authorities);
+        PrincipalCache.Entry entry = principalCache.get(user.getUserId());
+
+        assertNotNull(entry);
+        assertSame(user, entry.user());
+        assertEquals(authorities, entry.authorities());
+        assertEquals(1, requests("hit"));
+        assertEquals(1, requests("miss"));
+    }
+
+    @Test
+    @DisplayName("Should treat entries older than the TTL as a miss")
+    void get_ShouldExpireEntries() {
+        PrincipalCache shortLived = new PrincipalCache(new SimpleMeterRegistry(), 0, 10);
+        User user = user("ROLE_ADMIN", 0);
+
+        shortLived.put(user, authorities);
+
+        assertNull(shortLived.get(user.getUserId()));
+        assertEquals(0, shortLived.size());
+    }
+
+    @Test
+    @DisplayName("Should never hold more entries than the configured maximum")
+    void put_ShouldStayBounded() {
+        for (int i = 0; i < 10; i++) {
+            principalCache.put(user("ROLE_ADMIN", 0), authorities);
+        }
+
+        assertEquals(3, principalCache.size());
+        assertEquals(7, meterRegistry.get("iam.principal.cache.evictions").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should reject a stale snapshot read before an invalidation")
+    void invalidate_ShouldRejectOlderVersion() {
+        User stale = user("ROLE_ADMIN", 1);
+        User updated = user("ROLE_ADMIN", 2);
+        updated.setUserId(stale.getUserId());
+
+        principalCache.put(stale, authorities);
+        principalCache.invalidate(updated);
+        assertNull(principalCache.get(stale.getUserId()));
+
+        // a reader that loaded version 1 before the commit must not repopulate the cache
+        principalCache.put(stale, authorities);
+        assertNull(principalCache.get(stale.getUserId()));
+
+        principalCache.put(updated, authorities);
+        assertSame(updated, principalCache.get(updated.getUserId()).user());
+    }
+
+    @Test
+    @DisplayName("Should evict every principal holding an updated role")
+    void invalidateRole_ShouldEvictMatchingPrincipals() {
+        User admin = user("ROLE_ADMIN", 0);
+        User patient = user("ROLE_PATIENT", 0);
+        principalCache.put(admin, authorities);
+        principalCache.put(patient, authorities);
+
+        principalCache.invalidateRole("ROLE_ADMIN");
+
+        assertNull(principalCache.get(admin.getUserId()));
+        assertNotNull(principalCache.get(patient.getUserId()));
+    }
+}
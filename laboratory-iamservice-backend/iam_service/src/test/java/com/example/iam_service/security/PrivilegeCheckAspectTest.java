@@ -0,0 +1,147 @@
+package com.example.iam_service.security;
+
+import com.example.iam_service.entity.Enum.Privileges;
+import com.example.iam_service.entity.User;
+import com.example.iam_service.exception.InsufficientPrivilegesException;
+import com.example.iam_service.util.PrivilegeMask;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrivilegeCheckAspectTest {
+
+    @Mock
+    private RoleAuthorityRegistry roleAuthorityRegistry;
+
+    @Mock
+    private JoinPoint joinPoint;
+
+    @Mock
+    private MethodSignature signature;
+
+    @InjectMocks
+    private PrivilegeCheckAspect aspect;
+
+    // annotated targets used as join point methods
+    static class Target {
+        @PrivilegesRequired(values = {Privileges.VIEW_USER, Privileges.CREATE_USER}, requireAll = true)
+        void requireAll() {
+        }
+
+        @PrivilegesRequired(values = {Privileges.VIEW_USER, Privileges.CREATE_USER}, requireAll = false, message = "No access")
+        void requireAny() {
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void mockJoinPoint(String methodName) throws NoSuchMethodException {
+        Method method = Target.class.getDeclaredMethod(methodName);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(method);
+    }
+
+    private void authenticate(String roleCode) {
+        User user = new User();
+        user.setEmail("user@example.com");
+        user.setRoleCode(roleCode);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    @Test
+    @DisplayName("Should pass when role has all required privileges")
+    void checkPrivileges_ShouldPass_WhenRoleHasAll() throws Exception {
+        // Arrange
+        mockJoinPoint("requireAll");
+        authenticate("ROLE_ADMIN");
+        when(roleAuthorityRegistry.getPrivilegeMask("ROLE_ADMIN"))
+                .thenReturn(PrivilegeMask.of(Privileges.VIEW_USER, Privileges.CREATE_USER, Privileges.READ_ONLY));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> aspect.checkPrivileges(joinPoint));
+    }
+
+    @Test
+    @DisplayName("Should deny when role misses one of the required privileges")
+    void checkPrivileges_ShouldDeny_WhenRoleMissesOne() throws Exception {
+        // Arrange
+        mockJoinPoint("requireAll");
+        authenticate("ROLE_LAB_USER");
+        when(roleAuthorityRegistry.getPrivilegeMask("ROLE_LAB_USER"))
+                .thenReturn(PrivilegeMask.of(Privileges.VIEW_USER));
+
+        // Act & Assert
+        assertThrows(InsufficientPrivilegesException.class, () -> aspect.checkPrivileges(joinPoint));
+    }
+
+    @Test
+    @DisplayName("Should pass with any required privilege and deny with the annotation message otherwise")
+    void checkPrivileges_RequireAny() throws Exception {
+        // Arrange
+        mockJoinPoint("requireAny");
+        authenticate("ROLE_LAB_USER");
+        when(roleAuthorityRegistry.getPrivilegeMask("ROLE_LAB_USER"))
+                .thenReturn(PrivilegeMask.of(Privileges.CREATE_USER))
+                .thenReturn(PrivilegeMask.of(Privileges.READ_ONLY));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> aspect.checkPrivileges(joinPoint));
+        InsufficientPrivilegesException ex = assertThrows(InsufficientPrivilegesException.class,
+                () -> aspect.checkPrivileges(joinPoint));
+        assertEquals("No access", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should deny when no user is authenticated")
+    void checkPrivileges_ShouldDeny_WhenNotAuthenticated() throws Exception {
+        // Arrange
+        mockJoinPoint("requireAll");
+
+        // Act & Assert
+        assertThrows(InsufficientPrivilegesException.class, () -> aspect.checkPrivileges(joinPoint));
+        verifyNoInteractions(roleAuthorityRegistry);
+    }
+
+    @Test
+    @DisplayName("Should grant when nothing is required and deny an empty role mask")
+    void checkPrivileges_MaskEdgeCases() {
+        assertTrue(PrivilegeCheckAspect.checkPrivileges(PrivilegeMask.of(Privileges.READ_ONLY), 0L, true));
+        assertFalse(PrivilegeCheckAspect.checkPrivileges(0L, PrivilegeMask.of(Privileges.READ_ONLY), false));
+    }
+
+    @Test
+    @DisplayName("Should identify a User principal by id only, never by its toString")
+    void subjectOf_ShouldNotExposeUserDetails() {
+        User user = new User();
+        user.setUserId(UUID.randomUUID());
+        user.setPassword("$2a$10$hash");
+        user.setIdentityNumber("079203001234");
+        UsernamePasswordAuthenticationToken auth =
+                new UsernamePasswordAuthenticationToken(user, null, List.of());
+
+        String subject = PrivilegeCheckAspect.subjectOf(auth);
+
+        assertEquals(user.getUserId().toString(), subject);
+        assertFalse(subject.contains("079203001234"));
+    }
+}
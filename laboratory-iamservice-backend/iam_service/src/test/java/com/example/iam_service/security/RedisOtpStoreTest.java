@@ -0,0 +1,119 @@
+package com.example.iam_service.security;
+
+import com.example.iam_service.security.OtpStore.VerifyResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+@ExtendWith(MockitoExtension.class)
+class RedisOtpStoreTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private RedisOtpStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new RedisOtpStore(redisTemplate, "otp-hmac-key", 300, 5);
+    }
+
+    @Test
+    @DisplayName("Should store only the MAC of the OTP with a native TTL")
+    void storeOtp_ShouldStoreMacWithTtl() {
+        // Act
+        store.storeOtp("user@example.com", "ABC123");
+
+        // Assert
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(eq(RedisOtpStore.ISSUE),
+                eq(List.of(RedisOtpStore.key("user@example.com"))), args.capture());
+        assertNotEquals("ABC123", args.getValue()[0]);
+        assertEquals(64, args.getValue()[0].toString().length());
+        assertEquals("300000", args.getValue()[1]);
+    }
+
+    @Test
+    @DisplayName("Should send the same MAC on verify as on store")
+    void verifyOtp_ShouldCompareMacs() {
+        // Arrange
+        store.storeOtp("user@example.com", "ABC123");
+        ArgumentCaptor<Object[]> stored = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(eq(RedisOtpStore.ISSUE), anyList(), stored.capture());
+
+        when(redisTemplate.execute(eq(RedisOtpStore.VERIFY), anyList(), any(Object[].class))).thenReturn(1L);
+
+        // Act
+        VerifyResult result = store.verifyOtp("user@example.com", "ABC123");
+
+        // Assert
+        ArgumentCaptor<Object[]> verified = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(eq(RedisOtpStore.VERIFY), anyList(), verified.capture());
+        assertEquals(VerifyResult.VALID, result);
+        assertEquals(stored.getValue()[0], verified.getValue()[0]);
+        assertEquals("5", verified.getValue()[1]);
+    }
+
+    @Test
+    @DisplayName("Should map the script results")
+    void verifyOtp_ShouldMapScriptResults() {
+        // Arrange
+        when(redisTemplate.execute(eq(RedisOtpStore.VERIFY), anyList(), any(Object[].class)))
+                .thenReturn(0L, 2L, 3L, null);
+
+        // Act & Assert
+        assertEquals(VerifyResult.NOT_FOUND, store.verifyOtp("user@example.com", "ABC123"));
+        assertEquals(VerifyResult.INVALID, store.verifyOtp("user@example.com", "ABC123"));
+        assertEquals(VerifyResult.LOCKED, store.verifyOtp("user@example.com", "ABC123"));
+        assertEquals(VerifyResult.NOT_FOUND, store.verifyOtp("user@example.com", "ABC123"));
+    }
+
+    @Test
+    @DisplayName("Should not hit Redis for a missing code")
+    void verifyOtp_ShouldRejectNullCode() {
+        // Act
+        VerifyResult result = store.verifyOtp("user@example.com", null);
+
+        // Assert
+        assertEquals(VerifyResult.INVALID, result);
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should key the MAC with the server side key and the email")
+    void storeOtp_ShouldDependOnKeyAndEmail() {
+        // Arrange
+        RedisOtpStore otherKey = new RedisOtpStore(redisTemplate, "another-hmac-key", 300, 5);
+
+        // Act
+        store.storeOtp("user@example.com", "ABC123");
+        otherKey.storeOtp("user@example.com", "ABC123");
+        store.storeOtp("other@example.com", "ABC123");
+
+        // Assert
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate, times(3)).execute(eq(RedisOtpStore.ISSUE), anyList(), args.capture());
+        List<Object[]> calls = args.getAllValues();
+        assertNotEquals(calls.get(0)[0], calls.get(1)[0]);
+        assertNotEquals(calls.get(0)[0], calls.get(2)[0]);
+    }
+
+    @Test
+    @DisplayName("Should refuse to start without an HMAC key")
+    void constructor_ShouldThrow_WhenKeyMissing() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new RedisOtpStore(redisTemplate, "", 300, 5));
+    }
+}
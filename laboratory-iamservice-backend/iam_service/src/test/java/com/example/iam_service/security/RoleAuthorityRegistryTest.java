@@ -0,0 +1,134 @@
+package com.example.iam_service.security;
+
+import com.example.iam_service.entity.Enum.Privileges;
+import com.example.iam_service.entity.Role;
+import com.example.iam_service.repository.RoleRepository;
+import com.example.iam_service.util.PrivilegeMask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleAuthorityRegistryTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    private RoleAuthorityRegistry registry;
+
+    private Role admin;
+    private Role patient;
+
+    @BeforeEach
+    void setUp() {
+        registry = new RoleAuthorityRegistry(roleRepository, 30_000);
+        admin = Role.builder()
+                .code("ROLE_ADMIN")
+                .privileges(EnumSet.of(Privileges.VIEW_USER, Privileges.CREATE_USER))
+                .build();
+        patient = Role.builder()
+                .code("ROLE_PATIENT")
+                .privileges(EnumSet.of(Privileges.READ_ONLY))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should pre-build authorities and bitmask for every role on reload")
+    void reload_ShouldCompileAllRoles() {
+        when(roleRepository.findAll()).thenReturn(List.of(admin, patient));
+
+        registry.reload();
+
+        RoleAuthorityRegistry.RoleAuthorities compiled = registry.get("ROLE_ADMIN");
+        assertEquals(List.of(
+                new SimpleGrantedAuthority("ROLE_ADMIN"),
+                new SimpleGrantedAuthority("CREATE_USER"),
+                new SimpleGrantedAuthority("VIEW_USER")), compiled.authorities());
+        assertEquals(PrivilegeMask.of(Privileges.VIEW_USER, Privileges.CREATE_USER), compiled.privilegeMask());
+        assertEquals(PrivilegeMask.of(Privileges.READ_ONLY), registry.getPrivilegeMask("ROLE_PATIENT"));
+        verify(roleRepository, never()).findPrivilegesByCode(anyString());
+    }
+
+    @Test
+    @DisplayName("Should return immutable authority lists")
+    void get_ShouldReturnImmutableAuthorities() {
+        when(roleRepository.findAll()).thenReturn(List.of(admin));
+        registry.reload();
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> registry.getAuthorities("ROLE_ADMIN").add(new SimpleGrantedAuthority("X")));
+    }
+
+    @Test
+    @DisplayName("Should swap in updated privileges on register")
+    void register_ShouldReplaceRoleEntry() {
+        when(roleRepository.findAll()).thenReturn(List.of(admin));
+        registry.reload();
+
+        admin.setPrivileges(EnumSet.of(Privileges.DELETE_USER));
+        registry.register(admin);
+
+        assertEquals(PrivilegeMask.of(Privileges.DELETE_USER), registry.getPrivilegeMask("ROLE_ADMIN"));
+        assertTrue(registry.getAuthorities("ROLE_ADMIN").contains(new SimpleGrantedAuthority("DELETE_USER")));
+        assertFalse(registry.getAuthorities("ROLE_ADMIN").contains(new SimpleGrantedAuthority("VIEW_USER")));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the repository once a role is unregistered")
+    void unregister_ShouldRemoveRoleEntry() {
+        when(roleRepository.findAll()).thenReturn(List.of(admin));
+        registry.reload();
+
+        registry.unregister("ROLE_ADMIN");
+        when(roleRepository.findPrivilegesByCode("ROLE_ADMIN")).thenReturn(null);
+
+        assertEquals(0L, registry.getPrivilegeMask("ROLE_ADMIN"));
+        verify(roleRepository).findPrivilegesByCode("ROLE_ADMIN");
+    }
+
+    @Test
+    @DisplayName("Should remember a missing role instead of querying on every call")
+    void get_ShouldCacheMissingRole() {
+        when(roleRepository.findPrivilegesByCode("ROLE_GONE")).thenReturn(null);
+
+        registry.get("ROLE_GONE");
+        RoleAuthorityRegistry.RoleAuthorities second = registry.get("ROLE_GONE");
+
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_GONE")), second.authorities());
+        assertEquals(0L, second.privilegeMask());
+        verify(roleRepository, times(1)).findPrivilegesByCode("ROLE_GONE");
+    }
+
+    @Test
+    @DisplayName("Should forget a missing role once it is registered")
+    void register_ShouldClearMissingRole() {
+        when(roleRepository.findPrivilegesByCode("ROLE_ADMIN")).thenReturn(null);
+        assertEquals(0L, registry.getPrivilegeMask("ROLE_ADMIN"));
+
+        registry.register(admin);
+
+        assertEquals(PrivilegeMask.of(Privileges.VIEW_USER, Privileges.CREATE_USER), registry.getPrivilegeMask("ROLE_ADMIN"));
+    }
+
+    @Test
+    @DisplayName("Should query a missing role again after the TTL")
+    void get_ShouldRetryMissingRole_AfterTtl() {
+        RoleAuthorityRegistry noTtl = new RoleAuthorityRegistry(roleRepository, 0);
+        when(roleRepository.findPrivilegesByCode("ROLE_NEW")).thenReturn(null, patient);
+
+        noTtl.get("ROLE_NEW");
+
+        assertEquals(PrivilegeMask.of(Privileges.READ_ONLY), noTtl.getPrivilegeMask("ROLE_NEW"));
+        verify(roleRepository, times(2)).findPrivilegesByCode("ROLE_NEW");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.iam_service.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        revocationService = new TokenRevocationService(redisTemplate, new SimpleMeterRegistry(), 1000, 0.001);
+    }
+
+    @Test
+    @DisplayName("Should answer not revoked from the Bloom filter without Redis")
+    void isRevoked_ShouldSkipRedis_WhenFilterNegative() {
+        assertFalse(revocationService.isRevoked("never-revoked"));
+        assertFalse(revocationService.isRevoked(null));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should store jti with remaining lifetime, publish it and confirm it in Redis")
+    void revoke_ShouldStoreAndPublish() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.hasKey("revoked:jti:jti-1")).thenReturn(true);
+
+        // Act
+        revocationService.revoke("jti-1", System.currentTimeMillis() + 60_000);
+
+        // Assert
+        verify(valueOperations).set(eq("revoked:jti:jti-1"), eq("1"), any(Duration.class));
+        verify(redisTemplate).convertAndSend(TokenRevocationService.CHANNEL, "jti-1");
+        assertTrue(revocationService.isRevoked("jti-1"));
+    }
+
+    @Test
+    @DisplayName("Should ignore already expired tokens")
+    void revoke_ShouldIgnoreExpiredToken() {
+        revocationService.revoke("jti-1", System.currentTimeMillis() - 1);
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should add jtis revoked on other instances and treat Redis errors as revoked")
+    void onMessage_ShouldAddToFilter() {
+        // Arrange
+        when(redisTemplate.hasKey("revoked:jti:jti-2")).thenThrow(new RuntimeException("Redis down"));
+
+        // Act
+        revocationService.onMessage(new DefaultMessage(
+                TokenRevocationService.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "jti-2".getBytes(StandardCharsets.UTF_8)), null);
+
+        // Assert
+        assertTrue(revocationService.isRevoked("jti-2"));
+    }
+}
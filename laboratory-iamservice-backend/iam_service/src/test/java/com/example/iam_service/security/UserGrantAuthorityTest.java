@@ -4,11 +4,10 @@ import com.example.iam_service.entity.Role;
 import com.example.iam_service.entity.User;
 import com.example.iam_service.entity.Enum.Privileges;
 import com.example.iam_service.repository.RoleRepository;
-import com.example.iam_service.util.PrivilegesConverter;
+import com.example.iam_service.util.PrivilegeMask;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,13 +23,9 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class UserGrantAuthorityTest {
 
-    @Mock
-    private PrivilegesConverter privilegesConverter;
-
     @Mock
     private RoleRepository roleRepo;
 
-    @InjectMocks
     private UserGrantAuthority userGrantAuthority;
 
     private User user;
@@ -38,10 +33,13 @@ class UserGrantAuthorityTest {
 
     @BeforeEach
     void setUp() {
+        userGrantAuthority = new UserGrantAuthority(new RoleAuthorityRegistry(roleRepo, 30_000));
+
         user = new User();
         user.setRoleCode("ROLE_ADMIN");
 
         role = new Role();
+        role.setCode("ROLE_ADMIN");
         role.setPrivileges(EnumSet.of(Privileges.VIEW_USER, Privileges.CREATE_USER));
     }
 
@@ -50,8 +48,6 @@ class UserGrantAuthorityTest {
     void getAuthorityByUser_ShouldReturnAuthorities() {
         // Arrange
         when(roleRepo.findPrivilegesByCode("ROLE_ADMIN")).thenReturn(role);
-        when(privilegesConverter.convertToDatabaseColumn(role.getPrivileges()))
-                .thenReturn("VIEW_USER,CREATE_USER");
 
         // Act
         List<GrantedAuthority> authorities = userGrantAuthority.getAuthorityByUser(user);
@@ -64,7 +60,23 @@ class UserGrantAuthorityTest {
         assertTrue(authorities.contains(new SimpleGrantedAuthority("CREATE_USER")));
 
         verify(roleRepo, times(1)).findPrivilegesByCode("ROLE_ADMIN");
-        verify(privilegesConverter, times(1)).convertToDatabaseColumn(role.getPrivileges());
+    }
+
+    @Test
+    @DisplayName("Should resolve repeat lookups from the registry without touching the repository")
+    void getAuthorityByUser_ShouldReuseRegisteredAuthorities() {
+        // Arrange
+        when(roleRepo.findPrivilegesByCode("ROLE_ADMIN")).thenReturn(role);
+
+        // Act
+        List<GrantedAuthority> first = userGrantAuthority.getAuthorityByUser(user);
+        List<GrantedAuthority> second = userGrantAuthority.getAuthorityByUser(user);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(PrivilegeMask.of(Privileges.VIEW_USER, Privileges.CREATE_USER),
+                userGrantAuthority.getPrivilegeMaskByUser(user));
+        verify(roleRepo, times(1)).findPrivilegesByCode("ROLE_ADMIN");
     }
 
     @Test
@@ -80,24 +92,19 @@ class UserGrantAuthorityTest {
 
         assertTrue(ex.getMessage().contains("DB error"));
         verify(roleRepo, times(1)).findPrivilegesByCode("ROLE_ADMIN");
-        verifyNoInteractions(privilegesConverter);
     }
 
     @Test
-    @DisplayName("Should throw RuntimeException if privilegesConverter throws exception")
-    void getAuthorityByUser_ShouldThrowRuntimeException_WhenPrivilegesConverterFails() {
+    @DisplayName("Should grant only the role authority when the role does not exist")
+    void getAuthorityByUser_ShouldReturnRoleOnly_WhenRoleMissing() {
         // Arrange
-        when(roleRepo.findPrivilegesByCode("ROLE_ADMIN")).thenReturn(role);
-        when(privilegesConverter.convertToDatabaseColumn(role.getPrivileges()))
-                .thenThrow(new RuntimeException("Conversion failed"));
+        when(roleRepo.findPrivilegesByCode("ROLE_ADMIN")).thenReturn(null);
 
-        // Act & Assert
-        RuntimeException ex = assertThrows(RuntimeException.class, () -> {
-            userGrantAuthority.getAuthorityByUser(user);
-        });
+        // Act
+        List<GrantedAuthority> authorities = userGrantAuthority.getAuthorityByUser(user);
 
-        assertTrue(ex.getMessage().contains("Conversion failed"));
-        verify(roleRepo, times(1)).findPrivilegesByCode("ROLE_ADMIN");
-        verify(privilegesConverter, times(1)).convertToDatabaseColumn(role.getPrivileges());
+        // Assert
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), authorities);
+        assertEquals(0L, userGrantAuthority.getPrivilegeMaskByUser(user));
     }
-}
\ No newline at end of file
+}
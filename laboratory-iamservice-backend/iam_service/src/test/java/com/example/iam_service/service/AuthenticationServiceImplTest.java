@@ -4,8 +4,13 @@ package com.example.iam_service.service;
 import com.example.iam_service.audit.AuditPublisher;
 import com.example.iam_service.entity.Token;
 import com.example.iam_service.entity.User;
-import com.example.iam_service.repository.RefreshTokenRepository;
+import com.example.iam_service.repository.RefreshTokenStore;
+import com.example.iam_service.repository.UserCredentials;
 import com.example.iam_service.repository.UserRepository;
+import com.example.iam_service.security.PasswordVerifier;
+import com.example.iam_service.security.PrincipalCache;
+import com.example.iam_service.security.JwtKeyRing;
+import com.example.iam_service.security.TokenRevocationService;
 import com.example.iam_service.security.UserGrantAuthority;
 import com.example.iam_service.serviceImpl.AuthenticationServiceImpl;
 import com.example.iam_service.util.JwtUtil;
@@ -19,6 +24,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -34,6 +40,9 @@ import javax.crypto.spec.SecretKeySpec;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
@@ -58,7 +67,7 @@ public class AuthenticationServiceImplTest {
     private UserRepository userRepository;
 
     @Mock
-    private RefreshTokenRepository refreshRepo;
+    private RefreshTokenStore refreshTokenStore;
 
     @Mock
     private UserGrantAuthority grantAuthority;
@@ -67,40 +76,89 @@ public class AuthenticationServiceImplTest {
 
     @Mock
     private AuditPublisher auditPublisher;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private PasswordVerifier passwordVerifier;
     @InjectMocks
     private AuthenticationServiceImpl authenticationService; // Test class
 
+    private static UserCredentials credentials(String password) {
+        return new UserCredentials(UUID.randomUUID(), password, true, false, "ROLE_ADMIN", 0L);
+    }
+
     @Test
     void testGetTokens_ReturnsAccessAndRefreshTokens() {
-        User mockUser = new User();
-        mockUser.setEmail("test@example.com");
-        mockUser.setFullName("Test User");
+        UserCredentials mockUser = credentials("hash");
 
         // Arrange
         String expectedAccessToken = "mock-access-token";
-        String expectedRefreshTokenId = "mock-refresh-token-id";
 
         // Mock jwtUtil.generateToken()
         when(jwtUtil.generateToken(mockUser)).thenReturn(expectedAccessToken);
 
-        // Mock refreshRepo.save() inside generateRefreshToken()
-        Token mockToken = new Token();
-        mockToken.setTokenId(expectedRefreshTokenId);
-        mockToken.setUser(mockUser);
-        mockToken.setExpiredAt(LocalDateTime.now().plusDays(1));
-        when(refreshRepo.save(any(Token.class))).thenReturn(mockToken);
-
         // Act
         Map<String, String> tokens = authenticationService.getTokens(mockUser);
 
         // Assert
         assertNotNull(tokens);
         assertEquals(expectedAccessToken, tokens.get("accessToken"));
-        assertEquals(expectedRefreshTokenId, tokens.get("refreshToken"));
 
-        // Verify interactions
+        // the returned refresh token is the one handed to the store
+        ArgumentCaptor<String> tokenId = ArgumentCaptor.forClass(String.class);
         verify(jwtUtil, times(1)).generateToken(mockUser);
-        verify(refreshRepo, times(1)).save(any(Token.class));
+        verify(refreshTokenStore, times(1)).save(tokenId.capture(), eq(mockUser.userId()), any(LocalDateTime.class));
+        assertEquals(tokenId.getValue(), tokens.get("refreshToken"));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should load the full user only when the token carries profile claims")
+    void testGetTokens_FullProfile_ShouldLoadUser() {
+        // Arrange
+        UserCredentials credentials = credentials("hash");
+        User profile = new User();
+        profile.setUserId(credentials.userId());
+        when(jwtUtil.needsProfile()).thenReturn(true);
+        when(userRepository.findById(credentials.userId())).thenReturn(Optional.of(profile));
+        when(jwtUtil.generateToken(profile)).thenReturn("full-access-token");
+
+        // Act
+        Map<String, String> tokens = authenticationService.getTokens(credentials);
+
+        // Assert
+        assertEquals("full-access-token", tokens.get("accessToken"));
+        verify(jwtUtil, never()).generateToken(any(UserCredentials.class));
+    }
+
+    @Test
+    @DisplayName("Should load the full user in a single query when logging in with the full profile")
+    void login_FullProfile_ShouldQueryUserOnce() {
+        // Arrange
+        User profile = new User();
+        profile.setUserId(UUID.randomUUID());
+        profile.setPassword("hash");
+        profile.setIsActive(true);
+        profile.setIsDeleted(false);
+        profile.setRoleCode("ROLE_ADMIN");
+        when(jwtUtil.needsProfile()).thenReturn(true);
+        when(userRepository.findByEmail("admin@example.com")).thenReturn(Optional.of(profile));
+        when(passwordVerifier.verify("admin123ADMIN", "hash")).thenReturn(new PasswordVerifier.Result(true, null));
+        when(jwtUtil.generateToken(profile)).thenReturn("full-access-token");
+
+        // Act
+        Map<String, String> tokens = authenticationService.login("admin@example.com", "admin123ADMIN");
+
+        // Assert
+        assertEquals("full-access-token", tokens.get("accessToken"));
+        verify(userRepository, times(1)).findByEmail("admin@example.com");
+        verify(userRepository, never()).findCredentialsByEmail(any());
+        verify(userRepository, never()).findById(any());
     }
 
     @Nested
@@ -111,22 +169,14 @@ public class AuthenticationServiceImplTest {
             String email = "admin@example.com";
             String password = "admin123ADMIN";
 
-            // Create a mock user
-            User mockUser = new User();
-            mockUser.setIsActive(true);
-            mockUser.setIsDeleted(false);
-            mockUser.setEmail(email);
-            mockUser.setPassword("$2a$10$jLVqx5vmeuOtYV7YpKuw9OuSQ085oaEThI42F9pkws/1aEYoixnZi");
-
-            // Create a mock refresh token
-            Token mockRefreshToken = new Token();
-            mockRefreshToken.setTokenId("mockRefreshTokenId");
+            // Create the credential projection
+            UserCredentials mockUser = credentials("$2a$10$jLVqx5vmeuOtYV7YpKuw9OuSQ085oaEThI42F9pkws/1aEYoixnZi");
 
             // Define what the mocks should return WHEN called
-            when(userRepository.findByEmail(email)).thenReturn(Optional.of(mockUser));
-            when(encoder.matches(password, mockUser.getPassword())).thenReturn(true);
+            when(userRepository.findCredentialsByEmail(email)).thenReturn(Optional.of(mockUser));
+            when(passwordVerifier.verify(password, mockUser.password()))
+                    .thenReturn(new PasswordVerifier.Result(true, null));
             when(jwtUtil.generateToken(mockUser)).thenReturn("mockAccessToken");
-            when(refreshRepo.save(any(Token.class))).thenReturn(mockRefreshToken);
 
             // When - Execute the method under test
             Map<String, String> tokens = authenticationService.login(email, password);
@@ -134,13 +184,59 @@ public class AuthenticationServiceImplTest {
             // Then - Verify the results and interactions
             assertNotNull(tokens);
             assertEquals("mockAccessToken", tokens.get("accessToken"));
-            assertEquals("mockRefreshTokenId", tokens.get("refreshToken"));
+            assertNotNull(tokens.get("refreshToken"));
 
             // Verify that the mocks were called as expected
-            verify(userRepository, times(1)).findByEmail(email);
-            verify(encoder, times(1)).matches(password, mockUser.getPassword());
+            verify(userRepository, times(1)).findCredentialsByEmail(email);
+            verify(userRepository, never()).findByEmail(any());
+            verify(passwordVerifier, times(1)).verify(password, "$2a$10$jLVqx5vmeuOtYV7YpKuw9OuSQ085oaEThI42F9pkws/1aEYoixnZi");
+            verify(encoder, never()).matches(any(), any());
+            verify(userRepository, never()).updatePasswordHash(any(), any());
             verify(jwtUtil, times(1)).generateToken(mockUser);
-            verify(refreshRepo, times(1)).save(any(Token.class));
+            verify(refreshTokenStore, times(1)).save(eq(tokens.get("refreshToken")), any(), any(LocalDateTime.class));
+        }
+
+        @Test
+        @DisplayName("Should store the rehashed password when the bcrypt cost changed")
+        void login_OutdatedCost_ShouldRehashPassword() {
+            // Arrange
+            String email = "admin@example.com";
+            String password = "admin123ADMIN";
+
+            UserCredentials mockUser = credentials("$2a$08$oldcosthash");
+
+            when(userRepository.findCredentialsByEmail(email)).thenReturn(Optional.of(mockUser));
+            when(passwordVerifier.verify(password, "$2a$08$oldcosthash"))
+                    .thenReturn(new PasswordVerifier.Result(true, "$2a$12$newcosthash"));
+            when(jwtUtil.generateToken(mockUser)).thenReturn("mockAccessToken");
+
+            // Act
+            authenticationService.login(email, password);
+
+            // Assert
+            verify(userRepository).updatePasswordHash(mockUser.userId(), "$2a$12$newcosthash");
+        }
+
+        @Test
+        @DisplayName("Should still log in when storing the rehashed password fails")
+        void login_RehashFailure_ShouldNotFailLogin() {
+            // Arrange
+            String email = "admin@example.com";
+            String password = "admin123ADMIN";
+
+            UserCredentials mockUser = credentials("$2a$08$oldcosthash");
+
+            when(userRepository.findCredentialsByEmail(email)).thenReturn(Optional.of(mockUser));
+            when(passwordVerifier.verify(password, "$2a$08$oldcosthash"))
+                    .thenReturn(new PasswordVerifier.Result(true, "$2a$12$newcosthash"));
+            when(userRepository.updatePasswordHash(any(), any())).thenThrow(new RuntimeException("db down"));
+            when(jwtUtil.generateToken(mockUser)).thenReturn("mockAccessToken");
+
+            // Act
+            Map<String, String> tokens = authenticationService.login(email, password);
+
+            // Assert
+            assertEquals("mockAccessToken", tokens.get("accessToken"));
         }
 
         @Test
@@ -149,14 +245,14 @@ public class AuthenticationServiceImplTest {
             String password = "admin123ADMIN";
 
             //  configured mock for login usage
-            when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+            when(userRepository.findCredentialsByEmail(email)).thenReturn(Optional.empty());
 
             UsernameNotFoundException exception = assertThrows(UsernameNotFoundException.class, () -> {
                 authenticationService.login(email, password);
             });
 
             assertEquals("Email not found", exception.getMessage());
-            verify(userRepository, times(1)).findByEmail(email);
+            verify(userRepository, times(1)).findCredentialsByEmail(email);
         }
 
         @Test
@@ -164,22 +260,19 @@ public class AuthenticationServiceImplTest {
             String email = "admin@example.com";
             String password = "admin123STAFF";
 
-            User mockUser = new User();
-            mockUser.setIsActive(true);
-            mockUser.setIsDeleted(false);
-            mockUser.setEmail(email);
-            mockUser.setPassword(password);
+            UserCredentials mockUser = credentials(password);
 
-            when(userRepository.findByEmail(email)).thenReturn(Optional.of(mockUser));
-            when(encoder.matches(password, mockUser.getPassword())).thenReturn(false);
+            when(userRepository.findCredentialsByEmail(email)).thenReturn(Optional.of(mockUser));
+            when(passwordVerifier.verify(password, mockUser.password()))
+                    .thenReturn(new PasswordVerifier.Result(false, null));
 
             BadCredentialsException exception = assertThrows(BadCredentialsException.class, () -> {
                 authenticationService.login(email, password);
             });
 
-            assertNotNull(mockUser.getEmail());
             assertEquals("Password is invalid", exception.getMessage());
-            verify(encoder, times(1)).matches(password, mockUser.getPassword());
+            verify(passwordVerifier, times(1)).verify(password, mockUser.password());
+            verify(jwtUtil, never()).generateToken(any(UserCredentials.class));
         }
 
         @Test
@@ -191,14 +284,14 @@ public class AuthenticationServiceImplTest {
             mockerUser.setEmail(email);
             mockerUser.setPassword(password);
 
-            when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+            when(userRepository.findCredentialsByEmail(email)).thenReturn(Optional.empty());
             UsernameNotFoundException exception = assertThrows(UsernameNotFoundException.class, () -> {
                 authenticationService.login(email, password);
             });
 
             assertEquals("Email not found", exception.getMessage());
-            verify(userRepository, times(1)).findByEmail(email);
-            verify(encoder, times(0)).matches(password, mockerUser.getPassword());
+            verify(userRepository, times(1)).findCredentialsByEmail(email);
+            verify(passwordVerifier, times(0)).verify(password, mockerUser.getPassword());
         }
     }
 
@@ -260,23 +353,22 @@ public class AuthenticationServiceImplTest {
 
         @Test
         void google_LoadExistUser_ShouldReturnUser() {
-            User existedUser = new User();
-            existedUser.setEmail("admin@example.com");
+            UserCredentials existedUser = credentials("hash");
 
             GoogleIdToken.Payload payload = new GoogleIdToken.Payload();
             payload.put("given_name", "user first name");
             payload.put("family_name", "user family name");
             payload.setEmail("admin@example.com");
 
-            when(userRepository.findByEmail(payload.getEmail()))
+            when(userRepository.findCredentialsByEmail(payload.getEmail()))
                     .thenReturn(Optional.of(existedUser));
 
             // act
-            User loadUser = authenticationService.loadUserByLoginGoogle(payload);
+            UserCredentials loadUser = authenticationService.loadUserByLoginGoogle(payload);
 
             assertNotNull(loadUser);
-            assertEquals("admin@example.com", loadUser.getEmail());
-            verify(userRepository, times(1)).findByEmail(payload.getEmail());
+            assertEquals(existedUser.userId(), loadUser.userId());
+            verify(userRepository, times(1)).findCredentialsByEmail(payload.getEmail());
             verify(userRepository, never()).save(any(User.class));
         }
 
@@ -285,7 +377,7 @@ public class AuthenticationServiceImplTest {
             GoogleIdToken.Payload payload = new GoogleIdToken.Payload();
             payload.setEmail("missing@gmail.com");
 
-            when(userRepository.findByEmail(payload.getEmail()))
+            when(userRepository.findCredentialsByEmail(payload.getEmail()))
                     .thenReturn(Optional.empty());
 
             assertThrows(
@@ -293,7 +385,7 @@ public class AuthenticationServiceImplTest {
                     () -> authenticationService.loadUserByLoginGoogle(payload)
             );
 
-            verify(userRepository, times(1)).findByEmail(payload.getEmail());
+            verify(userRepository, times(1)).findCredentialsByEmail(payload.getEmail());
             verify(userRepository, never()).save(any());
         }
     }
@@ -304,33 +396,36 @@ public class AuthenticationServiceImplTest {
         @Test
         void refreshToken_VerifyToken_ShouldReturnTokenObject() {
             String tokenId = "validTokenId";
-            Token refreshToken = new Token();
-            refreshToken.setTokenId(tokenId);
-            refreshToken.setExpiredAt(LocalDateTime.now().plusMinutes(10));
+            User user = new User();
+            user.setUserId(UUID.randomUUID());
 
-            when(refreshRepo.findByTokenId(tokenId)).thenReturn(Optional.of(refreshToken));
+            when(refreshTokenStore.find(tokenId)).thenReturn(Optional.of(
+                    new RefreshTokenStore.StoredToken(user.getUserId(), LocalDateTime.now().plusMinutes(10))));
+            when(userRepository.findById(user.getUserId())).thenReturn(Optional.of(user));
 
             Token tokenFound = authenticationService.verifyRefreshToken(tokenId);
 
             assertNotNull(tokenFound);
             assertEquals("validTokenId", tokenFound.getTokenId());
-            verify(refreshRepo, times(1)).findByTokenId(tokenId);
+            assertSame(user, tokenFound.getUser());
+            verify(refreshTokenStore, times(1)).find(tokenId);
         }
 
         @Test
         void refreshToken_TokenExpired_ShouldReturnNull() {
             String tokenId = "expireTokenId";
-            Token refreshToken = new Token();
-            refreshToken.setTokenId(tokenId);
-            refreshToken.setExpiredAt(LocalDateTime.now().minusMinutes(10));
+            UUID userId = UUID.randomUUID();
+            LocalDateTime expiredAt = LocalDateTime.now().minusMinutes(10);
 
-            when(refreshRepo.findByTokenId(tokenId)).thenReturn(Optional.of(refreshToken));
+            when(refreshTokenStore.find(tokenId)).thenReturn(Optional.of(
+                    new RefreshTokenStore.StoredToken(userId, expiredAt)));
+            when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
 
             Token tokenFound = authenticationService.verifyRefreshToken(tokenId);
 
             assertNull(tokenFound);
-            assertTrue(LocalDateTime.now().isAfter(refreshToken.getExpiredAt()));
-            verify(refreshRepo, times(1)).findByTokenId(tokenId);
+            assertTrue(LocalDateTime.now().isAfter(expiredAt));
+            verify(refreshTokenStore, times(1)).find(tokenId);
         }
 
         @Test
@@ -338,15 +433,102 @@ public class AuthenticationServiceImplTest {
             // Arrange
             String tokenId = "missingTokenId";
 
-            // The repository returns an empty Optional → findByToken() returns null
-            when(refreshRepo.findByTokenId(tokenId)).thenReturn(Optional.empty());
+            // The store returns an empty Optional → findByToken() returns null
+            when(refreshTokenStore.find(tokenId)).thenReturn(Optional.empty());
 
             // Act
             Token tokenFound = authenticationService.verifyRefreshToken(tokenId);
 
             // Assert
             assertNull(tokenFound); // expected null when token is not found
-            verify(refreshRepo, times(1)).findByTokenId(tokenId);
+            verify(refreshTokenStore, times(1)).find(tokenId);
+            verify(userRepository, never()).findById(any());
+        }
+
+        @Test
+        void refreshToken_UserGone_ShouldReturnNull() {
+            // Arrange
+            String tokenId = "orphanTokenId";
+            UUID userId = UUID.randomUUID();
+            when(refreshTokenStore.find(tokenId)).thenReturn(Optional.of(
+                    new RefreshTokenStore.StoredToken(userId, LocalDateTime.now().plusMinutes(10))));
+            when(userRepository.findById(userId)).thenReturn(Optional.empty());
+
+            // Act
+            Token tokenFound = authenticationService.verifyRefreshToken(tokenId);
+
+            // Assert
+            assertNull(tokenFound);
+        }
+
+        @Test
+        @DisplayName("Should rotate the refresh token and issue a new pair")
+        void rotateTokens_Rotated_ShouldReturnNewTokens() {
+            // Arrange
+            UserCredentials user = credentials("hash");
+            when(refreshTokenStore.rotate(eq("oldTokenId"), anyString(), any(LocalDateTime.class)))
+                    .thenReturn(new RefreshTokenStore.Rotation(RefreshTokenStore.RotationStatus.ROTATED, user.userId()));
+            when(userRepository.findCredentialsById(user.userId())).thenReturn(Optional.of(user));
+            when(jwtUtil.generateToken(user)).thenReturn("newAccessToken");
+
+            // Act
+            Map<String, String> tokens = authenticationService.rotateTokens("oldTokenId");
+
+            // Assert
+            ArgumentCaptor<String> newTokenId = ArgumentCaptor.forClass(String.class);
+            verify(refreshTokenStore).rotate(eq("oldTokenId"), newTokenId.capture(), any(LocalDateTime.class));
+            assertEquals("newAccessToken", tokens.get("accessToken"));
+            assertEquals(newTokenId.getValue(), tokens.get("refreshToken"));
+            assertNotEquals("oldTokenId", tokens.get("refreshToken"));
+        }
+
+        @Test
+        @DisplayName("Should reject a replayed token and audit the family revocation")
+        void rotateTokens_Reused_ShouldReturnNullAndAudit() {
+            // Arrange
+            UUID userId = UUID.randomUUID();
+            when(refreshTokenStore.rotate(eq("usedTokenId"), anyString(), any(LocalDateTime.class)))
+                    .thenReturn(new RefreshTokenStore.Rotation(RefreshTokenStore.RotationStatus.REUSED, userId));
+
+            // Act
+            Map<String, String> tokens = authenticationService.rotateTokens("usedTokenId");
+
+            // Assert
+            assertNull(tokens);
+            verify(auditPublisher).publish(argThat(event ->
+                    "REFRESH_TOKEN_REUSE".equals(event.getType()) && userId.toString().equals(event.getUserId())));
+            verify(jwtUtil, never()).generateToken(any(UserCredentials.class));
+        }
+
+        @Test
+        @DisplayName("Should reject an unknown or expired token")
+        void rotateTokens_NotRotated_ShouldReturnNull() {
+            when(refreshTokenStore.rotate(anyString(), anyString(), any(LocalDateTime.class)))
+                    .thenReturn(RefreshTokenStore.Rotation.of(RefreshTokenStore.RotationStatus.NOT_FOUND))
+                    .thenReturn(RefreshTokenStore.Rotation.of(RefreshTokenStore.RotationStatus.EXPIRED));
+
+            assertNull(authenticationService.rotateTokens("missingTokenId"));
+            assertNull(authenticationService.rotateTokens("expiredTokenId"));
+            verifyNoInteractions(auditPublisher, jwtUtil);
+        }
+
+        @Test
+        @DisplayName("Should drop the new token when its owner no longer exists")
+        void rotateTokens_UserGone_ShouldDeleteNewToken() {
+            // Arrange
+            UUID userId = UUID.randomUUID();
+            when(refreshTokenStore.rotate(eq("orphanTokenId"), anyString(), any(LocalDateTime.class)))
+                    .thenReturn(new RefreshTokenStore.Rotation(RefreshTokenStore.RotationStatus.ROTATED, userId));
+            when(userRepository.findCredentialsById(userId)).thenReturn(Optional.empty());
+
+            // Act
+            Map<String, String> tokens = authenticationService.rotateTokens("orphanTokenId");
+
+            // Assert
+            ArgumentCaptor<String> newTokenId = ArgumentCaptor.forClass(String.class);
+            verify(refreshTokenStore).rotate(eq("orphanTokenId"), newTokenId.capture(), any(LocalDateTime.class));
+            assertNull(tokens);
+            verify(refreshTokenStore).delete(newTokenId.getValue());
         }
 
         @Test
@@ -358,21 +540,21 @@ public class AuthenticationServiceImplTest {
             authenticationService.deleteToken(tokenId);
 
             // Assert
-            verify(refreshRepo, times(1)).deleteByTokenId(tokenId);
+            verify(refreshTokenStore, times(1)).delete(tokenId);
         }
 
         @Test
         void deleteToken_WhenRepositoryThrowsException_ShouldThrowRuntimeException() {
             // Arrange
             String tokenId = "sampleTokenId";
-            doThrow(new RuntimeException("DB error")).when(refreshRepo).deleteByTokenId(tokenId);
+            doThrow(new RuntimeException("Redis error")).when(refreshTokenStore).delete(tokenId);
 
             // Act & Assert
             RuntimeException ex = assertThrows(RuntimeException.class, () ->
                     authenticationService.deleteToken(tokenId));
 
             assertTrue(ex.getMessage().contains("Error delete refresh token"));
-            verify(refreshRepo, times(1)).deleteByTokenId(tokenId);
+            verify(refreshTokenStore, times(1)).delete(tokenId);
         }
     }
 
@@ -384,12 +566,15 @@ public class AuthenticationServiceImplTest {
         @Mock
         private UserGrantAuthority grantAuthority;
 
+        @Mock
+        private TokenRevocationService tokenRevocation;
+
         @BeforeEach
         void setUp() {
             MockitoAnnotations.openMocks(this);
 
             String secret = "my-very-secret-key-which-is-long-enough-12345";
-            jwtUtil = new JwtUtil(secret, grantAuthority);
+            jwtUtil = new JwtUtil(secret, grantAuthority, "full", new JwtKeyRing("HS256", "", ""), tokenRevocation, false);
         }
 
         @Test
@@ -403,10 +588,6 @@ public class AuthenticationServiceImplTest {
             user.setIsActive(true);
             user.setIsDeleted(false);
 
-            // IMPORTANT: generateToken() does not add "privileges" claim
-            when(grantAuthority.getAuthorityByUser(user))
-                    .thenReturn(List.of(new SimpleGrantedAuthority("ROLE_USER")));
-
             // Act
             String token = jwtUtil.generateToken(user);
 
@@ -432,7 +613,75 @@ public class AuthenticationServiceImplTest {
             assertEquals("true", claims.get("isActive"));
             assertEquals("false", claims.get("isDeleted"));
 
-            verify(grantAuthority, times(1)).getAuthorityByUser(user);
+            // authorities travel as the prv mask, not as names
+            verify(grantAuthority, never()).getAuthorityByUser(user);
+        }
+
+        @Test
+        void generateToken_CompactProfile_ShouldOmitProfileClaims() {
+            // Arrange
+            String secret = "my-very-secret-key-which-is-long-enough-12345";
+            JwtUtil compactJwtUtil = new JwtUtil(secret, grantAuthority, "compact", new JwtKeyRing("HS256", "", ""), tokenRevocation, false);
+
+            User user = new User();
+            user.setUserId(UUID.randomUUID());
+            user.setEmail("test@example.com");
+            user.setFullName("John Doe");
+            user.setIdentityNumber("ID123");
+            user.setRoleCode("ROLE_USER");
+            user.setVersion(3L);
+            user.setIsActive(true);
+            user.setIsDeleted(false);
+
+            when(grantAuthority.getPrivilegeMaskByUser(user)).thenReturn(6L);
+
+            // Act
+            String token = compactJwtUtil.generateToken(user);
+
+            // Assert
+            Claims claims = Jwts.parser()
+                    .verifyWith((SecretKey) new SecretKeySpec(
+                            secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"))
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+
+            assertEquals(user.getUserId().toString(), claims.getSubject());
+            assertEquals("ROLE_USER", claims.get("role"));
+            assertEquals(6L, ((Number) claims.get("prv")).longValue());
+            assertEquals(3L, ((Number) claims.get("ver")).longValue());
+            assertNull(claims.get("email"));
+            assertNull(claims.get("userName"));
+            assertNull(claims.get("identityNumber"));
+            verify(grantAuthority, never()).getAuthorityByUser(user);
+        }
+
+        @Test
+        @DisplayName("Should build the compact token from the credential projection")
+        void generateToken_Credentials_ShouldUseRoleMask() {
+            // Arrange
+            String secret = "my-very-secret-key-which-is-long-enough-12345";
+            JwtUtil compactJwtUtil = new JwtUtil(secret, grantAuthority, "compact", new JwtKeyRing("HS256", "", ""), tokenRevocation, false);
+            UserCredentials credentials = new UserCredentials(UUID.randomUUID(), "hash", true, false, "ROLE_USER", 4L);
+            when(grantAuthority.getPrivilegeMaskByRole("ROLE_USER")).thenReturn(6L);
+
+            // Act
+            String token = compactJwtUtil.generateToken(credentials);
+
+            // Assert
+            Claims claims = Jwts.parser()
+                    .verifyWith((SecretKey) new SecretKeySpec(
+                            secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"))
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+
+            assertEquals(credentials.userId().toString(), claims.getSubject());
+            assertEquals(6L, ((Number) claims.get("prv")).longValue());
+            assertEquals(4L, ((Number) claims.get("ver")).longValue());
+            assertFalse(compactJwtUtil.needsProfile());
+            assertTrue(jwtUtil.needsProfile());
+            assertThrows(IllegalStateException.class, () -> jwtUtil.generateToken(credentials));
         }
 
         @Test
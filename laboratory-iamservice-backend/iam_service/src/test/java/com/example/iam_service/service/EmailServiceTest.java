@@ -1,8 +1,10 @@
 package com.example.iam_service.service;
 
+import com.example.iam_service.entity.EmailOutbox;
 import com.example.iam_service.exception.InvalidOtpException;
-import com.example.iam_service.security.OtpDetails;
-import com.example.iam_service.security.StoreOtp;
+import com.example.iam_service.repository.EmailOutboxRepository;
+import com.example.iam_service.security.OtpStore;
+import com.example.iam_service.security.OtpStore.VerifyResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,10 +12,6 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-
-import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,10 +20,10 @@ import static org.mockito.Mockito.*;
 public class EmailServiceTest {
 
     @Mock
-    private JavaMailSender mailSender;
+    private EmailOutboxRepository outboxRepository;
 
     @Mock
-    private StoreOtp storeOtp;
+    private OtpStore otpStore;
 
     @InjectMocks
     private EmailService emailService;
@@ -39,128 +37,113 @@ public class EmailServiceTest {
         email = "receiveMail@example.com";
         otp = "ABCDEF";
         password = "TempPass123!";
-
-        emailService.getClass();
-        try {
-            var field = EmailService.class.getDeclaredField("fromAddress");
-            field.setAccessible(true);
-            field.set(emailService, "no-reply@lab.com");
-        } catch (Exception e) {
-            fail("Failed to inject 'fromAddress' field for test.");
-        }
     }
 
     @Test
-    void sendOtp_ShouldStoreOtpAndSendEmail() {
+    void sendOtp_ShouldStoreOtpAndEnqueueEmail() {
         // Arrange
         String testEmail = "user@example.com";
 
-        // Capture SimpleMailMessage passed to mailSender.send()
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        // Capture the outbox row instead of a sent message
+        ArgumentCaptor<EmailOutbox> outboxCaptor = ArgumentCaptor.forClass(EmailOutbox.class);
 
         // Act
         emailService.sendOtp(testEmail);
 
         // Assert
-        verify(storeOtp, times(1)).storeOtp(eq(testEmail), anyString());
-        verify(mailSender, times(1)).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
-
-        assertNotNull(sentMessage);
-        assertEquals("no-reply@lab.com", sentMessage.getFrom());
-        assertEquals(testEmail, sentMessage.getTo()[0]);
-        assertTrue(sentMessage.getSubject().contains("OTP Code"));
-        assertTrue(sentMessage.getText().contains("Your OTP code is"));
-        assertTrue(sentMessage.getText().contains("⚠️ This code will expire in 5 minutes"));
+        verify(otpStore, times(1)).storeOtp(eq(testEmail), anyString());
+        verify(outboxRepository, times(1)).save(outboxCaptor.capture());
+
+        EmailOutbox queued = outboxCaptor.getValue();
+
+        assertNotNull(queued);
+        assertEquals(testEmail, queued.getRecipient());
+        assertEquals(EmailOutbox.Status.PENDING, queued.getStatus());
+        assertEquals(0, queued.getAttempts());
+        assertNotNull(queued.getNextAttemptAt());
+        assertTrue(queued.getSubject().contains("OTP Code"));
+        assertTrue(queued.getBody().contains("Your OTP code is"));
+        assertTrue(queued.getBody().contains("⚠️ This code will expire in 5 minutes"));
     }
 
     // ✅ Test sendPasswordEmail()
     @Test
-    void sendPasswordEmail_ShouldSendPasswordMessage() {
+    void sendPasswordEmail_ShouldEnqueuePasswordMessage() {
         // Arrange
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        ArgumentCaptor<EmailOutbox> outboxCaptor = ArgumentCaptor.forClass(EmailOutbox.class);
 
         // Act
         emailService.sendPasswordEmail(email, password);
 
         // Assert
-        verify(mailSender, times(1)).send(messageCaptor.capture());
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
-
-        assertNotNull(sentMessage);
-        assertEquals("no-reply@lab.com", sentMessage.getFrom());
-        assertEquals(email, sentMessage.getTo()[0]);
-        assertEquals("Your Laboratory Account Password", sentMessage.getSubject());
-        assertTrue(sentMessage.getText().contains(password));
-        assertTrue(sentMessage.getText().contains("Your temporary password is"));
-        assertTrue(sentMessage.getText().contains("Laboratory IAM Service"));
+        verify(outboxRepository, times(1)).save(outboxCaptor.capture());
+        EmailOutbox queued = outboxCaptor.getValue();
+
+        assertNotNull(queued);
+        assertEquals(email, queued.getRecipient());
+        assertEquals("Your Laboratory Account Password", queued.getSubject());
+        assertTrue(queued.getBody().contains(password));
+        assertTrue(queued.getBody().contains("Your temporary password is"));
+        assertTrue(queued.getBody().contains("Laboratory IAM Service"));
     }
 
 
     @Test
     void verifyOtp_Success_ShouldReturnEmail() {
-        OtpDetails mockOtpDetails = new OtpDetails();
-        mockOtpDetails.setEmail(email);
-        mockOtpDetails.setOtp(otp);
-        mockOtpDetails.setExpiration(LocalDateTime.now().plusMinutes(10));
-
-        when(storeOtp.getOtpDetails(email)).thenReturn(mockOtpDetails);
+        when(otpStore.verifyOtp(email, otp)).thenReturn(VerifyResult.VALID);
 
         String validatedEmail = emailService.verifyOtp(email, otp);
 
         assertNotNull(validatedEmail);
         assertEquals(email, validatedEmail);
-        verify(storeOtp, times(1)).getOtpDetails(email);
-        verify(storeOtp, times(1)).removeOtp(email);
+        verify(otpStore, times(1)).verifyOtp(email, otp);
     }
 
     @Test
     void verifyOtp_OtpNotFound_ShouldThrowNotFoundException() {
+        when(otpStore.verifyOtp(email, otp)).thenReturn(VerifyResult.NOT_FOUND);
+
         InvalidOtpException ex = assertThrows(InvalidOtpException.class, () ->
                 emailService.verifyOtp(email, otp)
         );
 
         assertTrue(ex.getMessage().contains("OTP not found or invalid"));
-        verify(storeOtp, times(1)).getOtpDetails(email);
-        verify(storeOtp, times(0)).removeOtp(email);
+        verify(otpStore, times(1)).verifyOtp(email, otp);
     }
 
     @Test
     void verifyOtp_InvalidOtp_ShouldThrowInvalidException() {
-        OtpDetails mockOtpDetails = new OtpDetails();
-        mockOtpDetails.setEmail(email);
-        mockOtpDetails.setOtp("OPQIML");
-        mockOtpDetails.setExpiration(LocalDateTime.now().plusMinutes(10));
-
-        when(storeOtp.getOtpDetails(email)).thenReturn(mockOtpDetails);
+        when(otpStore.verifyOtp(email, "OPQIML")).thenReturn(VerifyResult.INVALID);
 
         InvalidOtpException ex = assertThrows(InvalidOtpException.class, () ->
-                emailService.verifyOtp(email, otp)
+                emailService.verifyOtp(email, "OPQIML")
         );
 
         assertTrue(ex.getMessage().contains("OTP not found or invalid"));
-        assertNotEquals(otp, mockOtpDetails.getOtp());
-        verify(storeOtp, times(1)).getOtpDetails(email);
-        verify(storeOtp, times(0)).removeOtp(email);
+        verify(otpStore, times(1)).verifyOtp(email, "OPQIML");
     }
 
     @Test
     void verifyOtp_OtpExpired_ShouldThrowExpiredException() {
-        OtpDetails mockOtpDetails = new OtpDetails();
-        mockOtpDetails.setEmail(email);
-        mockOtpDetails.setOtp(otp);
-        mockOtpDetails.setExpiration(LocalDateTime.now().minusMinutes(10));
+        when(otpStore.verifyOtp(email, otp)).thenReturn(VerifyResult.EXPIRED);
 
-        when(storeOtp.getOtpDetails(email)).thenReturn(mockOtpDetails);
         InvalidOtpException ex = assertThrows(InvalidOtpException.class, () ->
                 emailService.verifyOtp(email, otp)
         );
 
         assertTrue(ex.getMessage().contains("OTP expired"));
-        assertEquals(otp, mockOtpDetails.getOtp());
-        verify(storeOtp, times(1)).getOtpDetails(email);
-        verify(storeOtp, times(0)).removeOtp(email);
+        verify(otpStore, times(1)).verifyOtp(email, otp);
+    }
+
+    @Test
+    void verifyOtp_TooManyAttempts_ShouldThrowLockedException() {
+        when(otpStore.verifyOtp(email, otp)).thenReturn(VerifyResult.LOCKED);
+
+        InvalidOtpException ex = assertThrows(InvalidOtpException.class, () ->
+                emailService.verifyOtp(email, otp)
+        );
+
+        assertTrue(ex.getMessage().contains("Too many invalid attempts"));
     }
 
 }
@@ -1,6 +1,7 @@
 package com.example.iam_service.service;
 
 import com.example.iam_service.serviceImpl.LoginLimiterServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,13 +13,15 @@ import static org.junit.jupiter.api.Assertions.*;
 
 public class LoginLimiterServiceImplTest {
     private LoginLimiterServiceImpl loginLimiterService;
+    private SimpleMeterRegistry meterRegistry;
 
     private static final String TEST_KEY = "test-user";
     private static final String TEST_IP = "192.168.1.1";
 
     @BeforeEach
     void setUp() {
-        loginLimiterService = new LoginLimiterServiceImpl();
+        meterRegistry = new SimpleMeterRegistry();
+        loginLimiterService = new LoginLimiterServiceImpl(meterRegistry, 100);
     }
 
     @Test
@@ -219,4 +222,79 @@ public class LoginLimiterServiceImplTest {
         assertTrue(loginLimiterService.isBanned(TEST_KEY));
     }
 
+    @Test
+    @DisplayName("Should never track more keys than the cap")
+    void testRecordFailedAttempt_KeySpray_StaysBounded() {
+        // When - spray far more distinct keys than the cap
+        for (int i = 0; i < 10_000; i++) {
+            loginLimiterService.recordFailedAttempt("10.0." + (i / 256) + "." + (i % 256));
+        }
+
+        // Then
+        assertTrue(loginLimiterService.trackedKeys() <= 100);
+        assertTrue(meterRegistry.get("iam.login.limiter.evictions").counter().count() > 0);
+        assertEquals(loginLimiterService.trackedKeys(),
+                meterRegistry.get("iam.login.limiter.tracked.keys").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should keep bans when evicting under key spray")
+    void testRecordFailedAttempt_KeySpray_KeepsBans() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            loginLimiterService.recordFailedAttempt(TEST_IP);
+        }
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            loginLimiterService.recordFailedAttempt("spoofed-" + i);
+        }
+
+        // Then
+        assertTrue(loginLimiterService.isBanned(TEST_IP));
+        assertEquals(1.0, meterRegistry.get("iam.login.limiter.bans").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should stay under the cap when every sprayed key gets banned, evicting the oldest ban")
+    void testRecordFailedAttempt_BannedKeySpray_StaysBounded() {
+        // When - every spoofed key fails often enough to be banned
+        for (int i = 0; i < 300; i++) {
+            for (int attempt = 0; attempt < 5; attempt++) {
+                loginLimiterService.recordFailedAttempt("spoofed-" + i);
+            }
+        }
+
+        // Then
+        assertEquals(100, loginLimiterService.trackedKeys());
+        assertFalse(loginLimiterService.isBanned("spoofed-0"));
+        assertTrue(loginLimiterService.isBanned("spoofed-299"));
+        assertEquals(300.0, meterRegistry.get("iam.login.limiter.bans").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should count every ban exactly once under concurrent attempts")
+    void testConcurrentAccess_AtomicCounting() throws InterruptedException {
+        // Given - 4 threads x 5 attempts, the counter restarts after each ban
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 5; j++) loginLimiterService.recordFailedAttempt(TEST_KEY);
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then - 20 attempts are exactly 4 bans, no update was lost
+        assertEquals(4.0, meterRegistry.get("iam.login.limiter.bans").counter().count());
+        assertTrue(loginLimiterService.isBanned(TEST_KEY));
+    }
+
+    @Test
+    @DisplayName("Should return null ban time for an unknown key")
+    void testGetBanUntil_UnknownKey_ReturnsNull() {
+        assertNull(loginLimiterService.getBanUntil("unknown"));
+    }
 }
@@ -14,6 +14,9 @@ import com.example.iam_service.exception.RoleIsFixedException;
 import com.example.iam_service.mapper.RoleMapper;
 import com.example.iam_service.repository.RoleRepository;
 import com.example.iam_service.repository.UserRepository;
+import com.example.iam_service.security.PrincipalCache;
+import com.example.iam_service.security.RoleAuthorityRegistry;
+import com.example.iam_service.service.UserStatsService;
 import com.example.iam_service.serviceImpl.RoleServiceImp;
 import com.example.iam_service.util.SecurityUtil;
 import jakarta.persistence.EntityManager;
@@ -62,6 +65,15 @@ public class RoleServiceImplTest {
     @Mock
     private SecurityUtil securityUtil;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private RoleAuthorityRegistry roleAuthorityRegistry;
+
+    @Mock
+    private UserStatsService userStatsService;
+
     private Role testRole;
     private RoleDTO testRoleDTO;
     private RoleUpdateRequestDto updateRequestDto;
@@ -644,6 +656,7 @@ public class RoleServiceImplTest {
 
             verify(roleRepository, times(1)).existsByCode(roleCode);
             verify(userRepository, times(1)).batchUpdateUser("ROLE_DEFAULT", roleCode);
+            verify(userStatsService).recountRoles("ROLE_DEFAULT", roleCode);
             verify(roleRepository, times(1)).delete(testRole);
             verify(entityManager, times(1)).flush();
             verify(entityManager, times(1)).clear();
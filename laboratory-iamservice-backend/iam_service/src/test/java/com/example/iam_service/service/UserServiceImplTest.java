@@ -2,6 +2,7 @@ package com.example.iam_service.service;
 
 import com.example.iam_service.audit.AuditEvent;
 import com.example.iam_service.audit.AuditPublisher;
+import com.example.iam_service.dto.response.CursorPageResponse;
 import com.example.iam_service.dto.user.AdminUpdateUserDTO;
 import com.example.iam_service.dto.user.PatientDTO;
 import com.example.iam_service.dto.user.UpdateUserProfileDTO;
@@ -9,11 +10,15 @@ import com.example.iam_service.entity.User;
 import com.example.iam_service.external.PatientVerificationService;
 import com.example.iam_service.mapper.UserMapper;
 import com.example.iam_service.repository.UserRepository;
+import com.example.iam_service.security.PasswordHashPool;
+import com.example.iam_service.security.PrincipalCache;
 import com.example.iam_service.service.EmailService;
 import com.example.iam_service.serviceImpl.UserServiceImpl;
 import com.example.iam_service.util.AuditDiffUtil;
+import com.example.iam_service.util.BlindIndex;
 import com.example.iam_service.util.PasswordGenerator;
 import com.example.iam_service.util.SecurityUtil;
+import com.example.iam_service.util.UserCursor;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +26,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -32,6 +38,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
@@ -57,6 +65,11 @@ class UserServiceImplTest {
     @Mock private SecurityUtil securityUtil;
     private MockedStatic<AuditDiffUtil> auditDiffMock;
     @Mock private  RestTemplate restTemplate;
+    @Mock private PrincipalCache principalCache;
+    @Mock private PasswordHashPool passwordHashPool;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private UserStatsService userStatsService;
+    @Spy private BlindIndex blindIndex = new BlindIndex("user-service-test-blind-index-key-32", "", "0");
 
 
     @InjectMocks private UserServiceImpl userService;
@@ -285,6 +298,15 @@ class UserServiceImplTest {
         assertThrows(IllegalArgumentException.class, () -> userService.createUser(testUser));
     }
 
+    @Test
+    void createUser_duplicateIdentityNumber_throws() {
+        testUser.setIdentityNumber("ID999");
+        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(userRepository.existsByIdentityNumberIndex(blindIndex.identityNumber("ID999"))).thenReturn(true);
+        assertThrows(IllegalArgumentException.class, () -> userService.createUser(testUser));
+        verify(userRepository, never()).save(any(User.class));
+    }
+
     // --- activateUserByEmail tests ---
 
     @Test
@@ -332,6 +354,19 @@ class UserServiceImplTest {
         assertThrows(IllegalArgumentException.class, () -> userService.getUserByEmail("notfound@example.com"));
     }
 
+    @Test
+    void getUserByPhoneNumber_looksUpBlindIndex() {
+        when(userRepository.findByPhoneNumberIndex(blindIndex.phoneNumber("0901234567")))
+                .thenReturn(Optional.of(testUser));
+        assertTrue(userService.getUserByPhoneNumber("090 123 4567").isPresent());
+    }
+
+    @Test
+    void getUserByPhoneNumber_blank_noQuery() {
+        assertTrue(userService.getUserByPhoneNumber(" ").isEmpty());
+        verify(userRepository, never()).findByPhoneNumberIndex(any());
+    }
+
     @Test
     void getAllUsers_success() {
         when(userRepository.findAllByIsDeletedFalse()).thenReturn(List.of(testUser));
@@ -344,6 +379,51 @@ class UserServiceImplTest {
         assertEquals(1, userService.getInactiveUsers().size());
     }
 
+    // --- getUsersPage tests ---
+
+    @Test
+    void getUsersPage_fullPage_returnsCursorOfLastRow() {
+        User first = pagedUser(LocalDate.of(2025, 3, 2));
+        User second = pagedUser(LocalDate.of(2025, 3, 1));
+        User extra = pagedUser(LocalDate.of(2025, 2, 28));
+        when(userRepository.findBy(any(Specification.class), any())).thenReturn(List.of(first, second, extra));
+
+        CursorPageResponse<User> page = userService.getUsersPage(null, null, null, null, null, 2);
+
+        assertEquals(List.of(first, second), page.getItems());
+        assertTrue(page.isHasMore());
+        assertEquals(new UserCursor(second.getCreatedAt(), second.getUserId()), UserCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getUsersPage_lastPage_hasNoCursor() {
+        when(userRepository.findBy(any(Specification.class), any())).thenReturn(List.of(testUser));
+
+        String cursor = new UserCursor(LocalDate.of(2025, 3, 1), UUID.randomUUID()).encode();
+        CursorPageResponse<User> page = userService.getUsersPage("patient", "active",
+                LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), cursor, 20);
+
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getUsersPage_invalidInput_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.getUsersPage(null, "archived", null, null, null, 20));
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.getUsersPage(null, null, null, null, "not-a-cursor", 20));
+        verify(userRepository, never()).findBy(any(Specification.class), any());
+    }
+
+    private User pagedUser(LocalDate createdAt) {
+        User user = new User();
+        user.setUserId(UUID.randomUUID());
+        user.setCreatedAt(createdAt);
+        return user;
+    }
+
     // --- updateOwnProfile tests ---
 
     @Test
@@ -395,6 +475,19 @@ class UserServiceImplTest {
         verify(auditPublisher).publish(any(AuditEvent.class));
     }
 
+    @Test
+    void adminUpdateUser_identityNumberOfAnotherUser_throws() {
+        AdminUpdateUserDTO dto = new AdminUpdateUserDTO();
+        dto.setIdentityNumber("123456789");
+
+        when(userRepository.findById(any())).thenReturn(Optional.of(testUser));
+        when(userRepository.existsByIdentityNumberIndexAndUserIdNot(
+                blindIndex.identityNumber("123456789"), testUser.getUserId())).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> userService.adminUpdateUser(testUser.getUserId(), dto));
+        verify(userRepository, never()).save(any());
+    }
+
     @Test
     void adminUpdateUser_userNotFound() {
         when(userRepository.findById(any())).thenReturn(Optional.empty());
@@ -469,6 +562,8 @@ class UserServiceImplTest {
         assertFalse(testUser.getIsActive());
         assertNotNull(testUser.getDeletedAt());
         verify(userRepository).save(testUser);
+        // was counted as an inactive doctor, now only as deleted
+        verify(userStatsService).recordChanged(List.of("role:ROLE_DOCTOR", "status:inactive"), testUser);
         verify(auditPublisher).publish(any(AuditEvent.class));
     }
 
@@ -728,8 +823,9 @@ class UserServiceImplTest {
         when(userRepository.existsByEmail(anyString())).thenReturn(false);
 
 
-        // password encoding
-        when(passwordEncoder.encode(anyString())).thenReturn("encoded");
+        // password encoding on the hash pool
+        when(passwordHashPool.encodeAll(anyList())).thenReturn(List.of("encoded1", "encoded2"));
+        runTransactionCallback();
 
         // saveAll returns whatever was passed in
         when(userRepository.saveAll(any())).thenAnswer(i -> i.getArgument(0));
@@ -739,6 +835,10 @@ class UserServiceImplTest {
 
         // assert
         assertEquals(2, result.size());
+        assertEquals("encoded1", result.get(0).getPassword());
+        assertEquals("encoded2", result.get(1).getPassword());
+        assertTrue(result.get(0).getIsActive());
+        verify(passwordEncoder, never()).encode(anyString());
 
         // email sending -> 2 users = 2 emails
         verify(emailService, times(2))
@@ -755,6 +855,29 @@ class UserServiceImplTest {
                 ));
     }
 
+    @Test
+    void batchCreatePatientUsers_repeatedIdentityNumber_skipped() {
+        User patient1 = new User();
+        patient1.setEmail("p1@example.com");
+        patient1.setIdentityNumber("ID100");
+        User patient2 = new User();
+        patient2.setEmail("p2@example.com");
+        patient2.setIdentityNumber("id 100");
+        patient1.setUserId(UUID.randomUUID());
+        patient2.setUserId(UUID.randomUUID());
+
+        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(passwordHashPool.encodeAll(anyList())).thenReturn(List.of("encoded1"));
+        runTransactionCallback();
+        when(userRepository.saveAll(any())).thenAnswer(i -> i.getArgument(0));
+
+        List<User> result = userService.batchCreatePatientUsers(List.of(patient1, patient2));
+
+        // same number after normalization, only the first is created
+        assertEquals(List.of(patient1), result);
+        verify(auditPublisher).publish(argThat(event -> "PATIENT_BATCH_SKIPPED".equals(event.getType())));
+    }
+
     @Test
     void batchCreatePatientUsers_someInvalid_skipped() {
         User validPatient = new User();
@@ -772,7 +895,12 @@ class UserServiceImplTest {
 
         // removed dup@example.com verifyPatientExists — not needed
 
-        when(passwordEncoder.encode(anyString())).thenReturn("encoded");
+        when(passwordHashPool.encodeAll(anyList())).thenAnswer(invocation -> {
+            List<String> raw = invocation.getArgument(0);
+            assertEquals(1, raw.size());
+            return List.of("encoded");
+        });
+        runTransactionCallback();
 
         when(userRepository.saveAll(any())).thenAnswer(invocation -> {
             List<User> users = invocation.getArgument(0);
@@ -798,6 +926,8 @@ class UserServiceImplTest {
         patient.setRoleCode("ROLE_PATIENT");
 
         when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(passwordHashPool.encodeAll(anyList())).thenReturn(List.of("encoded"));
+        runTransactionCallback();
 
         List<User> result = userService.batchCreatePatientUsers(List.of(patient));
 
@@ -1484,4 +1614,10 @@ class UserServiceImplTest {
         when(sc.getAuthentication()).thenReturn(auth);
         SecurityContextHolder.setContext(sc);
     }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionCallback() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+    }
 }
@@ -0,0 +1,145 @@
+package com.example.iam_service.service;
+
+import com.example.iam_service.dto.user.UserStatsDTO;
+import com.example.iam_service.entity.User;
+import com.example.iam_service.entity.UserStat;
+import com.example.iam_service.repository.UserStatsRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatsServiceTest {
+
+    @Mock
+    private UserStatsRepository statsRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private UserStatsService userStatsService;
+
+    @Test
+    @DisplayName("Should count a user in its role and status bucket, deleted users only as deleted")
+    void buckets_ShouldFollowUserState() {
+        User user = user("ROLE_DOCTOR", true);
+        assertEquals(List.of("role:ROLE_DOCTOR", "status:active"), UserStatsService.buckets(user));
+
+        user.setDeletedAt(LocalDateTime.now().plusDays(7));
+        assertEquals(List.of("role:ROLE_DOCTOR", "status:pending_deletion"), UserStatsService.buckets(user));
+
+        user.setIsDeleted(true);
+        assertEquals(List.of("status:deleted"), UserStatsService.buckets(user));
+    }
+
+    @Test
+    @DisplayName("Should add one increment per bucket for a batch of new users")
+    void recordCreated_ShouldAggregatePerBucket() {
+        // Act
+        userStatsService.recordCreated(List.of(user("ROLE_PATIENT", true), user("ROLE_PATIENT", true)));
+
+        // Assert
+        verify(statsRepository).increment("role:ROLE_PATIENT", 2);
+        verify(statsRepository).increment("status:active", 2);
+        verifyNoMoreInteractions(statsRepository);
+    }
+
+    @Test
+    @DisplayName("Should move the user between buckets in sorted order and skip unchanged ones")
+    void recordChanged_ShouldApplyNetDeltas() {
+        // Arrange
+        User user = user("ROLE_DOCTOR", false);
+        List<String> before = UserStatsService.buckets(user);
+        user.setRoleCode("ROLE_LAB_MANAGER");
+        user.setIsActive(true);
+
+        // Act
+        userStatsService.recordChanged(before, user);
+
+        // Assert
+        InOrder inOrder = inOrder(statsRepository);
+        inOrder.verify(statsRepository).increment("role:ROLE_DOCTOR", -1);
+        inOrder.verify(statsRepository).increment("role:ROLE_LAB_MANAGER", 1);
+        inOrder.verify(statsRepository).increment("status:active", 1);
+        inOrder.verify(statsRepository).increment("status:inactive", -1);
+        verifyNoMoreInteractions(statsRepository);
+    }
+
+    @Test
+    @DisplayName("Should write nothing when the counted state did not change")
+    void recordChanged_NoBucketChange_ShouldNotWrite() {
+        User user = user("ROLE_PATIENT", true);
+
+        userStatsService.recordChanged(UserStatsService.buckets(user), user);
+
+        verifyNoInteractions(statsRepository);
+    }
+
+    @Test
+    @DisplayName("Should serve the dashboard from the counter rows")
+    void getStats_ShouldReadCounters() {
+        // Arrange
+        when(statsRepository.findAll()).thenReturn(List.of(
+                new UserStat("role:ROLE_ADMIN", 2),
+                new UserStat("role:ROLE_OLD", 0),
+                new UserStat("status:active", 5),
+                new UserStat("status:deleted", 1)));
+
+        // Act
+        UserStatsDTO stats = userStatsService.getStats();
+
+        // Assert
+        assertEquals(Map.of("ADMIN", 2L), stats.getRoles());
+        assertEquals(5, stats.getActive());
+        assertEquals(0, stats.getInactive());
+        assertEquals(1, stats.getDeleted());
+    }
+
+    @Test
+    @DisplayName("Should count without locks, then lock the counters only to add the drift")
+    void reconcile_ShouldApplyDriftUnderLock() {
+        // Arrange
+        when(statsRepository.findAll()).thenReturn(List.of(
+                new UserStat("role:ROLE_ADMIN", 3),
+                new UserStat("role:ROLE_GONE", 1),
+                new UserStat("status:active", 3)));
+        when(statsRepository.countUsersByRole()).thenReturn(List.<Object[]>of(new Object[]{"ROLE_ADMIN", 2L}));
+        when(statsRepository.countUsersByStatus()).thenReturn(List.<Object[]>of(new Object[]{"active", 2L}));
+
+        // Act
+        Map<String, Long> drift = userStatsService.reconcile();
+
+        // Assert
+        assertEquals(Map.of("role:ROLE_ADMIN", -1L, "role:ROLE_GONE", -1L, "status:active", -1L), drift);
+        InOrder inOrder = inOrder(statsRepository);
+        inOrder.verify(statsRepository).countUsersByStatus();
+        inOrder.verify(statsRepository).lockAll();
+        inOrder.verify(statsRepository).increment("role:ROLE_ADMIN", -1L);
+        inOrder.verify(statsRepository).increment("role:ROLE_GONE", -1L);
+        inOrder.verify(statsRepository).increment("status:active", -1L);
+        verify(statsRepository, never()).setCount(anyString(), anyLong());
+        verifyNoMoreInteractions(statsRepository);
+    }
+
+    private User user(String roleCode, boolean active) {
+        User user = new User();
+        user.setRoleCode(roleCode);
+        user.setIsActive(active);
+        user.setIsDeleted(false);
+        return user;
+    }
+}
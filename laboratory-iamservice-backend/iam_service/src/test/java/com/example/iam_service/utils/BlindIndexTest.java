@@ -0,0 +1,82 @@
+package com.example.iam_service.utils;
+
+import com.example.iam_service.util.BlindIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlindIndexTest {
+
+    private final BlindIndex blindIndex = new BlindIndex("blind-index-test-key-that-is-long-enough", "", "0");
+
+    @Test
+    @DisplayName("Should hash the same value to the same index")
+    void phoneNumber_ShouldBeDeterministic() {
+        // Act & Assert
+        assertEquals(blindIndex.phoneNumber("0901234567"), blindIndex.phoneNumber("0901234567"));
+        assertNotEquals(blindIndex.phoneNumber("0901234567"), blindIndex.phoneNumber("0901234568"));
+    }
+
+    @Test
+    @DisplayName("Should ignore formatting of phone and identity numbers")
+    void index_ShouldNormalizeValue() {
+        // Act & Assert
+        assertEquals(blindIndex.phoneNumber("0901234567"), blindIndex.phoneNumber("(090) 123-45.67"));
+        assertEquals(blindIndex.identityNumber("AB123456"), blindIndex.identityNumber(" ab 123456 "));
+    }
+
+    @Test
+    @DisplayName("Should give different indexes for the same value in different columns")
+    void index_ShouldSeparateColumns() {
+        // Act & Assert
+        assertNotEquals(blindIndex.phoneNumber("123456789"), blindIndex.identityNumber("123456789"));
+    }
+
+    @Test
+    @DisplayName("Should return null for null or blank values")
+    void index_ShouldReturnNull_WhenEmpty() {
+        // Act & Assert
+        assertNull(blindIndex.phoneNumber(null));
+        assertNull(blindIndex.phoneNumber(" - "));
+        assertNull(blindIndex.identityNumber("  "));
+    }
+
+    @Test
+    @DisplayName("Should fit the 64 character column")
+    void index_ShouldFitColumn() {
+        // Act
+        String index = blindIndex.identityNumber("079203001234");
+
+        // Assert
+        assertEquals(43, index.length());
+    }
+
+    @Test
+    @DisplayName("Should derive a key from the encryption key, different from a dedicated key")
+    void constructor_ShouldDeriveKey_WhenNoDedicatedKey() {
+        // Arrange
+        BlindIndex derived = new BlindIndex("", "0123456789abcdef", "0");
+        BlindIndex sameDerived = new BlindIndex(null, "0123456789abcdef", null);
+
+        // Act & Assert
+        assertEquals(derived.phoneNumber("0901234567"), sameDerived.phoneNumber("0901234567"));
+        assertNotEquals(derived.phoneNumber("0901234567"), blindIndex.phoneNumber("0901234567"));
+    }
+
+    @Test
+    @DisplayName("Should reject a short key or no key at all")
+    void constructor_ShouldThrow_WhenKeyMissingOrShort() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new BlindIndex("too-short", "", "0"));
+        assertThrows(IllegalStateException.class, () -> new BlindIndex("", "", "0"));
+    }
+
+    @Test
+    @DisplayName("Should require a dedicated key once the encryption key is rotated")
+    void constructor_ShouldThrow_WhenDerivingDuringRotation() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new BlindIndex("", "0123456789abcdef", "k2"));
+        assertDoesNotThrow(() -> new BlindIndex("blind-index-test-key-that-is-long-enough", "", "k2"));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.iam_service.utils;
+
+import com.example.iam_service.util.FieldCrypto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldCryptoTest {
+
+    private static final String KEY = "0123456789abcdef";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FieldCrypto fieldCrypto = new FieldCrypto(KEY, "", "0", meterRegistry);
+
+    // what the old EncryptionUtil wrote
+    private static String legacyEncrypt(String value) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "AES"));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // the single-key GCM format, before key ids
+    private static String v1Encrypt(String value) throws Exception {
+        byte[] iv = new byte[12];
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "AES"),
+                new GCMParameterSpec(128, iv));
+        byte[] encrypted = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        byte[] data = new byte[iv.length + encrypted.length];
+        System.arraycopy(encrypted, 0, data, iv.length, encrypted.length);
+        return "v1:" + Base64.getEncoder().encodeToString(data);
+    }
+
+    @Test
+    @DisplayName("Should decrypt what it encrypted")
+    void encrypt_ShouldRoundTrip() {
+        // Act
+        String encrypted = fieldCrypto.encrypt("12 Nguyễn Huệ, Quận 1");
+
+        // Assert
+        assertTrue(encrypted.startsWith("v2:0:"));
+        assertEquals("12 Nguyễn Huệ, Quận 1", fieldCrypto.decrypt(encrypted));
+    }
+
+    @Test
+    @DisplayName("Should use a fresh IV for every value")
+    void encrypt_ShouldNotBeDeterministic() {
+        // Act & Assert
+        assertNotEquals(fieldCrypto.encrypt("0901234567"), fieldCrypto.encrypt("0901234567"));
+    }
+
+    @Test
+    @DisplayName("Should fit 255 characters of any plaintext in the 1200 wide encrypted columns")
+    void encrypt_ShouldFitColumn_WhenMaxLengthMultibyte() {
+        // Arrange
+        FieldCrypto longId = new FieldCrypto(KEY, "k234567890123456:" + KEY, "k234567890123456", new SimpleMeterRegistry());
+        String address = "ệ".repeat(255);
+
+        // Act
+        String encrypted = longId.encrypt(address);
+
+        // Assert
+        assertTrue(encrypted.length() <= 1200, "encrypted length " + encrypted.length());
+        assertEquals(address, longId.decrypt(encrypted));
+    }
+
+    @Test
+    @DisplayName("Should pass null through")
+    void encryptDecrypt_ShouldReturnNull_WhenNull() {
+        // Act & Assert
+        assertNull(fieldCrypto.encrypt(null));
+        assertNull(fieldCrypto.decrypt(null));
+    }
+
+    @Test
+    @DisplayName("Should read values written by the legacy ECB encryption")
+    void decrypt_ShouldReadLegacyEcb() throws Exception {
+        // Act & Assert
+        assertEquals("079203001234", fieldCrypto.decrypt(legacyEncrypt("079203001234")));
+    }
+
+    @Test
+    @DisplayName("Should return unencrypted legacy rows as they are and count them")
+    void decrypt_ShouldReturnPlaintext_WhenNotEncrypted() {
+        // Act & Assert
+        assertEquals("0901234567", fieldCrypto.decrypt("0901234567"));
+        assertEquals("12 Main Street", fieldCrypto.decrypt("12 Main Street"));
+        assertEquals(1, meterRegistry.get("iam.crypto.legacy.plaintext").tag("reason", "not-ecb").counter().count());
+        assertEquals(1, meterRegistry.get("iam.crypto.legacy.plaintext").tag("reason", "not-base64").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should reject a tampered value instead of returning it")
+    void decrypt_ShouldThrow_WhenTampered() {
+        // Arrange
+        String encrypted = fieldCrypto.encrypt("0901234567");
+        String prefix = fieldCrypto.activePrefix();
+        byte[] data = Base64.getDecoder().decode(encrypted.substring(prefix.length()));
+        data[data.length - 1] ^= 1;
+        String tampered = prefix + Base64.getEncoder().encodeToString(data);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> fieldCrypto.decrypt(tampered));
+    }
+
+    @Test
+    @DisplayName("Should reject a value encrypted under another key")
+    void decrypt_ShouldThrow_WhenOtherKey() {
+        // Arrange
+        String encrypted = new FieldCrypto("fedcba9876543210", "", "0", new SimpleMeterRegistry()).encrypt("0901234567");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> fieldCrypto.decrypt(encrypted));
+    }
+
+    @Test
+    @DisplayName("Should reject a missing or wrong-sized key")
+    void constructor_ShouldThrow_WhenKeyInvalid() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new FieldCrypto("", "", "0", new SimpleMeterRegistry()));
+        assertThrows(IllegalStateException.class, () -> new FieldCrypto("short", "", "0", new SimpleMeterRegistry()));
+    }
+
+    @Test
+    @DisplayName("Should read values written before key ids")
+    void decrypt_ShouldReadV1() throws Exception {
+        // Act & Assert
+        assertEquals("0901234567", fieldCrypto.decrypt(v1Encrypt("0901234567")));
+    }
+
+    @Test
+    @DisplayName("Should write under the active key and still read the old one")
+    void keyRing_ShouldRotateToActiveKey() throws Exception {
+        // Arrange
+        FieldCrypto rotated = new FieldCrypto(KEY, "k2:0123456789abcdef0123456789abcdef", "k2", new SimpleMeterRegistry());
+        String old = fieldCrypto.encrypt("079203001234");
+
+        // Act
+        String reencrypted = rotated.encrypt(rotated.decrypt(old));
+
+        // Assert
+        assertEquals("k2", rotated.activeKeyId());
+        assertTrue(reencrypted.startsWith("v2:k2:"));
+        assertEquals("079203001234", rotated.decrypt(reencrypted));
+        assertEquals("079203001234", rotated.decrypt(legacyEncrypt("079203001234")));
+        assertFalse(rotated.isCurrent(old));
+        assertFalse(rotated.isCurrent(legacyEncrypt("079203001234")));
+        assertTrue(rotated.isCurrent(reencrypted));
+        assertTrue(rotated.isCurrent(null));
+    }
+
+    @Test
+    @DisplayName("Should refuse values of a key that left the ring")
+    void decrypt_ShouldThrow_WhenKeyRetired() {
+        // Arrange
+        FieldCrypto retired = new FieldCrypto("", "k2:0123456789abcdef0123456789abcdef", "k2", new SimpleMeterRegistry());
+        String old = fieldCrypto.encrypt("0901234567");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> retired.decrypt(old));
+    }
+
+    @Test
+    @DisplayName("Should bind the key id to the ciphertext")
+    void decrypt_ShouldThrow_WhenKeyIdSwapped() {
+        // Arrange
+        FieldCrypto ring = new FieldCrypto(KEY, "k2:" + KEY, "k2", new SimpleMeterRegistry());
+        String encrypted = ring.encrypt("0901234567");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> ring.decrypt(encrypted.replace("v2:k2:", "v2:0:")));
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid key ring")
+    void constructor_ShouldThrow_WhenKeyRingInvalid() {
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new FieldCrypto(KEY, "", "k2", new SimpleMeterRegistry()));
+        assertThrows(IllegalStateException.class, () -> new FieldCrypto(KEY, "k_2:" + KEY, "0", new SimpleMeterRegistry()));
+        assertThrows(IllegalStateException.class, () -> new FieldCrypto(KEY, "k2:short", "0", new SimpleMeterRegistry()));
+        assertThrows(IllegalStateException.class, () -> new FieldCrypto(KEY, "0:" + KEY, "0", new SimpleMeterRegistry()));
+        assertThrows(IllegalStateException.class, () -> new FieldCrypto(KEY, "k2", "0", new SimpleMeterRegistry()));
+    }
+}
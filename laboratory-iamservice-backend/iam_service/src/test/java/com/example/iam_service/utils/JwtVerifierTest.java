@@ -0,0 +1,72 @@
+package com.example.iam_service.utils;
+
+import com.example.iam_service.util.JwtVerifier;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtVerifierTest {
+
+    private final SecretKey key = Keys.hmacShaKeyFor(
+            "test-secret-key-that-is-long-enough-for-hmac".getBytes(StandardCharsets.UTF_8));
+    private final JwtVerifier verifier = new JwtVerifier(key);
+
+    private String token(SecretKey signingKey, long expiresInMillis) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .subject("user-1")
+                .claim("role", "ROLE_ADMIN")
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiresInMillis))
+                .signWith(signingKey)
+                .compact();
+    }
+
+    @Test
+    @DisplayName("Should return typed claims for a valid token")
+    void verify_ShouldReturnClaims_WhenValid() {
+        // Act
+        JwtVerifier.TokenClaims claims = verifier.verify(token(key, 60_000));
+
+        // Assert
+        assertEquals("user-1", claims.subject());
+        assertEquals("ROLE_ADMIN", claims.role());
+        assertTrue(claims.expiresAt() > System.currentTimeMillis());
+    }
+
+    @Test
+    @DisplayName("Should reject expired token in the pre-check")
+    void verify_ShouldReject_WhenExpired() {
+        assertThrows(ExpiredJwtException.class, () -> verifier.verify(token(key, -60_000)));
+    }
+
+    @Test
+    @DisplayName("Should reject token signed with another key")
+    void verify_ShouldReject_WhenSignatureInvalid() {
+        SecretKey other = Keys.hmacShaKeyFor(
+                "another-secret-key-that-is-long-enough-hmac".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(JwtException.class, () -> verifier.verify(token(other, 60_000)));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed and unsigned tokens")
+    void verify_ShouldReject_WhenMalformedOrUnsigned() {
+        String unsigned = Jwts.builder().subject("user-1").compact();
+
+        assertThrows(MalformedJwtException.class, () -> verifier.verify("not-a-token"));
+        assertThrows(MalformedJwtException.class, () -> verifier.verify("a.b.c.d"));
+        assertThrows(UnsupportedJwtException.class, () -> verifier.verify(unsigned + "sig"));
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.iam_service.utils;
+
+import com.example.iam_service.util.RedisAttemptLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs RedisAttemptLimiter.RECORD with LuaJ against an in-memory stand-in for the
+// handful of Redis commands it calls.
+class RedisAttemptLimiterScriptTest {
+
+    private static final String ATTEMPTS = "ratelimit:login:1.2.3.4";
+    private static final String BAN = "ratelimit:login:ban:1.2.3.4";
+    private static final long MINUTE = 60_000;
+    private static final long BAN_MILLIS = 7_200_000;
+    private static final long T0 = 1_760_000_000_000L;
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final List<String> published = new ArrayList<>();
+
+    private Globals globals;
+
+    @BeforeEach
+    void setUp() {
+        globals = JsePlatform.standardGlobals();
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return redisCall(args);
+            }
+        });
+        globals.set("redis", redis);
+    }
+
+    @Test
+    @DisplayName("Should ban at the 5th failure when failures are less than a minute apart")
+    void record_ShouldBan_AtMaxAttempts() {
+        // Arrange
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, record(T0 + i * 12_000));
+        }
+
+        // Act
+        long banUntil = record(T0 + 48_000);
+
+        // Assert
+        assertEquals(T0 + 48_000 + BAN_MILLIS, banUntil);
+        assertEquals(String.valueOf(banUntil), strings.get(BAN));
+        assertFalse(hashes.containsKey(ATTEMPTS));
+    }
+
+    @Test
+    @DisplayName("Should never ban failures a minute or more apart")
+    void record_ShouldStartOver_AfterQuietWindow() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, record(T0 + i * MINUTE));
+        }
+
+        assertEquals("1", hashes.get(ATTEMPTS).get("count"));
+        assertNull(strings.get(BAN));
+    }
+
+    @Test
+    @DisplayName("Should start counting over after a quiet minute")
+    void record_ShouldResetCount_AfterQuietMinute() {
+        for (int i = 0; i < 4; i++) {
+            record(T0 + i * 1_000);
+        }
+
+        assertEquals(0, record(T0 + 3_000 + MINUTE));
+        assertEquals("1", hashes.get(ATTEMPTS).get("count"));
+    }
+
+    @Test
+    @DisplayName("Should return a running ban without counting the attempt")
+    void record_ShouldReturnBan_WhenBanned() {
+        // Arrange
+        strings.put(BAN, String.valueOf(T0 + BAN_MILLIS));
+
+        // Act
+        long banUntil = record(T0);
+
+        // Assert
+        assertEquals(T0 + BAN_MILLIS, banUntil);
+        assertFalse(hashes.containsKey(ATTEMPTS));
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should publish a new ban with its end and key")
+    void record_ShouldPublishBan() {
+        for (int i = 0; i < 5; i++) {
+            record(T0 + i);
+        }
+
+        assertEquals(List.of("ratelimit:login:bans " + (T0 + 4 + BAN_MILLIS) + " 1.2.3.4"), published);
+    }
+
+    private long record(long now) {
+        globals.set("KEYS", LuaValue.listOf(new LuaValue[]{LuaValue.valueOf(ATTEMPTS), LuaValue.valueOf(BAN)}));
+        globals.set("ARGV", LuaValue.listOf(new LuaValue[]{
+                LuaValue.valueOf(String.valueOf(now)), LuaValue.valueOf("5"),
+                LuaValue.valueOf(String.valueOf(MINUTE)), LuaValue.valueOf(String.valueOf(BAN_MILLIS)),
+                LuaValue.valueOf("ratelimit:login:bans"), LuaValue.valueOf("1.2.3.4")}));
+        // Redis turns a Lua number reply into an integer
+        return globals.load(RedisAttemptLimiter.RECORD.getScriptAsString()).call().tolong();
+    }
+
+    private Varargs redisCall(Varargs args) {
+        String command = args.arg1().tojstring();
+        String key = args.arg(2).tojstring();
+        switch (command) {
+            case "GET" -> {
+                String value = strings.get(key);
+                return value != null ? LuaValue.valueOf(value) : LuaValue.FALSE;
+            }
+            case "SET" -> {
+                strings.put(key, args.arg(3).tojstring());
+                return LuaValue.valueOf("OK");
+            }
+            case "DEL" -> {
+                return LuaValue.valueOf(hashes.remove(key) != null || strings.remove(key) != null ? 1 : 0);
+            }
+            case "HMGET" -> {
+                Map<String, String> hash = hashes.getOrDefault(key, Map.of());
+                LuaTable values = new LuaTable();
+                for (int i = 3; i <= args.narg(); i++) {
+                    String value = hash.get(args.arg(i).tojstring());
+                    values.set(i - 2, value != null ? LuaValue.valueOf(value) : LuaValue.FALSE);
+                }
+                return values;
+            }
+            case "HSET" -> {
+                Map<String, String> hash = hashes.computeIfAbsent(key, k -> new HashMap<>());
+                for (int i = 3; i < args.narg(); i += 2) {
+                    hash.put(args.arg(i).tojstring(), args.arg(i + 1).tojstring());
+                }
+                return LuaValue.valueOf(1);
+            }
+            case "PEXPIRE" -> {
+                return LuaValue.valueOf(hashes.containsKey(key) ? 1 : 0);
+            }
+            case "PUBLISH" -> {
+                published.add(key + " " + args.arg(3).tojstring());
+                return LuaValue.valueOf(0);
+            }
+            default -> throw new IllegalArgumentException("unexpected command " + command);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.iam_service.utils;
+
+import com.example.iam_service.util.RedisAttemptLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unchecked")
+@ExtendWith(MockitoExtension.class)
+class RedisAttemptLimiterTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private RedisAttemptLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new RedisAttemptLimiter(redisTemplate, "ratelimit:login:", 5, 60_000, 7_200_000);
+    }
+
+    @Test
+    @DisplayName("Should record an attempt with one script call carrying the limiter parameters")
+    void record_ShouldRunScriptOnce() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(0L);
+
+        // Act
+        long banUntil = limiter.record("1.2.3.4");
+
+        // Assert
+        assertEquals(0, banUntil);
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), keys.capture(), args.capture());
+        assertEquals(List.of("ratelimit:login:1.2.3.4", "ratelimit:login:ban:1.2.3.4"), keys.getValue());
+        assertEquals("5", args.getValue()[1]);
+        assertEquals("60000", args.getValue()[2]);
+        assertEquals("7200000", args.getValue()[3]);
+        assertEquals("ratelimit:login:bans", args.getValue()[4]);
+        assertEquals("1.2.3.4", args.getValue()[5]);
+    }
+
+    @Test
+    @DisplayName("Should answer a ban it just applied locally without Redis")
+    void banUntil_ShouldBeLocal_AfterBan() {
+        // Arrange
+        long banEnd = System.currentTimeMillis() + 7_200_000;
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(banEnd);
+
+        // Act
+        long recorded = limiter.record("1.2.3.4");
+        long banned = limiter.banUntil("1.2.3.4");
+
+        // Assert
+        assertEquals(banEnd, recorded);
+        assertEquals(banEnd, banned);
+        verify(redisTemplate, never()).opsForValue();
+    }
+
+    @Test
+    @DisplayName("Should not ask Redis about keys without a ban")
+    void banUntil_ShouldReturnZero_WithoutRedis() {
+        assertEquals(0, limiter.banUntil("1.2.3.4"));
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should apply a ban published by another instance")
+    void onMessage_ShouldCacheBan() {
+        // Arrange
+        long banEnd = System.currentTimeMillis() + 7_200_000;
+        byte[] body = (banEnd + " user@example.com").getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        limiter.onMessage(new DefaultMessage("ratelimit:login:bans".getBytes(StandardCharsets.UTF_8), body), null);
+
+        // Assert
+        assertEquals(banEnd, limiter.banUntil("user@example.com"));
+        assertEquals(0, limiter.banUntil("1.2.3.4"));
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should ignore a published ban that already ended or is malformed")
+    void onMessage_ShouldIgnoreEndedOrMalformed() {
+        byte[] channel = "ratelimit:login:bans".getBytes(StandardCharsets.UTF_8);
+
+        limiter.onMessage(new DefaultMessage(channel,
+                ((System.currentTimeMillis() - 1) + " 1.2.3.4").getBytes(StandardCharsets.UTF_8)), null);
+        limiter.onMessage(new DefaultMessage(channel, "garbage".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals(0, limiter.banUntil("1.2.3.4"));
+    }
+
+    @Test
+    @DisplayName("Should load the bans already set in Redis")
+    void loadBans_ShouldCacheBansFromRedis() {
+        // Arrange
+        long banEnd = System.currentTimeMillis() + 7_200_000;
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenReturn(true, false);
+        when(cursor.next()).thenReturn("ratelimit:login:ban:1.2.3.4");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("ratelimit:login:ban:1.2.3.4")).thenReturn(String.valueOf(banEnd));
+
+        // Act
+        limiter.loadBans();
+
+        // Assert
+        assertEquals(banEnd, limiter.banUntil("1.2.3.4"));
+        verify(valueOperations, times(1)).get(anyString());
+        verify(cursor).close();
+    }
+
+    @Test
+    @DisplayName("Should fail open when Redis is unavailable")
+    void shouldFailOpen_WhenRedisDown() {
+        when(redisTemplate.scan(any(ScanOptions.class))).thenThrow(new RedisConnectionFailureException("down"));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("down"));
+
+        limiter.loadBans();
+
+        assertEquals(0, limiter.record("1.2.3.4"));
+        assertEquals(0, limiter.banUntil("1.2.3.4"));
+    }
+
+    @Test
+    @DisplayName("Should reset by deleting the attempts key only")
+    void reset_ShouldDeleteAttemptsKey() {
+        limiter.reset("1.2.3.4");
+
+        verify(redisTemplate).delete("ratelimit:login:1.2.3.4");
+    }
+}
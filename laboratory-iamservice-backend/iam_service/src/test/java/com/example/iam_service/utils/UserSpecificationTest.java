@@ -0,0 +1,144 @@
+package com.example.iam_service.utils;
+
+import com.example.iam_service.entity.User;
+import com.example.iam_service.util.UserCursor;
+import com.example.iam_service.util.UserSpecification;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Runs the keyset predicate of UserSpecification.after against rows in memory, with SQL
+// semantics: a comparison with NULL is not true, and rows ordered as Postgres orders
+// createdAt DESC, userId DESC (NULL createdAt first).
+class UserSpecificationTest {
+
+    private static final Comparator<User> PAGE_ORDER = Comparator
+            .comparing(User::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDate>reverseOrder()))
+            .thenComparing(User::getUserId, Comparator.reverseOrder());
+
+    private final Map<Object, Function<User, Object>> paths = new IdentityHashMap<>();
+    private final Map<Object, java.util.function.Predicate<User>> predicates = new IdentityHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private final Root<User> root = mock(Root.class, invocation -> {
+        String attribute = invocation.getArgument(0);
+        Path<Object> path = mock(Path.class);
+        paths.put(path, attribute.equals("createdAt") ? User::getCreatedAt : User::getUserId);
+        return path;
+    });
+
+    private final CriteriaBuilder criteriaBuilder = mock(CriteriaBuilder.class, invocation -> {
+        Object[] args = invocation.getArguments();
+        return switch (invocation.getMethod().getName()) {
+            case "or" -> predicate(user -> operands(args).stream().anyMatch(p -> test(p, user)));
+            case "and" -> predicate(user -> operands(args).stream().allMatch(p -> test(p, user)));
+            case "isNotNull" -> predicate(user -> value(args[0], user) != null);
+            case "equal" -> predicate(user -> Objects.equals(compare(value(args[0], user), args[1]), 0));
+            case "lessThan" -> predicate(user -> {
+                Integer order = compare(value(args[0], user), args[1]);
+                return order != null && order < 0;
+            });
+            default -> throw new UnsupportedOperationException(invocation.getMethod().getName());
+        };
+    });
+
+    private Predicate predicate(java.util.function.Predicate<User> test) {
+        Predicate predicate = mock(Predicate.class);
+        predicates.put(predicate, test);
+        return predicate;
+    }
+
+    private static List<Object> operands(Object[] args) {
+        return args.length == 1 && args[0] instanceof Object[] array ? List.of(array) : List.of(args);
+    }
+
+    private boolean test(Object predicate, User user) {
+        return predicates.get(predicate).test(user);
+    }
+
+    private Object value(Object path, User user) {
+        return paths.get(path).apply(user);
+    }
+
+    // NULL compares as unknown: null here, neither == 0 nor < 0 holds
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Integer compare(Object left, Object right) {
+        if (left == null || right == null) return null;
+        return ((Comparable) left).compareTo(right);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<User> page(List<User> users, UserCursor cursor, int limit) {
+        List<User> rows = users;
+        if (cursor != null) {
+            Predicate where = UserSpecification.after(cursor)
+                    .toPredicate(root, mock(CriteriaQuery.class), criteriaBuilder);
+            rows = users.stream().filter(user -> test(where, user)).toList();
+        }
+        return rows.stream().sorted(PAGE_ORDER).limit(limit).toList();
+    }
+
+    private static User user(LocalDate createdAt) {
+        User user = new User();
+        user.setUserId(UUID.randomUUID());
+        user.setCreatedAt(createdAt);
+        return user;
+    }
+
+    @Test
+    @DisplayName("Should walk every row exactly once across pages, dated, undated and same-day rows alike")
+    void after_ShouldPageThroughAllRowsInOrder() {
+        // Arrange - several rows per day and undated legacy rows
+        List<User> users = new ArrayList<>();
+        LocalDate day = LocalDate.of(2026, 1, 1);
+        for (int i = 0; i < 23; i++) {
+            users.add(user(i % 5 == 0 ? null : day.plusDays(i % 4)));
+        }
+        List<User> expected = users.stream().sorted(PAGE_ORDER).toList();
+
+        // Act
+        List<User> walked = new ArrayList<>();
+        UserCursor cursor = null;
+        for (int pages = 0; pages < 20; pages++) {
+            List<User> page = page(users, cursor, 4);
+            walked.addAll(page);
+            if (page.size() < 4) break;
+            User last = page.get(page.size() - 1);
+            cursor = UserCursor.decode(new UserCursor(last.getCreatedAt(), last.getUserId()).encode());
+        }
+
+        // Assert
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    @DisplayName("Should return only older rows, and same-day rows with a lower id, after a dated cursor")
+    void after_ShouldExcludeUndatedRows_WhenCursorDated() {
+        // Arrange
+        LocalDate day = LocalDate.of(2026, 1, 2);
+        User undated = user(null);
+        User newer = user(day.plusDays(1));
+        User older = user(day.minusDays(1));
+        User sameDay = user(day);
+        UserCursor cursor = new UserCursor(day, sameDay.getUserId());
+        User sameDayLower = user(day);
+        sameDayLower.setUserId(new UUID(sameDay.getUserId().getMostSignificantBits() - 1, 0L));
+
+        // Act
+        List<User> rows = page(List.of(undated, newer, older, sameDay, sameDayLower), cursor, 10);
+
+        // Assert
+        assertEquals(List.of(sameDayLower, older), rows);
+    }
+}
@@ -28,12 +28,14 @@ CREATE TABLE "Role" (
 CREATE TABLE "User" (
   userId UUID PRIMARY KEY,
    email VARCHAR(255) NOT NULL UNIQUE,
-   phoneNumber VARCHAR(255),
+   phoneNumber VARCHAR(1200),
    fullName VARCHAR(255) NOT NULL,
-   identityNumber VARCHAR(255) NOT NULL,
+   identityNumber VARCHAR(1200) NOT NULL,
+   phoneNumberIndex VARCHAR(64),
+   identityNumberIndex VARCHAR(64),
    gender VARCHAR(10) NOT NULL CHECK (gender IN ('MALE', 'FEMALE')),
    age INT,
-   address VARCHAR(255),
+   address VARCHAR(1200),
    birthdate DATE,
    password VARCHAR(255) NOT NULL,
    roleCode VARCHAR(255) REFERENCES "Role"(role_code),
@@ -44,14 +46,44 @@ CREATE TABLE "User" (
    deletedAt TIMESTAMP NULL
 );
 
+CREATE INDEX idx_user_created_id ON "User"(createdAt DESC, userId DESC);
+CREATE INDEX idx_user_phone_index ON "User"(phoneNumberIndex);
+-- one account per identity number, users without one are not indexed
+CREATE UNIQUE INDEX idx_user_identity_index ON "User"(identityNumberIndex) WHERE identityNumberIndex IS NOT NULL;
+
 CREATE TABLE "Token" (
   id SERIAL PRIMARY KEY,
   userId UUID NOT NULL REFERENCES "User"(userId),
   tokenId VARCHAR(255) NOT NULL,
   expiredAt TIMESTAMP NOT NULL,
+  familyId VARCHAR(255),
+  usedAt TIMESTAMP,
   createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+CREATE UNIQUE INDEX idx_token_tokenid ON "Token"(tokenId);
+CREATE INDEX idx_token_familyid ON "Token"(familyId);
+CREATE INDEX idx_token_expiredat ON "Token"(expiredAt);
+
+CREATE TABLE "EmailOutbox" (
+  id BIGSERIAL PRIMARY KEY,
+  recipient VARCHAR(255) NOT NULL,
+  subject VARCHAR(255) NOT NULL,
+  body TEXT,
+  status VARCHAR(16) NOT NULL,
+  attempts INT NOT NULL DEFAULT 0,
+  nextAttemptAt TIMESTAMP NOT NULL,
+  lastError VARCHAR(255),
+  createdAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_email_outbox_due ON "EmailOutbox"(status, nextAttemptAt);
+
+CREATE TABLE "UserStats" (
+  bucket VARCHAR(255) PRIMARY KEY,
+  count BIGINT NOT NULL DEFAULT 0
+);
+
 
 -- ===========================================
 -- INSERT FAKE DATA FOR "User" and "Role" TABLE
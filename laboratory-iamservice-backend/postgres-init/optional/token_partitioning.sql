@@ -0,0 +1,57 @@
+-- ===========================================
+-- OPTIONAL: MONTHLY RANGE PARTITIONING OF "Token" BY expiredAt
+-- Not run by docker-entrypoint-initdb.d (sub directory), apply it by hand:
+--   psql -U $POSTGRES_USER -d $POSTGRES_DB -f token_partitioning.sql
+-- then start iam_service with REFRESH_TOKEN_PURGE_PARTITIONED=true.
+-- The purge job drops partitions of past months and creates the coming ones.
+-- ===========================================
+
+BEGIN;
+
+ALTER TABLE "Token" RENAME TO "Token_legacy";
+ALTER INDEX idx_token_tokenid RENAME TO idx_token_legacy_tokenid;
+ALTER INDEX idx_token_familyid RENAME TO idx_token_legacy_familyid;
+ALTER INDEX idx_token_expiredat RENAME TO idx_token_legacy_expiredat;
+
+-- primary key and unique indexes of a partitioned table must contain the partition key,
+-- tokenId is a random UUID so a plain index is enough for the lookups
+CREATE TABLE "Token" (
+  id SERIAL,
+  userId UUID NOT NULL REFERENCES "User"(userId),
+  tokenId VARCHAR(255) NOT NULL,
+  expiredAt TIMESTAMP NOT NULL,
+  familyId VARCHAR(255),
+  usedAt TIMESTAMP,
+  createdAt TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (id, expiredAt)
+) PARTITION BY RANGE (expiredAt);
+
+CREATE INDEX idx_token_tokenid ON "Token"(tokenId);
+CREATE INDEX idx_token_familyid ON "Token"(familyId);
+CREATE INDEX idx_token_expiredat ON "Token"(expiredAt);
+
+-- current month and the next two, named Token_pYYYY_MM
+DO $$
+DECLARE
+  month_start DATE;
+BEGIN
+  FOR i IN 0..2 LOOP
+    month_start := (date_trunc('month', now()) + make_interval(months => i))::DATE;
+    EXECUTE format(
+      'CREATE TABLE %I PARTITION OF "Token" FOR VALUES FROM (%L) TO (%L)',
+      'Token_p' || to_char(month_start, 'YYYY_MM'),
+      month_start,
+      (month_start + INTERVAL '1 month')::DATE
+    );
+  END LOOP;
+END $$;
+
+-- only live tokens are carried over
+INSERT INTO "Token" (userId, tokenId, expiredAt, familyId, usedAt, createdAt)
+SELECT userId, tokenId, expiredAt, familyId, usedAt, createdAt
+FROM "Token_legacy"
+WHERE expiredAt > now();
+
+DROP TABLE "Token_legacy";
+
+COMMIT;